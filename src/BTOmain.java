@@ -4,7 +4,13 @@ public class BTOmain {
    public static void main(String[] args) {
       EntryPoint entryPoint = new EntryPoint();
       try {
-         entryPoint.start();
+         // --serve <port> serves many sessions over local connections instead of the console
+         if (args.length == 2 && args[0].equals("--serve")) {
+            entryPoint.serve(Integer.parseInt(args[1]));
+         }
+         else {
+            entryPoint.start();
+         }
       }
       catch (Exception e) {
          throw new RuntimeException(e);
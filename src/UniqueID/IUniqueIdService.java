@@ -5,4 +5,9 @@ public interface IUniqueIdService {
    Integer generateUniqueId(IdType idType);
 
    void resetId(IdType idType);
+
+   /**
+    * Makes sure no id up to and including the given one is generated again.
+    */
+   void advancePast(IdType idType, int id);
 }
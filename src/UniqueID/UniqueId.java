@@ -1,99 +1,190 @@
 package UniqueID;
 
+import helper.storage.AtomicFile;
+
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.Properties;
-
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out ids from blocks reserved in uniqueIdState.properties. The file holds a high-water mark per id type:
+ * no id above it has been handed out. A new block is only reserved, and the file only written, when the current
+ * block runs out, and the new mark is on disk before any id from the block is returned, so ids are never reused
+ * after a restart or a crash. Ids left over in a block when the program stops are skipped. If the mark cannot be
+ * written, taking the id throws an {@link UncheckedIOException} and no id from the new block is handed out.
+ * Thread-safe: ids come from an atomic counter per id type, and only the thread that crosses into a new block
+ * takes the lock.
+ * <p>
+ * With striping, each thread takes a run of ids from the counter at a time and hands them out on its own, so
+ * threads generating many ids at once do not contend on the counter. Ids then stay unique and below the mark on
+ * disk, but are no longer increasing across threads, and each thread can leave part of a run unused.
+ */
 public class UniqueId {
+   private static final int BLOCK_SIZE = 1000;
    private final String filename = "./data/uniqueIdState.properties";
-   private int nextNewProjectId;
-   private int nextNewApplicationId;
-   private int nextNewRegistrationId;
-   private int nextEnquiryId;
+   private final Map<IdType, IdBlock> blocks = new EnumMap<>(IdType.class);
+   private final int stripeSize;
+   // Per thread, the run of ids it is handing out for each id type; unused without striping
+   private final ThreadLocal<Stripe[]> stripes = ThreadLocal.withInitial(() -> new Stripe[IdType.values().length]);
 
    public UniqueId() {
-      nextNewProjectId = 0;
-      nextNewApplicationId = 0;
-      nextNewRegistrationId = 0;
-      nextEnquiryId = 0;
-   }
-
-   public int getProjectId() {
-      //System.out.println("Project ID: " + nextNewProjectId);
-      nextNewProjectId++;
-      saveToPropertiesFile();
-      return nextNewProjectId;
+      this(1);
    }
 
-   public int getApplicationId() {
-      //System.out.println("Application ID: " + nextNewApplicationId);
-      nextNewApplicationId++;
-      saveToPropertiesFile();
-      return nextNewApplicationId;
-   }
-
-   public int getRegistrationId() {
-      //System.out.println("Registration ID: " + nextNewRegistrationId);
-      nextNewRegistrationId++;
-      saveToPropertiesFile();
-      return nextNewRegistrationId;
+   /**
+    * @param stripeSize How many ids a thread takes from the shared counter at a time; 1 for no striping.
+    */
+   public UniqueId(int stripeSize) {
+      if (stripeSize < 1) {
+         throw new IllegalArgumentException("Stripe size must be at least 1");
+      }
+      this.stripeSize = stripeSize;
+      blocks.put(IdType.PROJECT_ID, new IdBlock("nextNewProjectId"));
+      blocks.put(IdType.APPLICATION_ID, new IdBlock("nextNewApplicationId"));
+      blocks.put(IdType.REGISTRATION_FORM_ID, new IdBlock("nextNewRegistrationId"));
+      blocks.put(IdType.ENQUIRY_ID, new IdBlock("nextEnquiryId"));
    }
 
-   public int getEnquiryId() {
-      //System.out.println("Enquiry ID: " + nextEnquiryId);
-      nextEnquiryId++;
-      saveToPropertiesFile();
-      return nextEnquiryId;
+   public int next(IdType idType) {
+      IdBlock block = blocks.get(idType);
+      if (stripeSize == 1) {
+         return take(block, 1);
+      }
+      Stripe[] own = stripes.get();
+      Stripe stripe = own[idType.ordinal()];
+      if (stripe == null || stripe.next > stripe.last || stripe.generation != block.generation) {
+         // Read the generation first, so a reset in between makes this run stale instead of keeping it
+         int generation = block.generation;
+         int first = take(block, stripeSize);
+         stripe = new Stripe(first, first + stripeSize - 1, generation);
+         own[idType.ordinal()] = stripe;
+      }
+      return stripe.next++;
    }
 
-   public void resetProjectId() {
-      nextNewProjectId = 0;
+   public synchronized void reset(IdType idType) {
+      IdBlock block = blocks.get(idType);
+      block.generation++;
+      block.reservedUpTo = 0; // first, so that if the save fails the next id still has to reserve
+      block.issued.set(0);
+      block.savedMark = 0;
       saveToPropertiesFile();
    }
 
-   public void resetApplicationId() {
-      nextNewApplicationId = 0;
-      saveToPropertiesFile();
+   // An id must not be handed out again once a saved entity carries it, e.g. after the state file was restored
+   public synchronized void advancePast(IdType idType, int id) {
+      IdBlock block = blocks.get(idType);
+      if (block.issued.get() >= id) {
+         return;
+      }
+      block.generation++;
+      block.issued.accumulateAndGet(id, Math::max);
+      if (id > block.reservedUpTo) {
+         reserve(block, id);
+      }
    }
 
-   public void resetRegistrationId() {
-      nextNewRegistrationId = 0;
-      saveToPropertiesFile();
+   // Takes count ids in a row and returns the first
+   private int take(IdBlock block, int count) {
+      int last = block.issued.addAndGet(count);
+      if (last > block.reservedUpTo) {
+         reserve(block, last);
+      }
+      return last - count + 1;
    }
 
-   public void resetEnquiryId() {
-      nextEnquiryId = 0;
-      saveToPropertiesFile();
+   // Blocks until a block holding id is reserved on disk; another thread may have reserved it already.
+   // If the mark cannot be saved nothing is reserved, and the ids taken for it are skipped.
+   private synchronized void reserve(IdBlock block, int id) {
+      if (id <= block.reservedUpTo) {
+         return;
+      }
+      int previous = block.savedMark;
+      block.savedMark = id - 1 + BLOCK_SIZE;
+      try {
+         saveToPropertiesFile();
+      }
+      catch (UncheckedIOException e) {
+         block.savedMark = previous;
+         throw e;
+      }
+      block.reservedUpTo = block.savedMark;
    }
 
-
-   public void loadFromPropertiesFile() {
+   public synchronized void loadFromPropertiesFile() {
+      // The file is only ever replaced whole, so a leftover temp file is an interrupted write to be ignored
+      AtomicFile.discardTemp(Path.of(filename));
       Properties props = new Properties();
       try (FileInputStream fis = new FileInputStream(filename)) {
          props.load(fis);
-         nextNewProjectId = Integer.parseInt(props.getProperty("nextNewProjectId", "1"));
-         nextNewApplicationId = Integer.parseInt(props.getProperty("nextNewApplicationId", "1"));
-         nextNewRegistrationId = Integer.parseInt(props.getProperty("nextNewRegistrationId", "1"));
-         nextEnquiryId = Integer.parseInt(props.getProperty("nextEnquiryId", "1"));
+         for (IdBlock block : blocks.values()) {
+            block.load(props.getProperty(block.key, "1"));
+         }
       }
       catch (IOException e) {
          e.printStackTrace();
       }
    }
 
-   public void saveToPropertiesFile() {
+   /**
+    * Writes the reserved marks; replaced whole through a temp file and synced, so a crash leaves the previous marks.
+    *
+    * @throws UncheckedIOException If the marks could not be written.
+    */
+   public synchronized void saveToPropertiesFile() {
       Properties props = new Properties();
-      props.setProperty("nextNewProjectId", String.valueOf(nextNewProjectId));
-      props.setProperty("nextNewApplicationId", String.valueOf(nextNewApplicationId));
-      props.setProperty("nextNewRegistrationId", String.valueOf(nextNewRegistrationId));
-      props.setProperty("nextEnquiryId", String.valueOf(nextEnquiryId));
+      for (IdBlock block : blocks.values()) {
+         props.setProperty(block.key, String.valueOf(block.savedMark));
+      }
 
-      try (FileOutputStream fos = new FileOutputStream(filename)) {
-         props.store(fos, "Unique ID State");
+      try {
+         AtomicFile.write(Path.of(filename), out -> props.store(out, "Unique ID State"));
       }
       catch (IOException e) {
-         e.printStackTrace();
+         throw new UncheckedIOException("Could not save the id state", e);
+      }
+   }
+
+   // Counter and reservation of one id type
+   private static final class IdBlock {
+      final String key;
+      // Last id handed out, or taken by a stripe
+      final AtomicInteger issued = new AtomicInteger();
+      // Highest id that may be handed out without reserving; only raised once savedMark is on disk
+      volatile int reservedUpTo;
+      // Mark to write to the file; guarded by the UniqueId lock
+      int savedMark;
+      // Raised when the counter is moved other than by taking ids, which makes every stripe stale
+      volatile int generation;
+
+      IdBlock(String key) {
+         this.key = key;
+      }
+
+      // Ids up to the saved mark may have been handed out before, so counting resumes after it
+      void load(String value) {
+         int mark = Integer.parseInt(value);
+         issued.set(mark);
+         savedMark = mark;
+         reservedUpTo = mark;
+      }
+   }
+
+   // A run of ids owned by one thread
+   private static final class Stripe {
+      int next;
+      final int last;
+      final int generation;
+
+      Stripe(int next, int last, int generation) {
+         this.next = next;
+         this.last = last;
+         this.generation = generation;
       }
    }
 
@@ -4,30 +4,31 @@ public class UniqueIdService implements IUniqueIdService {
    private final UniqueId uniqueId;
 
    public UniqueIdService() {
-      this.uniqueId = new UniqueId();
+      this(1);
+   }
+
+   /**
+    * @param stripeSize How many ids each thread takes at a time, see {@link UniqueId}; 1 keeps ids increasing in
+    *                   the order they are generated.
+    */
+   public UniqueIdService(int stripeSize) {
+      this.uniqueId = new UniqueId(stripeSize);
       uniqueId.loadFromPropertiesFile();
    }
 
    @Override
    public Integer generateUniqueId(IdType idType) {
-      return switch (idType) {
-         case APPLICATION_ID -> uniqueId.getApplicationId();
-         case PROJECT_ID -> uniqueId.getProjectId();
-         case ENQUIRY_ID -> uniqueId.getEnquiryId();
-         case REGISTRATION_FORM_ID -> uniqueId.getRegistrationId();
-         default -> throw new IllegalArgumentException("Invalid ID type");
-      };
+      return uniqueId.next(idType);
+   }
+
+   @Override
+   public void advancePast(IdType idType, int id) {
+      uniqueId.advancePast(idType, id);
    }
 
    @Override
    public void resetId(IdType idType) {
-      switch (idType) {
-         case APPLICATION_ID -> uniqueId.resetApplicationId();
-         case PROJECT_ID -> uniqueId.resetProjectId();
-         case ENQUIRY_ID -> uniqueId.resetEnquiryId();
-         case REGISTRATION_FORM_ID -> uniqueId.resetRegistrationId();
-         default -> throw new IllegalArgumentException("Invalid ID type");
-      }
+      uniqueId.reset(idType);
    }
 
 }
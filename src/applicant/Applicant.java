@@ -1,18 +1,29 @@
 package applicant;
 
 import enquiry.Enquiry;
+import helper.concurrent.GuardedList;
+import interfaces.LazyLoader;
 import project.FlatType;
+import system.EntityLocks;
 import user.MaritalStatus;
 import user.User;
 import user.UserFilterSettings;
 
+import java.io.Serial;
 import java.util.ArrayList;
 import java.util.List;
 
 public class Applicant extends User {
+   @Serial
+   private static final long serialVersionUID = -4626746583765897810L;
    private final List<Application> myApplications;
    private final List<Enquiry> enquiries;
    private FlatType bookedFlatType;
+   // Set while the applications/enquiries (and an officer's forms) are still in the snapshot file
+   private transient volatile LazyLoader<Applicant> linkLoader;
+   // The lists as handed out, made on first use, as in Project
+   private transient List<Application> myApplicationsView;
+   private transient List<Enquiry> enquiriesView;
 
    public Applicant(String name, String nric, String password, int age, MaritalStatus maritalStatus) {
       super(name, nric, password, age, maritalStatus, new UserFilterSettings());
@@ -21,12 +32,38 @@ public class Applicant extends User {
       this.enquiries = new ArrayList<>();
    }
 
+   public void setLinkLoader(LazyLoader<Applicant> linkLoader) {
+      this.linkLoader = linkLoader;
+   }
+
+   // As Project.pageIn: cleared once resolved, the loader ignores being called again
+   protected void resolveLinks() {
+      LazyLoader<Applicant> loader = linkLoader;
+      if (loader != null) {
+         loader.load(this);
+         linkLoader = null;
+      }
+   }
+
+   // Guarded by the applicant's lock, see EntityLocks
    public List<Application> getMyApplications() {
-      return myApplications;
+      resolveLinks();
+      List<Application> guarded = myApplicationsView;
+      if (guarded == null) {
+         guarded = new GuardedList<>(myApplications, EntityLocks.of(this));
+         myApplicationsView = guarded;
+      }
+      return guarded;
    }
 
    public List<Enquiry> getEnquiries() {
-      return enquiries;
+      resolveLinks();
+      List<Enquiry> guarded = enquiriesView;
+      if (guarded == null) {
+         guarded = new GuardedList<>(enquiries, EntityLocks.of(this));
+         enquiriesView = guarded;
+      }
+      return guarded;
    }
 
    public FlatType getBookedFlatType() {
@@ -7,10 +7,13 @@ import enquiry.EnquiryService;
 import project.FlatType;
 import project.IProjectService;
 import project.Project;
+import system.EntityLocks;
 import system.ServiceRegistry;
+import system.SessionJournal;
 import system.SessionManager;
 import user.User;
 
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -22,6 +25,7 @@ public class ApplicantController {
    private final EnquiryService enquiryService;
    private final SessionManager sessionManager = ServiceRegistry.get(SessionManager.class);
    private final IUniqueIdService uniqueIdService = ServiceRegistry.get(IUniqueIdService.class);
+   private final SessionJournal journal = ServiceRegistry.get(SessionJournal.class);
 
    public ApplicantController() {
       this.applicantService = ServiceRegistry.get(IApplicantService.class);
@@ -40,9 +44,7 @@ public class ApplicantController {
       Project project = projectService.getProjectById(projectId);
       IUniqueIdService uniqueIdService = ServiceRegistry.get(IUniqueIdService.class);
 
-      // Check remaining flats again right before creating the application
-      // This adds a layer of safety against race conditions, though not fully eliminating them
-      // without more complex locking mechanisms.
+      // Applying holds no flat, one is only held once the application is approved
       int remainingUnits = project.getRemainingFlats().getOrDefault(flatType, 0);
       if (remainingUnits <= 0) {
          throw new IllegalArgumentException("No " + flatType + " units remaining for project '" + project.getProjectName() + "'.");
@@ -51,14 +53,8 @@ public class ApplicantController {
       Application application = new Application(uniqueIdService.generateUniqueId(IdType.APPLICATION_ID),
               applicant.getName(), applicant.getNric(), projectId, project.getProjectName(), flatType);
 
-      // Decrement remaining flats count *before* adding the application
-      // This is a simple way to handle concurrency, though not foolproof.
-      // A more robust solution might involve database transactions or synchronized blocks
-      // if high concurrency is expected.
-      //project.getRemainingFlats().computeIfPresent(flatType, (key, value) -> value > 0 ? value - 1 : 0);
-
-      projectService.addApplicationToProject(application); // Adds to project's list
-      applicantService.addApplicationToApplicant(application); // Adds to applicant's list
+      // Adds to the project's and the applicant's lists, unless another session applied for the applicant meanwhile
+      projectService.addApplicationToProject(application);
    }
 
 
@@ -72,7 +68,34 @@ public class ApplicantController {
       if (application == null) {
          throw new IllegalArgumentException("Application not found.");
       }
-      application.setWithdrawalRequestStatus(WithdrawalRequestStatus.PENDING);
+      Project project = projectService.getProjectById(application.getProjectId());
+      WithdrawalRequestStatus previous = setWithdrawalRequestStatus(project, application, WithdrawalRequestStatus.PENDING);
+      try {
+         journal.recordApplication(application);
+      }
+      catch (UncheckedIOException e) {
+         setWithdrawalRequestStatus(project, application, previous);
+         throw e;
+      }
+   }
+
+   // Under the project's lock, so a booking being made for the application either sees the change or finishes first
+   private WithdrawalRequestStatus setWithdrawalRequestStatus(Project project, Application application, WithdrawalRequestStatus status) {
+      if (project == null) {
+         // The project was deleted, so nothing can be booked for it
+         WithdrawalRequestStatus previous = application.getWithdrawalRequestStatus();
+         application.setWithdrawalRequestStatus(status);
+         return previous;
+      }
+      EntityLocks.lock(project);
+      try {
+         WithdrawalRequestStatus previous = application.getWithdrawalRequestStatus();
+         application.setWithdrawalRequestStatus(status);
+         return previous;
+      }
+      finally {
+         EntityLocks.unlock(project);
+      }
    }
 
    public void submitEnquiry(int projectId, String enquiryText) {
@@ -133,10 +156,7 @@ public class ApplicantController {
       List<Application> applications = applicantService.getApplicationsByApplicant((Applicant) user);
 
       for (Application app : applications) {
-         if (app.getApplicationStatus() == ApplicationStatus.PENDING ||
-                 app.getApplicationStatus() == ApplicationStatus.SUCCESSFUL ||
-                 app.getBookingStatus() == BookingStatus.BOOKED ||
-                 app.getBookingStatus() == BookingStatus.PENDING) {
+         if (app.isActive()) {
             return true;
          }
       }
@@ -5,6 +5,7 @@ import project.FlatType;
 import project.IProjectService;
 import project.Project;
 import system.ServiceRegistry;
+import system.SessionContext;
 import user.IPasswordValidationService;
 import user.User;
 
@@ -17,7 +18,6 @@ public class ApplicantService implements IApplicantService {
    private final IUniqueIdService uniqueIdService;
    private final IPasswordValidationService passwordValidationService;
 
-   private Applicant applicant;
 
    public ApplicantService() {
       this.projectService = ServiceRegistry.get(IProjectService.class);
@@ -27,12 +27,17 @@ public class ApplicantService implements IApplicantService {
 
    @Override
    public User getUser() {
-      return this.applicant;
+      return applicant();
    }
 
    @Override
    public void setUser(Applicant applicant) {
-      this.applicant = applicant;
+      SessionContext.current().setUser(applicant);
+   }
+
+   // The user belongs to the session of the calling thread, so one service can serve every session at once
+   private Applicant applicant() {
+      return (Applicant) SessionContext.current().getUser();
    }
 
    @Override
@@ -50,8 +55,7 @@ public class ApplicantService implements IApplicantService {
 
       return project -> {
          // Check if applicant has already applied for this project
-         boolean hasApplied = project.getApplications().stream()
-                 .anyMatch(app -> app.getApplicantName().equals(applicant.getName()));
+         boolean hasApplied = projectService.getApplication(applicant.getNric(), project.getId()) != null;
 
          // If already applied, always show the project
          if (hasApplied) {
@@ -95,7 +99,7 @@ public class ApplicantService implements IApplicantService {
    @Override
    public void addApplicationToApplicant(Application application) {
       // Add the application to the applicant's list of applications
-      applicant.getMyApplications().add(application);
+      applicant().getMyApplications().add(application);
    }
 
    @Override
@@ -2,11 +2,14 @@ package applicant;
 
 import project.FlatType;
 
+import java.io.Serial;
 import java.io.Serializable;
 import java.time.LocalDate;
 import java.util.List;
 
 public class Application implements Serializable {
+   @Serial
+   private static final long serialVersionUID = 1903744497045001275L;
    private final Integer id;
    private final String applicantName;
    private final String applicantNric;
@@ -31,6 +34,22 @@ public class Application implements Serializable {
       this.dateApplied = LocalDate.now();
    }
 
+   // Use this when restoring a persisted application
+   public Application(Integer id, String applicantName, String applicantNric, Integer projectId, String projectName,
+                      FlatType flatType, LocalDate dateApplied, ApplicationStatus applicationStatus,
+                      BookingStatus bookingStatus, WithdrawalRequestStatus withdrawalRequestStatus) {
+      this.id = id;
+      this.applicantName = applicantName;
+      this.applicantNric = applicantNric;
+      this.projectId = projectId;
+      this.projectName = projectName;
+      this.flatType = flatType;
+      this.applicationStatus = applicationStatus;
+      this.bookingStatus = bookingStatus;
+      this.withdrawalRequestStatus = withdrawalRequestStatus;
+      this.dateApplied = dateApplied;
+   }
+
    public Integer getId() {
       return id;
    }
@@ -67,6 +86,14 @@ public class Application implements Serializable {
       this.applicationStatus = applicationStatus;
    }
 
+   // Pending, successful or booked; an applicant with an active application cannot apply for another
+   public boolean isActive() {
+      return applicationStatus == ApplicationStatus.PENDING
+              || applicationStatus == ApplicationStatus.SUCCESSFUL
+              || bookingStatus == BookingStatus.BOOKED
+              || bookingStatus == BookingStatus.PENDING;
+   }
+
    public BookingStatus getBookingStatus() {
       return bookingStatus;
    }
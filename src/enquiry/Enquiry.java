@@ -3,11 +3,14 @@ package enquiry;
 import system.ServiceRegistry;
 import system.SessionManager;
 
+import java.io.Serial;
 import java.io.Serializable;
 import java.time.LocalDate;
 import java.util.List;
 
 public class Enquiry implements Serializable {
+   @Serial
+   private static final long serialVersionUID = 4861239110124948684L;
    private final Integer id;
    private final String projectName;
    private final Integer projectId;
@@ -29,6 +32,16 @@ public class Enquiry implements Serializable {
       this.dateEnquired = dateEnquired;
    }
 
+   // Use this when restoring a persisted enquiry
+   public Enquiry(Integer id, String projectName, Integer projectId, String applicantName, String applicantNric,
+                  LocalDate dateEnquired, String enquiry, String reply, String respondent, LocalDate dateReplied) {
+      this(id, projectName, projectId, applicantName, applicantNric, dateEnquired);
+      this.enquiry = enquiry;
+      this.reply = reply;
+      this.respondent = respondent;
+      this.dateReplied = dateReplied;
+   }
+
    public Integer getId() {
       return id;
    }
@@ -74,6 +87,10 @@ public class Enquiry implements Serializable {
    }
 
 
+   public String getRespondent() {
+      return respondent;
+   }
+
    public void setRespondent(String respondent) {
       this.respondent = respondent;
    }
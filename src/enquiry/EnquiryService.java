@@ -8,6 +8,7 @@ import project.IProjectService;
 import project.Project;
 import project.ProjectRegistry;
 import system.ServiceRegistry;
+import system.SessionJournal;
 import system.SessionManager;
 
 import java.time.LocalDate;
@@ -18,11 +19,13 @@ public class EnquiryService {
    private final IProjectService projectService;
    private final IUniqueIdService uniqueIdService;
    private final SessionManager sessionManager;
+   private final SessionJournal journal;
 
    public EnquiryService() {
       this.projectService = ServiceRegistry.get(IProjectService.class);
       this.uniqueIdService = ServiceRegistry.get(IUniqueIdService.class);
       this.sessionManager = ServiceRegistry.get(SessionManager.class);
+      this.journal = ServiceRegistry.get(SessionJournal.class);
    }
 
    public Enquiry createEnquiry(Integer projectId, String applicantName, String applicantNric, String message)
@@ -56,7 +59,6 @@ public class EnquiryService {
          if (applicant == null) {
             throw new IllegalArgumentException("Applicant not found.");
          }
-         applicant.getEnquiries().add(enquiry);
          projectService.addEnquiryToProject(enquiry);
       }
       catch (Exception e) {
@@ -76,6 +78,7 @@ public class EnquiryService {
       }
       try {
          enquiry.setEnquiry(newMessage);
+         journal.recordEnquiry(enquiry);
       }
       catch (Exception e) {
          throw new IllegalArgumentException("Something went wrong while editing enquiry. Try again.");
@@ -91,19 +94,18 @@ public class EnquiryService {
       if (!enquiry.getApplicantNric().equals(sessionManager.getCurrentUser().getNric())) {
          throw new IllegalArgumentException("You are not allowed to delete this enquiry.");
       }
-      Applicant applicant = (Applicant) ServiceRegistry.get(SessionManager.class).getUserByName(enquiry.getApplicantName());
       // Check if the enquiry has a reply (can't delete)
       if (enquiry.getReply() != null && !enquiry.getReply().isBlank()) {
          throw new IllegalArgumentException("Cannot delete enquiry with a reply.");
       }
-      applicant.getEnquiries().remove(enquiry);
-      Color.println("Enquiry deleted successfully.", Color.GREEN);
       projectService.removeEnquiryFromProject(enquiry);
+      Color.println("Enquiry deleted successfully.", Color.GREEN);
    }
 
    public void replyToEnquiry(Enquiry enquiry, String reply) {
       if (enquiry.getReply() == null || enquiry.getReply().isEmpty()) {
          enquiry.setReply(reply);
+         journal.recordEnquiry(enquiry);
          Color.println("Enquiry replied successfully.", Color.GREEN);
       }
       else {
@@ -0,0 +1,103 @@
+package helper;
+
+import java.util.Arrays;
+
+/**
+ * A set of ids as typed by a user, e.g. {@code 3-10, 15, 20-22}, or {@code all} for every id. The ranges are kept
+ * merged and sorted, so whether an id is selected costs a binary search however many ids the ranges cover, and a
+ * list of items can be matched against the selection in a single pass.
+ */
+public final class IdSelection {
+   private static final IdSelection ALL = new IdSelection(new int[]{Integer.MIN_VALUE}, new int[]{Integer.MAX_VALUE});
+
+   private final int[] starts;
+   private final int[] ends;
+
+   private IdSelection(int[] starts, int[] ends) {
+      this.starts = starts;
+      this.ends = ends;
+   }
+
+   /**
+    * Tells a selection apart from a single id or a name, which callers handle as before.
+    *
+    * @return true if the input is {@code all} or a list of ids and ranges with at least one comma or dash.
+    */
+   public static boolean isSelection(String input) {
+      String trimmed = input.trim();
+      return trimmed.equalsIgnoreCase("all") || (trimmed.matches("[\\d\\s,-]+") && trimmed.matches(".*[,-].*"));
+   }
+
+   /**
+    * @param input Comma-separated ids and inclusive ranges, or {@code all}.
+    * @throws IllegalArgumentException If a part is neither an id nor a range, or a range ends before it starts.
+    */
+   public static IdSelection parse(String input) {
+      if (input.trim().equalsIgnoreCase("all")) {
+         return ALL;
+      }
+      String[] parts = input.split(",");
+      long[] ranges = new long[parts.length];
+      int count = 0;
+      for (String part : parts) {
+         String trimmed = part.trim();
+         if (trimmed.isEmpty()) {
+            continue;
+         }
+         int dash = trimmed.indexOf('-', 1);
+         int start;
+         int end;
+         try {
+            start = Integer.parseInt(dash < 0 ? trimmed : trimmed.substring(0, dash).trim());
+            end = dash < 0 ? start : Integer.parseInt(trimmed.substring(dash + 1).trim());
+         }
+         catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not an ID or a range of IDs: " + trimmed);
+         }
+         if (end < start) {
+            throw new IllegalArgumentException("Range ends before it starts: " + trimmed);
+         }
+         // Start in the high half, end in the low half, so sorting orders the ranges by start
+         ranges[count++] = (long) start << 32 | (end & 0xFFFFFFFFL);
+      }
+      if (count == 0) {
+         throw new IllegalArgumentException("No IDs given");
+      }
+      Arrays.sort(ranges, 0, count);
+
+      int[] starts = new int[count];
+      int[] ends = new int[count];
+      int merged = 0;
+      for (int i = 0; i < count; i++) {
+         int start = (int) (ranges[i] >> 32);
+         int end = (int) ranges[i];
+         if (merged > 0 && (long) start <= (long) ends[merged - 1] + 1) {
+            ends[merged - 1] = Math.max(ends[merged - 1], end);
+         }
+         else {
+            starts[merged] = start;
+            ends[merged] = end;
+            merged++;
+         }
+      }
+      return new IdSelection(Arrays.copyOf(starts, merged), Arrays.copyOf(ends, merged));
+   }
+
+   public boolean contains(int id) {
+      // The last range starting at or before the id
+      int low = 0;
+      int high = starts.length - 1;
+      int found = -1;
+      while (low <= high) {
+         int mid = (low + high) >>> 1;
+         if (starts[mid] <= id) {
+            found = mid;
+            low = mid + 1;
+         }
+         else {
+            high = mid - 1;
+         }
+      }
+      return found >= 0 && id <= ends[found];
+   }
+}
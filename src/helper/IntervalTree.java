@@ -0,0 +1,139 @@
+package helper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Immutable interval tree over closed ranges [start, end], e.g. the application period of projects as epoch days.
+ * The tree is a balanced BST laid out implicitly over an array sorted by start, where every subtree also records
+ * the largest end below it, so overlap and stabbing queries cost O(log n + matches) instead of a full scan.
+ *
+ * @param <T> the type of item the intervals belong to
+ */
+public final class IntervalTree<T> {
+   private final Object[] items;
+   private final long[] starts;
+   private final long[] ends;
+   // Largest end in the subtree rooted at each midpoint
+   private final long[] maxEnds;
+   // All ends in ascending order, used to count items that ended before a point
+   private final long[] sortedEnds;
+
+   public IntervalTree(List<T> items, ToLongFunction<T> start, ToLongFunction<T> end) {
+      List<T> sorted = new ArrayList<>(items);
+      sorted.sort(Comparator.comparingLong(start));
+      int size = sorted.size();
+      this.items = sorted.toArray();
+      this.starts = new long[size];
+      this.ends = new long[size];
+      this.maxEnds = new long[size];
+      for (int i = 0; i < size; i++) {
+         starts[i] = start.applyAsLong(sorted.get(i));
+         ends[i] = end.applyAsLong(sorted.get(i));
+      }
+      this.sortedEnds = ends.clone();
+      Arrays.sort(sortedEnds);
+      buildMaxEnds(0, size - 1);
+   }
+
+   private long buildMaxEnds(int low, int high) {
+      if (low > high) {
+         return Long.MIN_VALUE;
+      }
+      int mid = (low + high) >>> 1;
+      long max = Math.max(ends[mid], Math.max(buildMaxEnds(low, mid - 1), buildMaxEnds(mid + 1, high)));
+      maxEnds[mid] = max;
+      return max;
+   }
+
+   public int size() {
+      return items.length;
+   }
+
+   /**
+    * Items whose interval overlaps [from, to], both ends inclusive, in ascending order of start.
+    */
+   public List<T> overlapping(long from, long to) {
+      List<T> result = new ArrayList<>();
+      overlapping(from, to, result::add);
+      return result;
+   }
+
+   public void overlapping(long from, long to, Consumer<T> action) {
+      visit(0, items.length - 1, from, to, action);
+   }
+
+   /**
+    * Items whose interval contains the given point.
+    */
+   public List<T> containing(long point) {
+      return overlapping(point, point);
+   }
+
+   /**
+    * Number of items whose interval contains the given point, without visiting them.
+    * Exact as long as no interval ends before it starts.
+    */
+   public int countContaining(long point) {
+      int startedAfter = items.length - upperBound(starts, point);
+      int endedBefore = lowerBound(sortedEnds, point);
+      return Math.max(0, items.length - startedAfter - endedBefore);
+   }
+
+   @SuppressWarnings("unchecked")
+   private void visit(int low, int high, long from, long to, Consumer<T> action) {
+      if (low > high) {
+         return;
+      }
+      int mid = (low + high) >>> 1;
+      // Nothing below here ends late enough to reach the query
+      if (maxEnds[mid] < from) {
+         return;
+      }
+      visit(low, mid - 1, from, to, action);
+      // Everything from here on starts after the query
+      if (starts[mid] > to) {
+         return;
+      }
+      if (ends[mid] >= from) {
+         action.accept((T) items[mid]);
+      }
+      visit(mid + 1, high, from, to, action);
+   }
+
+   // First index whose value is >= key
+   private static int lowerBound(long[] values, long key) {
+      int low = 0;
+      int high = values.length;
+      while (low < high) {
+         int mid = (low + high) >>> 1;
+         if (values[mid] < key) {
+            low = mid + 1;
+         }
+         else {
+            high = mid;
+         }
+      }
+      return low;
+   }
+
+   // First index whose value is > key
+   private static int upperBound(long[] values, long key) {
+      int low = 0;
+      int high = values.length;
+      while (low < high) {
+         int mid = (low + high) >>> 1;
+         if (values[mid] <= key) {
+            low = mid + 1;
+         }
+         else {
+            high = mid;
+         }
+      }
+      return low;
+   }
+}
@@ -1,18 +1,19 @@
 package helper.ProjectRegistryLoader;
 
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 // Utility to parse Project specific fields from a String array row
 // It parses the 12 data columns from the tab-delimited file format.
+// Numbers and dates are read straight out of the field strings, without trimmed copies, boxing or formatters.
 public class ProjectFieldParser {
 
-   // Date formatter for "M/d/yyyy" format
-   private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("M/d/yyyy");
+   // Largest mantissa that a double holds exactly, and the powers of ten that are exact doubles
+   private static final long EXACT_MANTISSA = 1L << 53;
+   private static final double[] POWERS_OF_TEN = {
+           1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+           1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+   };
 
    // Private constructor to prevent instantiation
    private ProjectFieldParser() {
@@ -24,192 +25,249 @@ public class ProjectFieldParser {
     * Assumes the order based on the example:
     * Project Name, Neighborhood, Type 1, Units 1, Price 1, Type 2, Units 2, Price 2,
     * Open Date, Close Date, Manager, Officer Slot, Officer List.
+    * Empty number and date fields are stored as absent, and an empty officer list as null.
     *
-    * @param parts The String array from a split line (expected length 13).
-    * @return An array of Objects containing the parsed fields in the order required by the Project constructor
-    * (excluding the 'id' which is generated):
-    * [0] projectName (String), [1] neighbourhood (String), [2] twoRoomUnits (Integer), [3] twoRoomPrice (Double),
-    * [4] threeRoomUnits (Integer), [5] threeRoomPrice (Double), [6] applicationOpeningDate (LocalDate),
-    * [7] applicationClosingDate (LocalDate), [8] manager (String), [9] availableOfficerSlots (Integer),
-    * [10] officers (List<String>).
-    * @throws Exception If parsing or conversion fails for any field.
+    * @param parts  The String array from a split line (expected length 13).
+    * @param fields The target to overwrite with this row's fields (excluding the 'id' which is generated).
+    * @throws IllegalArgumentException If parsing or conversion fails for any field.
     */
-   public static Object[] parseProjectFields(String[] parts) throws Exception {
+   static void parseProjectFields(String[] parts, ProjectFields fields) {
       // Assumes parts array has already been checked for correct length (13) by the loader
-
-      // Extract raw strings (trimming simple whitespace)
-      String projectNameStr = parts[0].trim();
-      String neighbourhoodStr = parts[1].trim();
+      // trim() returns the same string when there is nothing to remove
+      fields.projectName = parts[0].trim();
+      fields.neighbourhood = parts[1].trim();
       // parts[2] is Type 1 ("2-Room"), not mapped directly
-      String twoRoomUnitsStr = parts[3].trim();
-      String twoRoomPriceStr = parts[4].trim();
+      fields.twoRoomUnits = parseCount(parts[3], "Two Room Units", "Units");
+      fields.twoRoomPrice = parsePrice(parts[4], "Two Room Price");
       // parts[5] is Type 2 ("3-Room"), not mapped directly
-      String threeRoomUnitsStr = parts[6].trim();
-      String threeRoomPriceStr = parts[7].trim();
-      String openingDateStr = parts[8].trim();
-      String closingDateStr = parts[9].trim();
-      String managerStr = parts[10].trim();
-      String officerSlotsStr = parts[11].trim();
-      String officersListStr = parts[12].trim(); // This needs special parsing
-
-      // --- Parse and Convert Fields ---
-
-      // Project Name (String) - Basic validation already in Project constructor
-      String projectName = projectNameStr;
+      fields.threeRoomUnits = parseCount(parts[6], "Three Room Units", "Units");
+      fields.threeRoomPrice = parsePrice(parts[7], "Three Room Price");
+      fields.applicationOpeningDate = parseDate(parts[8], "Opening Date");
+      fields.applicationClosingDate = parseDate(parts[9], "Closing Date");
+      fields.manager = parts[10].trim();
+      fields.availableOfficerSlots = parseCount(parts[11], "Officer Slots", "Officer Slots");
+      fields.officers = parseOfficers(parts[12]);
+   }
 
-      // Neighbourhood (String) - Basic validation already in Project constructor
-      String neighbourhood = neighbourhoodStr;
+   // A non-negative int, or NO_NUMBER if the field is empty; same syntax as Integer.parseInt
+   private static int parseCount(String field, String name, String negativeName) {
+      int start = trimStart(field);
+      int end = trimEnd(field, start);
+      if (start == end) {
+         return ProjectFields.NO_NUMBER;
+      }
 
-      // Two Room Units (Integer)
-      Integer twoRoomUnits = null; // Allow null if empty or invalid
-      if (!twoRoomUnitsStr.isEmpty()) {
-         try {
-            twoRoomUnits = Integer.parseInt(twoRoomUnitsStr);
-            if (twoRoomUnits < 0) {
-               throw new IllegalArgumentException("Units cannot be negative");
-            }
+      int i = start;
+      boolean negative = field.charAt(i) == '-';
+      if (negative || field.charAt(i) == '+') {
+         i++;
+      }
+      if (i == end) {
+         throw invalid(name, field, start, end);
+      }
+      long value = 0;
+      for (; i < end; i++) {
+         int digit = field.charAt(i) - '0';
+         if (digit < 0 || digit > 9) {
+            throw invalid(name, field, start, end);
          }
-         catch (NumberFormatException e) {
-            throw new IllegalArgumentException("Invalid Two Room Units format: '" + twoRoomUnitsStr + "'");
+         value = value * 10 + digit;
+         if (value > (long) Integer.MAX_VALUE + 1) {
+            throw invalid(name, field, start, end);
          }
       }
+      if (negative && value != 0) {
+         throw new IllegalArgumentException(negativeName + " cannot be negative");
+      }
+      if (value > Integer.MAX_VALUE) {
+         throw invalid(name, field, start, end);
+      }
+      return (int) value;
+   }
 
-      // Two Room Price (Double)
-      Double twoRoomPrice = null; // Allow null if empty or invalid
-      if (!twoRoomPriceStr.isEmpty()) {
-         try {
-            twoRoomPrice = Double.parseDouble(twoRoomPriceStr);
-            if (twoRoomPrice < 0) {
-               throw new IllegalArgumentException("Price cannot be negative");
-            }
-         }
-         catch (NumberFormatException e) {
-            throw new IllegalArgumentException("Invalid Two Room Price format: '" + twoRoomPriceStr + "'");
-         }
+   // A non-negative double, or NO_NUMBER if the field is empty
+   private static double parsePrice(String field, String name) {
+      int start = trimStart(field);
+      int end = trimEnd(field, start);
+      if (start == end) {
+         return ProjectFields.NO_NUMBER;
       }
 
-      // Three Room Units (Integer)
-      Integer threeRoomUnits = null; // Allow null if empty or invalid
-      if (!threeRoomUnitsStr.isEmpty()) {
+      double price = parseDecimal(field, start, end);
+      if (Double.isNaN(price)) {
+         // Exponents, more digits than a double holds exactly, "Infinity" and so on
          try {
-            threeRoomUnits = Integer.parseInt(threeRoomUnitsStr);
-            if (threeRoomUnits < 0) {
-               throw new IllegalArgumentException("Units cannot be negative");
-            }
+            price = Double.parseDouble(field.substring(start, end));
          }
          catch (NumberFormatException e) {
-            throw new IllegalArgumentException("Invalid Three Room Units format: '" + threeRoomUnitsStr + "'");
+            throw invalid(name, field, start, end);
          }
       }
+      if (price < 0) {
+         throw new IllegalArgumentException("Price cannot be negative");
+      }
+      return price;
+   }
 
-      // Three Room Price (Double)
-      Double threeRoomPrice = null; // Allow null if empty or invalid
-      if (!threeRoomPriceStr.isEmpty()) {
-         try {
-            threeRoomPrice = Double.parseDouble(threeRoomPriceStr);
-            if (threeRoomPrice < 0) {
-               throw new IllegalArgumentException("Price cannot be negative");
-            }
+   /**
+    * Plain decimals such as "360000" or "-1234.50" whose digits fit in an exactly representable mantissa.
+    * One correctly rounded division of two exact doubles gives the same result as Double.parseDouble.
+    *
+    * @return The value, or NaN if the text is not of that simple form.
+    */
+   private static double parseDecimal(String field, int start, int end) {
+      int i = start;
+      boolean negative = field.charAt(i) == '-';
+      if (negative || field.charAt(i) == '+') {
+         i++;
+      }
+      long mantissa = 0;
+      int digits = 0;
+      int decimals = -1; // -1 until the decimal point
+      for (; i < end; i++) {
+         char c = field.charAt(i);
+         if (c == '.' && decimals < 0) {
+            decimals = 0;
+            continue;
          }
-         catch (NumberFormatException e) {
-            throw new IllegalArgumentException("Invalid Three Room Price format: '" + threeRoomPriceStr + "'");
+         if (c < '0' || c > '9') {
+            return Double.NaN;
          }
-      }
-
-      // Application Opening Date (LocalDate)
-      LocalDate applicationOpeningDate = null; // Allow null if empty or invalid
-      if (!openingDateStr.isEmpty()) {
-         try {
-            applicationOpeningDate = LocalDate.parse(openingDateStr, DATE_FORMATTER);
+         mantissa = mantissa * 10 + (c - '0');
+         digits++;
+         if (decimals >= 0) {
+            decimals++;
          }
-         catch (DateTimeParseException e) {
-            throw new IllegalArgumentException("Invalid Opening Date format: '" + openingDateStr + "' (Expected M/d/yyyy)");
+         if (mantissa >= EXACT_MANTISSA || decimals >= POWERS_OF_TEN.length) {
+            return Double.NaN;
          }
       }
+      if (digits == 0) {
+         return Double.NaN;
+      }
+      double value = decimals > 0 ? mantissa / POWERS_OF_TEN[decimals] : mantissa;
+      return negative ? -value : value;
+   }
 
-      // Application Closing Date (LocalDate)
-      LocalDate applicationClosingDate = null; // Allow null if empty or invalid
-      if (!closingDateStr.isEmpty()) {
-         try {
-            applicationClosingDate = LocalDate.parse(closingDateStr, DATE_FORMATTER);
-         }
-         catch (DateTimeParseException e) {
-            throw new IllegalArgumentException("Invalid Closing Date format: '" + closingDateStr + "' (Expected M/d/yyyy)");
-         }
+   /**
+    * A "M/d/yyyy" date as an epoch day, or NO_DATE if the field is empty. Like DateTimeFormatter.ofPattern("M/d/yyyy")
+    * with its default smart resolver, a day-of-month past the end of a month (e.g. 2/30) becomes its last day.
+    */
+   private static long parseDate(String field, String name) {
+      int start = trimStart(field);
+      int end = trimEnd(field, start);
+      if (start == end) {
+         return ProjectFields.NO_DATE;
       }
 
-      // Manager (String) - Trimmed above
-      String manager = managerStr;
+      // Positions of the two slashes
+      int first = field.indexOf('/', start);
+      int second = first < 0 ? -1 : field.indexOf('/', first + 1);
+      if (second < 0 || second >= end) {
+         throw invalidDate(name, field, start, end);
+      }
+      int month = parseDigits(field, start, first, 1, 2);
+      int day = parseDigits(field, first + 1, second, 1, 2);
+      int year = parseDigits(field, second + 1, end, 4, 4);
+      if (month < 1 || month > 12 || day < 1 || day > 31 || year < 1) {
+         throw invalidDate(name, field, start, end);
+      }
+      return epochDay(year, month, Math.min(day, lengthOfMonth(year, month)));
+   }
 
-      // Available Officer Slots (Integer)
-      Integer availableOfficerSlots = null; // Allow null if empty or invalid
-      if (!officerSlotsStr.isEmpty()) {
-         try {
-            availableOfficerSlots = Integer.parseInt(officerSlotsStr);
-            if (availableOfficerSlots < 0) {
-               throw new IllegalArgumentException("Officer Slots cannot be negative");
-            }
-         }
-         catch (NumberFormatException e) {
-            throw new IllegalArgumentException("Invalid Officer Slots format: '" + officerSlotsStr + "'");
+   // The unsigned number in [from, to) if it has between min and max digits, otherwise -1
+   private static int parseDigits(String field, int from, int to, int min, int max) {
+      int length = to - from;
+      if (length < min || length > max) {
+         return -1;
+      }
+      int value = 0;
+      for (int i = from; i < to; i++) {
+         int digit = field.charAt(i) - '0';
+         if (digit < 0 || digit > 9) {
+            return -1;
          }
+         value = value * 10 + digit;
       }
+      return value;
+   }
 
-      // Officers List (List<String>) - Requires special parsing
-      List<String> officers = null; // Allow null if empty or invalid
-      if (!officersListStr.isEmpty()) {
-         String contentToSplit = officersListStr;
+   private static int lengthOfMonth(int year, int month) {
+      return switch (month) {
+         case 2 -> (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+         case 4, 6, 9, 11 -> 30;
+         default -> 31;
+      };
+   }
 
-         // Check and remove surrounding quotes if present
-         if (contentToSplit.startsWith("\"") && contentToSplit.endsWith("\"")) {
-            // Remove the outer quotes
-            contentToSplit = contentToSplit.substring(1, contentToSplit.length() - 1);
-         }
+   // Days since 1970-01-01 in the proleptic Gregorian calendar, counting years from March so leap days come last
+   private static long epochDay(int year, int month, int day) {
+      int y = month <= 2 ? year - 1 : year;
+      int era = y / 400; // y is never negative here
+      int yearOfEra = y - era * 400;
+      int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+      int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+      return era * 146097L + dayOfEra - 719468;
+   }
 
-         // Handle escaped quotes within the content (e.g., "" -> ") - Not explicitly in example, but common in CSV/quoted fields
-         // contentToSplit = contentToSplit.replace("\"\"", "\""); // Uncomment if escaped quotes are possible
-
-         // Split by comma and trim each name
-         if (!contentToSplit.isEmpty()) {
-            officers = Arrays.stream(contentToSplit.split(","))
-                    .map(String::trim) // Trim each individual name
-                    .filter(name -> !name.isEmpty()) // Filter out empty names resulting from consecutive commas or trailing commas
-                    .collect(Collectors.toList());
-            if (officers.isEmpty() && !contentToSplit.isEmpty()) {
-               // If splitting resulted in an empty list but the content wasn't empty,
-               // it might be a single empty quoted string like "" - handle as empty list
-               officers = java.util.Collections.emptyList();
-            }
-            else if (officers.isEmpty() && contentToSplit.isEmpty()) {
-               // If content was empty after quote removal (e.g. just ""), result is empty list
-               officers = java.util.Collections.emptyList();
-            }
-         }
-         else {
-            // If the string was empty after trimming (e.g., just whitespace or empty field), result is empty list
-            officers = java.util.Collections.emptyList();
+   // A quoted, comma-separated list of names; a new mutable list since officers are added to it later
+   private static List<String> parseOfficers(String field) {
+      int start = trimStart(field);
+      int end = trimEnd(field, start);
+      if (start == end) {
+         return null;
+      }
+
+      // Remove the surrounding quotes if present
+      if (end - start >= 2 && field.charAt(start) == '"' && field.charAt(end - 1) == '"') {
+         start++;
+         end--;
+      }
+
+      // Split by comma and trim each name, leaving out names that are empty
+      List<String> officers = new ArrayList<>();
+      while (start < end) {
+         int comma = field.indexOf(',', start);
+         int nameEnd = comma < 0 || comma >= end ? end : comma;
+         int nameStart = trimStart(field, start, nameEnd);
+         int trimmedEnd = trimEnd(field, nameStart, nameEnd);
+         if (nameStart < trimmedEnd) {
+            officers.add(field.substring(nameStart, trimmedEnd));
          }
+         start = nameEnd + 1;
       }
-      else {
-         // If the original string was empty, result is null or empty list. Let's use null for consistency with other nullable fields.
-         officers = null;
-      }
-
-
-      // Return parsed fields as an Object array in the order needed by the Project constructor
-      // Note: The 'id' is NOT parsed here, it will be generated by the mapper/loader.
-      return new Object[]{
-              projectName,
-              neighbourhood,
-              twoRoomUnits,
-              twoRoomPrice,
-              threeRoomUnits,
-              threeRoomPrice,
-              applicationOpeningDate,
-              applicationClosingDate,
-              manager,
-              availableOfficerSlots,
-              officers
-      };
+      return officers;
+   }
+
+   // Bounds of the field with what trim() would remove left out
+   private static int trimStart(String field) {
+      return trimStart(field, 0, field.length());
+   }
+
+   private static int trimStart(String field, int from, int to) {
+      while (from < to && field.charAt(from) <= ' ') {
+         from++;
+      }
+      return from;
+   }
+
+   private static int trimEnd(String field, int start) {
+      return trimEnd(field, start, field.length());
+   }
+
+   private static int trimEnd(String field, int start, int to) {
+      while (to > start && field.charAt(to - 1) <= ' ') {
+         to--;
+      }
+      return to;
+   }
+
+   // The messages only build the trimmed text once a field has turned out to be bad
+   private static IllegalArgumentException invalid(String name, String field, int start, int end) {
+      return new IllegalArgumentException("Invalid " + name + " format: '" + field.substring(start, end) + "'");
+   }
+
+   private static IllegalArgumentException invalidDate(String name, String field, int start, int end) {
+      return new IllegalArgumentException("Invalid " + name + " format: '" + field.substring(start, end) + "' (Expected M/d/yyyy)");
    }
 }
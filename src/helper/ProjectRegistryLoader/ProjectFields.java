@@ -0,0 +1,87 @@
+package helper.ProjectRegistryLoader;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * The 12 data fields of one Project row, as filled in by {@link ProjectFieldParser#parseProjectFields}.
+ * One instance is reused for every row of a file: numbers and dates are kept as primitives, with a sentinel
+ * for fields that were left empty, and only turned into the objects the Project constructor takes on request.
+ * Not thread-safe.
+ */
+final class ProjectFields {
+   // Stored for empty unit, price and slot fields, which can never be negative
+   static final int NO_NUMBER = -1;
+   // Stored for empty date fields
+   static final long NO_DATE = Long.MIN_VALUE;
+
+   String projectName;
+   String neighbourhood;
+   int twoRoomUnits;
+   double twoRoomPrice;
+   int threeRoomUnits;
+   double threeRoomPrice;
+   // Epoch days
+   long applicationOpeningDate;
+   long applicationClosingDate;
+   String manager;
+   int availableOfficerSlots;
+   // A new list for every row since the project keeps it; null if the field was empty
+   List<String> officers;
+
+   String projectName() {
+      return projectName;
+   }
+
+   String neighbourhood() {
+      return neighbourhood;
+   }
+
+   Integer twoRoomUnits() {
+      return boxed(twoRoomUnits);
+   }
+
+   Double twoRoomPrice() {
+      return boxed(twoRoomPrice);
+   }
+
+   Integer threeRoomUnits() {
+      return boxed(threeRoomUnits);
+   }
+
+   Double threeRoomPrice() {
+      return boxed(threeRoomPrice);
+   }
+
+   LocalDate applicationOpeningDate() {
+      return date(applicationOpeningDate);
+   }
+
+   LocalDate applicationClosingDate() {
+      return date(applicationClosingDate);
+   }
+
+   String manager() {
+      return manager;
+   }
+
+   Integer availableOfficerSlots() {
+      return boxed(availableOfficerSlots);
+   }
+
+   List<String> officers() {
+      return officers;
+   }
+
+   private static Integer boxed(int value) {
+      return value == NO_NUMBER ? null : value;
+   }
+
+   private static Double boxed(double value) {
+      return value == NO_NUMBER ? null : value;
+   }
+
+   private static LocalDate date(long epochDay) {
+      return epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay);
+   }
+}
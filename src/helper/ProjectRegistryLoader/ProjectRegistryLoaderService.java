@@ -3,6 +3,7 @@ package helper.ProjectRegistryLoader;
 
 import UniqueID.IUniqueIdService;
 import helper.loader.DelimitedTextDataLoader;
+import helper.loader.LoadRate;
 import project.Project;
 import project.ProjectRegistry;
 
@@ -38,21 +39,35 @@ public class ProjectRegistryLoaderService {
 
       // Load Projects
       System.out.println("Loading Projects from: " + projectFilePath);
+      LoadRate rate = LoadRate.start();
+      List<Project> projects = readProjects(projectFilePath);
+      projectRegistry.addProjects(projects); // Add loaded projects to the registry as one batch
+      System.out.println(rate.describe(projects.size(), "Project"));
+
+      System.out.println("Project registry loading complete. Total projects in registry: " + projectRegistry.size());
+   }
+
+   /**
+    * Reads the project file without touching the registry, generating the project ids in file order.
+    * Only skipped lines are reported.
+    *
+    * @param projectFilePath The path to the tab-delimited file containing Project data.
+    * @return The projects in the file, in file order.
+    * @throws IOException If an I/O error occurs during file reading.
+    */
+   public List<Project> readProjects(String projectFilePath) throws IOException {
       DelimitedTextDataLoader<Project> projectLoader = new DelimitedTextDataLoader<>();
 
       // Instantiate the ProjectRowMapper class to handle row-to-object mapping and ID generation
       ProjectRowMapper projectRowMapper = new ProjectRowMapper(uniqueIdService);
 
-      List<Project> projects = projectLoader.loadData(
+      // Sequential, so that ids follow the order of the file
+      return projectLoader.loadDataMapped(
               projectFilePath,
               TAB_DELIMITER,
               projectRowMapper, // Pass the mapper instance
               EXPECTED_COLUMNS
       );
-      System.out.println("Loaded " + projects.size() + " Project records.");
-      projects.forEach(projectRegistry::addProject); // Add loaded projects to the registry
-
-      System.out.println("Project registry loading complete. Total projects in registry: " + projectRegistry.size());
    }
 
    // No main method here, this is a service class
@@ -11,6 +11,7 @@ import java.io.IOException;
  * from a delimited file.
  */
 public class ProjectRegistryLoadingController {
+   public static final String PROJECT_FILE_PATH = "./given/ProjectList.txt";
 
    private final ProjectRegistry projectRegistry;
    private final ProjectRegistryLoaderService loaderService;
@@ -28,8 +29,7 @@ public class ProjectRegistryLoadingController {
       System.out.println("Starting project registry initialization...");
       try {
          // Use the loader service to load data from the file into the registry
-         String projectFilePath = "./given/ProjectList.txt";
-         loaderService.loadRegistry(projectFilePath);
+         loaderService.loadRegistry(PROJECT_FILE_PATH);
          System.out.println("Project registry initialization complete.");
          return this.projectRegistry; // Return the populated registry
 
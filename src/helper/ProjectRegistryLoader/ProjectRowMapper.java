@@ -5,15 +5,15 @@ import UniqueID.IdType;
 import helper.loader.RowMapper;
 import project.Project;
 
-import java.time.LocalDate;
-import java.util.List;
-
 // RowMapper implementation for Project
 // Uses ProjectFieldParser for data fields and generates the 'id'.
+// Parses every row into the same ProjectFields, so one mapper must not be shared between threads.
 public class ProjectRowMapper implements RowMapper<Project> { // Implement the interface
 
    // Counter for generating sequential IDs for Project objects
    private final IUniqueIdService uniqueIdService;
+   // Overwritten by each row
+   private final ProjectFields fields = new ProjectFields();
 
    // No-argument constructor is fine
    public ProjectRowMapper(IUniqueIdService uniqueIdService) {
@@ -34,39 +34,24 @@ public class ProjectRowMapper implements RowMapper<Project> { // Implement the i
       //uniqueIdService.resetId(IdType.PROJECT_ID);
       int generatedId = uniqueIdService.generateUniqueId(IdType.PROJECT_ID); // Starts from 1 for the first row
 
-      // Use the utility to parse the 12 data fields from the parts array
+      // Use the utility to parse the 12 data fields from the parts array into the reused target
       // This method throws exceptions if parsing/conversion fails for specific fields.
-      Object[] parsedFields = ProjectFieldParser.parseProjectFields(parts);
-
-      // Extract parsed fields from the Object array
-      // Casting is safe because ProjectFieldParser returns objects in the expected order and types
-      String projectName = (String) parsedFields[0];
-      String neighbourhood = (String) parsedFields[1];
-      Integer twoRoomUnits = (Integer) parsedFields[2];
-      Double twoRoomPrice = (Double) parsedFields[3];
-      Integer threeRoomUnits = (Integer) parsedFields[4];
-      Double threeRoomPrice = (Double) parsedFields[5];
-      LocalDate applicationOpeningDate = (LocalDate) parsedFields[6];
-      LocalDate applicationClosingDate = (LocalDate) parsedFields[7];
-      String manager = (String) parsedFields[8];
-      Integer availableOfficerSlots = (Integer) parsedFields[9];
-      @SuppressWarnings("unchecked") // Casting Object to List<String>
-      List<String> officers = (List<String>) parsedFields[10];
+      ProjectFieldParser.parseProjectFields(parts, fields);
 
       // Create and return the Project object using the generated ID and parsed fields
       return new Project(
               generatedId,
-              projectName,
-              neighbourhood,
-              twoRoomUnits,
-              twoRoomPrice,
-              threeRoomUnits,
-              threeRoomPrice,
-              applicationOpeningDate,
-              applicationClosingDate,
-              manager,
-              availableOfficerSlots,
-              officers
+              fields.projectName(),
+              fields.neighbourhood(),
+              fields.twoRoomUnits(),
+              fields.twoRoomPrice(),
+              fields.threeRoomUnits(),
+              fields.threeRoomPrice(),
+              fields.applicationOpeningDate(),
+              fields.applicationClosingDate(),
+              fields.manager(),
+              fields.availableOfficerSlots(),
+              fields.officers()
       );
    }
 }
@@ -1,10 +1,10 @@
 package helper.UserRegistryLoader;
 
 
-import applicant.Applicant;
 import helper.loader.DelimitedTextDataLoader;
-import manager.Manager;
-import officer.Officer;
+import helper.loader.LoadRate;
+import helper.loader.RowMapper;
+import user.User;
 import user.UserRegistry;
 
 import java.io.IOException;
@@ -35,42 +35,40 @@ public class UserRegistryLoaderService {
 
       // Load Managers
       System.out.println("Loading Managers from: " + managerFilePath);
-      DelimitedTextDataLoader<Manager> managerLoader = new DelimitedTextDataLoader<>();
-      List<Manager> managers = managerLoader.loadData(
-              managerFilePath,
-              TAB_DELIMITER,
-              ActorRowMappers.MANAGER_MAPPER, // Use the Manager specific mapper
-              EXPECTED_COLUMNS
-      );
-      System.out.println("Loaded " + managers.size() + " Manager records.");
-      managers.forEach(userRegistry::addUser); // Add loaded managers to the registry
+      loadActors(managerFilePath, ActorRowMappers.MANAGER_MAPPER, "Manager"); // Use the Manager specific mapper
 
-      System.out.println("\nLoading Applicants from: " + applicantFilePath);
       // Load Applicants
-      DelimitedTextDataLoader<Applicant> applicantLoader = new DelimitedTextDataLoader<>();
-      List<Applicant> applicants = applicantLoader.loadData(
-              applicantFilePath,
-              TAB_DELIMITER,
-              ActorRowMappers.APPLICANT_MAPPER, // Use the Applicant specific mapper
-              EXPECTED_COLUMNS
-      );
-      System.out.println("Loaded " + applicants.size() + " Applicant records.");
-      applicants.forEach(userRegistry::addUser); // Add loaded applicants to the registry
+      System.out.println("\nLoading Applicants from: " + applicantFilePath);
+      loadActors(applicantFilePath, ActorRowMappers.APPLICANT_MAPPER, "Applicant"); // Use the Applicant specific mapper
 
-      System.out.println("\nLoading Officers from: " + officerFilePath);
       // Load Officers
-      DelimitedTextDataLoader<Officer> officerLoader = new DelimitedTextDataLoader<>();
-      List<Officer> officers = officerLoader.loadData(
-              officerFilePath,
-              TAB_DELIMITER,
-              ActorRowMappers.OFFICER_MAPPER, // Use the Officer specific mapper
-              EXPECTED_COLUMNS
-      );
-      System.out.println("Loaded " + officers.size() + " Officer records.");
-      officers.forEach(userRegistry::addUser); // Add loaded officers to the registry
+      System.out.println("\nLoading Officers from: " + officerFilePath);
+      loadActors(officerFilePath, ActorRowMappers.OFFICER_MAPPER, "Officer"); // Use the Officer specific mapper
 
       System.out.println("\nRegistry loading complete. Total users in registry: " + userRegistry.size());
    }
 
+   // Loads one actor file and adds its users to the registry as a single batch, reporting the throughput
+   private <T extends User> void loadActors(String filePath, RowMapper<T> rowMapper, String label) throws IOException {
+      LoadRate rate = LoadRate.start();
+      List<T> users = readActors(filePath, rowMapper);
+      userRegistry.addUsers(users);
+      System.out.println(rate.describe(users.size(), label));
+   }
+
+   /**
+    * Reads one actor file without touching the registry, so that several files can be read at once and added
+    * afterwards. Only skipped lines are reported.
+    *
+    * @param filePath  The path to the tab-delimited file.
+    * @param rowMapper The mapper for the actor type in the file, e.g. {@link ActorRowMappers#MANAGER_MAPPER}.
+    * @return The users in the file, in file order.
+    * @throws IOException If an I/O error occurs during file reading.
+    */
+   public <T extends User> List<T> readActors(String filePath, RowMapper<T> rowMapper) throws IOException {
+      DelimitedTextDataLoader<T> loader = new DelimitedTextDataLoader<>();
+      return loader.loadDataParallel(filePath, TAB_DELIMITER, rowMapper, EXPECTED_COLUMNS);
+   }
+
    // No main method here, this is a service class
 }
@@ -10,9 +10,9 @@ import java.io.IOException;
  */
 public class UserRegistryLoadingController {
    //String managerFilePath, String applicantFilePath, String officerFilePath
-   private final String managerFilePath = "./given/ManagerList.txt";
-   private final String applicantFilePath = "./given/ApplicantList.txt";
-   private final String officerFilePath = "./given/OfficerList.txt";
+   public static final String MANAGER_FILE_PATH = "./given/ManagerList.txt";
+   public static final String APPLICANT_FILE_PATH = "./given/ApplicantList.txt";
+   public static final String OFFICER_FILE_PATH = "./given/OfficerList.txt";
    private final UserRegistry userRegistry;
    private final UserRegistryLoaderService loaderService;
 
@@ -26,7 +26,7 @@ public class UserRegistryLoadingController {
       System.out.println("Starting user registry initialization...");
       try {
          // Use the loader service to load data from all files into the registry
-         loaderService.loadRegistry(managerFilePath, applicantFilePath, officerFilePath);
+         loaderService.loadRegistry(MANAGER_FILE_PATH, APPLICANT_FILE_PATH, OFFICER_FILE_PATH);
          System.out.println("User registry initialization complete.");
          return this.userRegistry; // Return the populated registry
 
@@ -0,0 +1,244 @@
+package helper.concurrent;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * A list that belongs to some object, e.g. the applications of a project, seen through the lock of its owner's
+ * stripe. Changes take the write lock. Reads try without a lock first, and iterating, streaming or copying the list
+ * works on a copy made that way, so callers never see a change half done and never fail with a
+ * ConcurrentModificationException, however long they take.
+ * <p>
+ * Changes made through an iterator are passed on by value, as {@code remove(Object)}.
+ *
+ * @param <T> the type of the elements
+ */
+public final class GuardedList<T> extends AbstractList<T> implements RandomAccess {
+   private final List<T> list;
+   private final StripedLocks.Stripe stripe;
+
+   public GuardedList(List<T> list, StripedLocks.Stripe stripe) {
+      this.list = list;
+      this.stripe = stripe;
+   }
+
+   @Override
+   public T get(int index) {
+      return stripe.read(() -> list.get(index));
+   }
+
+   @Override
+   public int size() {
+      return stripe.readInt(list::size);
+   }
+
+   @Override
+   public boolean isEmpty() {
+      return size() == 0;
+   }
+
+   @Override
+   public boolean contains(Object o) {
+      return stripe.read(() -> list.contains(o));
+   }
+
+   @Override
+   public int indexOf(Object o) {
+      return stripe.readInt(() -> list.indexOf(o));
+   }
+
+   @Override
+   public int lastIndexOf(Object o) {
+      return stripe.readInt(() -> list.lastIndexOf(o));
+   }
+
+   @Override
+   public Object[] toArray() {
+      return snapshot();
+   }
+
+   @Override
+   @SuppressWarnings("unchecked")
+   public <E> E[] toArray(E[] a) {
+      Object[] snapshot = snapshot();
+      E[] result = a.length >= snapshot.length ? a
+              : (E[]) java.lang.reflect.Array.newInstance(a.getClass().getComponentType(), snapshot.length);
+      System.arraycopy(snapshot, 0, result, 0, snapshot.length);
+      if (result.length > snapshot.length) {
+         result[snapshot.length] = null;
+      }
+      return result;
+   }
+
+   @Override
+   public Iterator<T> iterator() {
+      return listIterator(0);
+   }
+
+   @Override
+   public ListIterator<T> listIterator(int index) {
+      return new SnapshotIterator(snapshot(), index);
+   }
+
+   @Override
+   public Spliterator<T> spliterator() {
+      return Spliterators.spliterator(snapshot(), Spliterator.ORDERED);
+   }
+
+   @Override
+   @SuppressWarnings("unchecked")
+   public void forEach(Consumer<? super T> action) {
+      for (Object element : snapshot()) {
+         action.accept((T) element);
+      }
+   }
+
+   @Override
+   public boolean add(T element) {
+      return stripe.write(() -> list.add(element));
+   }
+
+   @Override
+   public void add(int index, T element) {
+      stripe.write(() -> list.add(index, element));
+   }
+
+   @Override
+   public T set(int index, T element) {
+      return stripe.write(() -> list.set(index, element));
+   }
+
+   @Override
+   public T remove(int index) {
+      return stripe.write(() -> list.remove(index));
+   }
+
+   @Override
+   public boolean remove(Object o) {
+      return stripe.write(() -> list.remove(o));
+   }
+
+   // The other collection is copied before locking, so no second stripe is ever taken while this one is held
+   @Override
+   public boolean addAll(Collection<? extends T> c) {
+      List<T> copy = new ArrayList<>(c);
+      return stripe.write(() -> list.addAll(copy));
+   }
+
+   @Override
+   public boolean addAll(int index, Collection<? extends T> c) {
+      List<T> copy = new ArrayList<>(c);
+      return stripe.write(() -> list.addAll(index, copy));
+   }
+
+   @Override
+   public boolean removeAll(Collection<?> c) {
+      List<?> copy = new ArrayList<>(c);
+      return stripe.write(() -> list.removeAll(copy));
+   }
+
+   @Override
+   public boolean retainAll(Collection<?> c) {
+      List<?> copy = new ArrayList<>(c);
+      return stripe.write(() -> list.retainAll(copy));
+   }
+
+   @Override
+   public boolean removeIf(Predicate<? super T> filter) {
+      return stripe.write(() -> list.removeIf(filter));
+   }
+
+   @Override
+   public void replaceAll(UnaryOperator<T> operator) {
+      stripe.write(() -> list.replaceAll(operator));
+   }
+
+   @Override
+   public void sort(Comparator<? super T> c) {
+      stripe.write(() -> list.sort(c));
+   }
+
+   @Override
+   public void clear() {
+      stripe.write(list::clear);
+   }
+
+   private Object[] snapshot() {
+      return stripe.read(list::toArray);
+   }
+
+   private final class SnapshotIterator implements ListIterator<T> {
+      private final Object[] snapshot;
+      private int cursor;
+      private int last = -1;
+
+      SnapshotIterator(Object[] snapshot, int index) {
+         if (index < 0 || index > snapshot.length) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + snapshot.length);
+         }
+         this.snapshot = snapshot;
+         this.cursor = index;
+      }
+
+      @Override
+      public boolean hasNext() {
+         return cursor < snapshot.length;
+      }
+
+      @Override
+      @SuppressWarnings("unchecked")
+      public T next() {
+         if (cursor >= snapshot.length) {
+            throw new NoSuchElementException();
+         }
+         last = cursor;
+         return (T) snapshot[cursor++];
+      }
+
+      @Override
+      public boolean hasPrevious() {
+         return cursor > 0;
+      }
+
+      @Override
+      @SuppressWarnings("unchecked")
+      public T previous() {
+         if (cursor <= 0) {
+            throw new NoSuchElementException();
+         }
+         last = --cursor;
+         return (T) snapshot[cursor];
+      }
+
+      @Override
+      public int nextIndex() {
+         return cursor;
+      }
+
+      @Override
+      public int previousIndex() {
+         return cursor - 1;
+      }
+
+      @Override
+      public void remove() {
+         if (last < 0) {
+            throw new IllegalStateException();
+         }
+         GuardedList.this.remove(snapshot[last]);
+         last = -1;
+      }
+
+      @Override
+      public void set(T element) {
+         throw new UnsupportedOperationException("A snapshot cannot be changed in place");
+      }
+
+      @Override
+      public void add(T element) {
+         throw new UnsupportedOperationException("A snapshot cannot be changed in place");
+      }
+   }
+}
@@ -0,0 +1,154 @@
+package helper.concurrent;
+
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/**
+ * A fixed set of locks shared out over any number of keys, e.g. project ids. Keys that share a stripe also share
+ * its lock, which costs some needless waiting but no memory per key, and keeps working for objects that are
+ * deserialized, replaced or paged in again, since the lock lives here rather than in the object.
+ */
+public final class StripedLocks {
+   private final Stripe[] stripes;
+
+   /**
+    * @param stripes How many locks to share out; rounded up to a power of two.
+    */
+   public StripedLocks(int stripes) {
+      int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+      this.stripes = new Stripe[size];
+      for (int i = 0; i < size; i++) {
+         this.stripes[i] = new Stripe(i);
+      }
+   }
+
+   public Stripe of(int key) {
+      // Spread the bits, so consecutive ids land on different stripes
+      int hash = key * 0x9E3779B9;
+      return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+   }
+
+   public Stripe of(Object key) {
+      return of(key.hashCode());
+   }
+
+   /**
+    * A StampedLock whose write lock may be taken again by the thread that holds it, and whose reads first try
+    * without locking at all. Reads see what they read thrown away and are run again under the read lock if a write
+    * got in between, so a reader must not change anything, and may fail or read garbage while a write is going on.
+    */
+   public static final class Stripe {
+      private final int index;
+      private final StampedLock lock = new StampedLock();
+      private volatile Thread owner;
+      private int holds;
+      private long stamp;
+
+      private Stripe(int index) {
+         this.index = index;
+      }
+
+      // Stripes of the same StripedLocks are taken in the order of their index
+      public int index() {
+         return index;
+      }
+
+      public void lockWrite() {
+         Thread current = Thread.currentThread();
+         if (owner == current) {
+            holds++;
+            return;
+         }
+         long written = lock.writeLock();
+         owner = current;
+         stamp = written;
+         holds = 1;
+      }
+
+      public void unlockWrite() {
+         if (owner != Thread.currentThread()) {
+            throw new IllegalMonitorStateException("Write lock not held by this thread");
+         }
+         if (--holds == 0) {
+            owner = null;
+            lock.unlockWrite(stamp);
+         }
+      }
+
+      public boolean isWriteLockedByCurrentThread() {
+         return owner == Thread.currentThread();
+      }
+
+      public <T> T read(Supplier<T> reader) {
+         if (owner == Thread.currentThread()) {
+            return reader.get();
+         }
+         long optimistic = lock.tryOptimisticRead();
+         if (optimistic != 0) {
+            try {
+               T value = reader.get();
+               if (lock.validate(optimistic)) {
+                  return value;
+               }
+            }
+            catch (RuntimeException e) {
+               // torn by a write, read again below
+            }
+         }
+         long read = lock.readLock();
+         try {
+            return reader.get();
+         }
+         finally {
+            lock.unlockRead(read);
+         }
+      }
+
+      // As read, without boxing
+      public int readInt(IntSupplier reader) {
+         if (owner == Thread.currentThread()) {
+            return reader.getAsInt();
+         }
+         long optimistic = lock.tryOptimisticRead();
+         if (optimistic != 0) {
+            try {
+               int value = reader.getAsInt();
+               if (lock.validate(optimistic)) {
+                  return value;
+               }
+            }
+            catch (RuntimeException e) {
+               // torn by a write, read again below
+            }
+         }
+         long read = lock.readLock();
+         try {
+            return reader.getAsInt();
+         }
+         finally {
+            lock.unlockRead(read);
+         }
+      }
+
+      public <T> T write(Supplier<T> writer) {
+         lockWrite();
+         try {
+            return writer.get();
+         }
+         finally {
+            unlockWrite();
+         }
+      }
+
+      public void write(Runnable writer) {
+         lockWrite();
+         try {
+            writer.run();
+         }
+         finally {
+            unlockWrite();
+         }
+      }
+   }
+}
@@ -3,17 +3,34 @@ package helper.loader;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
  * Generic loader for delimited text files with a header row.
  * Reads the file, splits lines, skips the header, and uses a RowMapper
  * to convert each data row into an object of type T.
+ * Rows can be collected into a list, handed to a callback or pulled as a stream as they are read, or parsed
+ * straight out of a memory-mapped file, optionally in chunks across the common fork-join pool.
  *
  * @param <T> The type of objects to load.
  */
 public class DelimitedTextDataLoader<T> {
+   private static final int BUFFER_SIZE = 1 << 16;
+   // Files smaller than this are parsed on the calling thread even in parallel mode
+   private static final long PARALLEL_THRESHOLD = 1 << 20;
+   private static final int CHUNK_SIZE = 4 << 20;
 
    /**
     * Loads data from a delimited text file and maps each row to an object of type T.
@@ -27,54 +44,251 @@ public class DelimitedTextDataLoader<T> {
     */
    public List<T> loadData(String filePath, String delimiter, RowMapper<T> rowMapper, int expectedColumns) throws IOException {
       List<T> loadedObjects = new ArrayList<>();
+      forEachRow(filePath, delimiter, rowMapper, expectedColumns, loadedObjects::add);
+      return loadedObjects;
+   }
+
+   /**
+    * Reads the file line by line and hands each mapped row to {@code action} straight away, so nothing but the
+    * current line is held in memory. Same parameters and row handling as {@link #loadData}.
+    * The String[] passed to the row mapper is reused for the next line and must not be kept.
+    *
+    * @throws IOException If an I/O error occurs while reading the file.
+    */
+   public void forEachRow(String filePath, String delimiter, RowMapper<T> rowMapper, int expectedColumns,
+                          Consumer<? super T> action) throws IOException {
+      FieldSplitter splitter = new FieldSplitter(delimiter, expectedColumns);
+      ObjIntConsumer<String> skipped = printTo(filePath);
 
       // Use try-with-resources to ensure the BufferedReader is closed
-      try (BufferedReader br = new BufferedReader(new FileReader(filePath))) {
-         String line;
-         boolean isHeader = true; // Flag to skip the header row
-         int lineNumber = 0; // To track line number for error reporting
+      try (BufferedReader br = new BufferedReader(new FileReader(filePath), BUFFER_SIZE)) {
+         String line = br.readLine(); // Skip the header line
+         int lineNumber = 1; // To track line number for error reporting
 
          while ((line = br.readLine()) != null) {
-            lineNumber++; // Increment line number for current line
-
-            if (isHeader) {
-               isHeader = false;
-               continue; // Skip the header line
+            T obj = mapLine(++lineNumber, line, splitter, rowMapper, skipped);
+            if (obj != null) {
+               action.accept(obj);
             }
+         }
+      }
+   }
 
-            // Skip empty or blank lines
-            if (line.trim().isEmpty()) {
-               continue;
-            }
+   /**
+    * Lazily maps the rows of the file as the stream is consumed. The stream holds the file open and must be
+    * closed, e.g. with try-with-resources. Same parameters and row handling as {@link #loadData}.
+    *
+    * @throws IOException If the file cannot be opened.
+    */
+   public Stream<T> stream(String filePath, String delimiter, RowMapper<T> rowMapper, int expectedColumns) throws IOException {
+      BufferedReader br = new BufferedReader(new FileReader(filePath), BUFFER_SIZE);
+      FieldSplitter splitter = new FieldSplitter(delimiter, expectedColumns);
+      ObjIntConsumer<String> skipped = printTo(filePath);
+      int[] lineNumber = {1};
+      return br.lines()
+              .skip(1) // Skip the header line
+              .map(line -> mapLine(++lineNumber[0], line, splitter, rowMapper, skipped))
+              .filter(Objects::nonNull)
+              .onClose(() -> {
+                 try {
+                    br.close();
+                 }
+                 catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                 }
+              });
+   }
 
-            // Split the line by the specified delimiter
-            // Using -1 ensures trailing empty strings are included
-            String[] parts = line.split(delimiter, -1);
+   /**
+    * Like {@link #loadData}, but maps the file into memory instead of reading it through a Reader. Lines and
+    * delimiters are found in the mapped bytes, and Strings are only decoded for the fields of rows that have the
+    * expected number of columns; blank and malformed lines are never decoded except for the error message.
+    * The file is read as UTF-8, lines must end in "\n" or "\r\n", and the delimiter should be a single ASCII
+    * character to get the byte-level split (others work, but decode each line first).
+    *
+    * @throws IOException If an I/O error occurs while reading the file.
+    */
+   public List<T> loadDataMapped(String filePath, String delimiter, RowMapper<T> rowMapper, int expectedColumns) throws IOException {
+      return loadMapped(filePath, delimiter, rowMapper, expectedColumns, false);
+   }
 
-            // Check if we have the expected number of columns
-            if (parts.length != expectedColumns) {
-               System.err.println("Skipping line " + lineNumber + " in file '" + filePath + "' due to incorrect number of columns (" + parts.length + "): " + line);
-               continue; // Skip this row
-            }
+   /**
+    * Like {@link #loadDataMapped}, but files larger than a megabyte are split into chunks on line boundaries that
+    * are parsed in parallel on the common fork-join pool. Rows and error messages keep the order they have in the
+    * file. The row mapper is called from several threads at once and must be thread-safe.
+    *
+    * @throws IOException If an I/O error occurs while reading the file.
+    */
+   public List<T> loadDataParallel(String filePath, String delimiter, RowMapper<T> rowMapper, int expectedColumns) throws IOException {
+      return loadMapped(filePath, delimiter, rowMapper, expectedColumns, true);
+   }
 
-            try {
-               // Use the provided rowMapper to convert the parts array to an object of type T
-               T obj = rowMapper.mapRow(parts);
-               if (obj != null) { // rowMapper might return null if it decides to skip a row internally
-                  loadedObjects.add(obj);
-               }
+   private List<T> loadMapped(String filePath, String delimiter, RowMapper<T> rowMapper, int expectedColumns,
+                              boolean parallel) throws IOException {
+      try (FileChannel channel = FileChannel.open(Path.of(filePath), StandardOpenOption.READ)) {
+         long[] bounds = chunkBounds(channel);
+         IntStream chunkIndexes = IntStream.range(0, bounds.length - 1);
+         if (parallel && channel.size() >= PARALLEL_THRESHOLD) {
+            chunkIndexes = chunkIndexes.parallel();
+         }
+
+         List<Chunk<T>> chunks;
+         try {
+            chunks = chunkIndexes
+                    .mapToObj(i -> parseChunk(channel, bounds[i], bounds[i + 1], delimiter, rowMapper, expectedColumns))
+                    .toList();
+         }
+         catch (UncheckedIOException e) {
+            throw e.getCause();
+         }
+
+         List<T> loadedObjects = new ArrayList<>(chunks.stream().mapToInt(c -> c.rows().size()).sum());
+         int linesBefore = 1; // The header
+         for (Chunk<T> chunk : chunks) {
+            loadedObjects.addAll(chunk.rows());
+            for (RowError error : chunk.errors()) {
+               System.err.println(skipMessage(filePath, linesBefore + error.line(), error.reason()));
             }
-            catch (Exception e) {
-               // Catch exceptions thrown by the rowMapper (e.g., NumberFormatException, IllegalArgumentException)
-               System.err.println("Skipping line " + lineNumber + " in file '" + filePath + "' due to data mapping error: " + line + " - " + e.getMessage());
-               // e.printStackTrace(); // Uncomment for detailed debugging
+            linesBefore += chunk.lines();
+         }
+         return loadedObjects;
+      }
+   }
+
+   // Byte offsets where chunks start: just after the header, then roughly every CHUNK_SIZE at the next line start
+   private static long[] chunkBounds(FileChannel channel) throws IOException {
+      long size = channel.size();
+      List<Long> bounds = new ArrayList<>();
+      bounds.add(nextLineStart(channel, 0));
+      while (bounds.getLast() + CHUNK_SIZE < size) {
+         bounds.add(nextLineStart(channel, bounds.getLast() + CHUNK_SIZE));
+      }
+      if (bounds.getLast() < size) {
+         bounds.add(size);
+      }
+      return bounds.stream().mapToLong(Long::longValue).toArray();
+   }
+
+   // Offset just past the first '\n' at or after position, or the end of the file
+   private static long nextLineStart(FileChannel channel, long position) throws IOException {
+      ByteBuffer buffer = ByteBuffer.allocate(8192);
+      long offset = position;
+      while (channel.read(buffer.clear(), offset) > 0) {
+         buffer.flip();
+         while (buffer.hasRemaining()) {
+            offset++;
+            if (buffer.get() == '\n') {
+               return offset;
             }
          }
+      }
+      return channel.size();
+   }
 
-      } // BufferedReader and FileReader are automatically closed by try-with-resources
+   private Chunk<T> parseChunk(FileChannel channel, long start, long end, String delimiter, RowMapper<T> rowMapper,
+                               int expectedColumns) {
+      // Scanning a heap copy is several times faster than checked get(i) calls on the mapping itself
+      byte[] bytes = new byte[(int) (end - start)];
+      try {
+         channel.map(FileChannel.MapMode.READ_ONLY, start, end - start).get(0, bytes);
+      }
+      catch (IOException e) {
+         throw new UncheckedIOException(e);
+      }
 
-      return loadedObjects;
+      FieldSplitter splitter = new FieldSplitter(delimiter, expectedColumns);
+      List<T> rows = new ArrayList<>();
+      List<RowError> errors = new ArrayList<>();
+      ObjIntConsumer<String> skipped = (reason, line) -> errors.add(new RowError(line, reason));
+      int lines = 0;
+      int from = 0;
+      int limit = bytes.length;
+      while (from < limit) {
+         int newline = splitter.splitsBytes() ? splitter.scanLine(bytes, from, limit) : nextNewline(bytes, from, limit);
+         int to = newline;
+         if (to > from && bytes[to - 1] == '\r') {
+            to--;
+         }
+         T obj = mapBytes(++lines, bytes, from, to, splitter, rowMapper, skipped);
+         if (obj != null) {
+            rows.add(obj);
+         }
+         from = newline + 1;
+      }
+      return new Chunk<>(rows, errors, lines);
+   }
+
+   private static int nextNewline(byte[] bytes, int from, int limit) {
+      int i = from;
+      while (i < limit && bytes[i] != '\n') {
+         i++;
+      }
+      return i;
+   }
+
+   // Maps one data line held as bytes [from, to), or reports why it was skipped and returns null
+   private T mapBytes(int lineNumber, byte[] bytes, int from, int to, FieldSplitter splitter,
+                      RowMapper<T> rowMapper, ObjIntConsumer<String> skipped) {
+      if (!splitter.splitsBytes()) {
+         return mapLine(lineNumber, FieldSplitter.decode(bytes, from, to), splitter, rowMapper, skipped);
+      }
+      // Skip empty or blank lines
+      if (splitter.scannedBlank()) {
+         return null;
+      }
+      int columns = splitter.scannedFields();
+      if (columns == splitter.fields().length) {
+         splitter.decodeFields(bytes, from, to);
+      }
+      return mapFields(lineNumber, columns, () -> FieldSplitter.decode(bytes, from, to), splitter, rowMapper, skipped);
+   }
+
+   // Maps one data line, or reports why it was skipped and returns null
+   private T mapLine(int lineNumber, String line, FieldSplitter splitter, RowMapper<T> rowMapper,
+                     ObjIntConsumer<String> skipped) {
+      // Skip empty or blank lines
+      if (FieldSplitter.isBlank(line)) {
+         return null;
+      }
+
+      // Trailing empty strings are included, as with split(delimiter, -1)
+      int columns = splitter.split(line);
+      return mapFields(lineNumber, columns, () -> line, splitter, rowMapper, skipped);
+   }
+
+   // Hands the split fields to the row mapper; the line itself is only needed for error messages
+   private T mapFields(int lineNumber, int columns, Supplier<String> line, FieldSplitter splitter,
+                       RowMapper<T> rowMapper, ObjIntConsumer<String> skipped) {
+      // Check if we have the expected number of columns
+      if (columns != splitter.fields().length) {
+         skipped.accept("due to incorrect number of columns (" + columns + "): " + line.get(), lineNumber);
+         return null;
+      }
+
+      try {
+         // Use the provided rowMapper to convert the parts array to an object of type T
+         // rowMapper might return null if it decides to skip a row internally
+         return rowMapper.mapRow(splitter.fields());
+      }
+      catch (Exception e) {
+         // Catch exceptions thrown by the rowMapper (e.g., NumberFormatException, IllegalArgumentException)
+         skipped.accept("due to data mapping error: " + line.get() + " - " + e.getMessage(), lineNumber);
+         return null;
+      }
    }
 
-   // No main method here
+   private static ObjIntConsumer<String> printTo(String filePath) {
+      return (reason, lineNumber) -> System.err.println(skipMessage(filePath, lineNumber, reason));
+   }
+
+   private static String skipMessage(String filePath, int lineNumber, String reason) {
+      return "Skipping line " + lineNumber + " in file '" + filePath + "' " + reason;
+   }
+
+   private record Chunk<T>(List<T> rows, List<RowError> errors, int lines) {
+   }
+
+   // A skipped line, numbered from the start of its chunk
+   private record RowError(int line, String reason) {
+   }
 }
@@ -0,0 +1,161 @@
+package helper.loader;
+
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Pattern;
+
+/**
+ * Splits delimited lines into a field array that is reused from line to line.
+ * A single-character delimiter is split by hand without regex or intermediate lists; any other delimiter
+ * falls back to {@link String#split(String, int)} semantics. An ASCII delimiter can also be found directly in
+ * UTF-8 bytes, decoding only the fields of lines that have the right number of them.
+ * Not thread-safe: use one splitter per thread.
+ */
+final class FieldSplitter {
+   // Characters that mean something else when a one-character delimiter is taken as a regex
+   private static final String REGEX_META = ".$|()[]{}^?*+\\";
+
+   private final char delimiter;
+   // Only set when the delimiter is not a plain single character
+   private final Pattern pattern;
+   private final String[] fields;
+   // Delimiter positions of the last byte line, only filled up to the expected count
+   private final int[] delimiters;
+   // What scanLine found in the last byte line
+   private int delimitersFound;
+   private boolean blankLine;
+
+   FieldSplitter(String delimiter, int expectedColumns) {
+      int plain = plainCharacter(delimiter);
+      this.delimiter = (char) Math.max(plain, 0);
+      this.pattern = plain < 0 ? Pattern.compile(delimiter) : null;
+      this.fields = new String[expectedColumns];
+      this.delimiters = new int[Math.max(expectedColumns - 1, 0)];
+   }
+
+   // "\t" or "," split by hand; "\\|" is an escaped single character too
+   private static int plainCharacter(String delimiter) {
+      if (delimiter.length() == 1 && REGEX_META.indexOf(delimiter.charAt(0)) < 0) {
+         return delimiter.charAt(0);
+      }
+      if (delimiter.length() == 2 && delimiter.charAt(0) == '\\' && !Character.isLetterOrDigit(delimiter.charAt(1))) {
+         return delimiter.charAt(1);
+      }
+      return -1;
+   }
+
+   /**
+    * Splits the line, keeping trailing empty fields. The fields are only stored when the line has exactly
+    * the expected number of them.
+    *
+    * @return The number of fields in the line.
+    */
+   int split(String line) {
+      if (pattern != null) {
+         String[] parts = pattern.split(line, -1);
+         if (parts.length == fields.length) {
+            System.arraycopy(parts, 0, fields, 0, parts.length);
+         }
+         return parts.length;
+      }
+
+      int count = 0;
+      for (int i = 0; i < line.length(); i++) {
+         if (line.charAt(i) == delimiter) {
+            count++;
+         }
+      }
+      count++;
+      if (count != fields.length) {
+         return count;
+      }
+
+      int start = 0;
+      for (int f = 0; f < count - 1; f++) {
+         int end = line.indexOf(delimiter, start);
+         fields[f] = line.substring(start, end);
+         start = end + 1;
+      }
+      fields[count - 1] = line.substring(start);
+      return count;
+   }
+
+   // Whether scanLine may be used; UTF-8 never contains ASCII bytes inside other characters
+   boolean splitsBytes() {
+      return pattern == null && delimiter < 0x80;
+   }
+
+   /**
+    * Scans one UTF-8 line of the bytes starting at {@code from}, in a single pass noting where the delimiters are
+    * and whether the line is blank, without decoding anything. Only valid when {@link #splitsBytes()}.
+    *
+    * @return The position of the '\n' ending the line, or {@code limit} if there is none.
+    */
+   int scanLine(byte[] bytes, int from, int limit) {
+      byte target = (byte) delimiter;
+      int found = 0;
+      boolean blank = true;
+      int i = from;
+      for (; i < limit; i++) {
+         byte b = bytes[i];
+         if (b == '\n') {
+            break;
+         }
+         if (b == target) {
+            if (found < delimiters.length) {
+               delimiters[found] = i;
+            }
+            found++;
+         }
+         else if ((b & 0xFF) > ' ') {
+            blank = false;
+         }
+      }
+      this.delimitersFound = found;
+      this.blankLine = blank;
+      return i;
+   }
+
+   // Whether the last scanned line only had characters that trim() removes
+   boolean scannedBlank() {
+      return blankLine;
+   }
+
+   // Number of fields in the last scanned line, as split(delimiter, -1) would count them
+   int scannedFields() {
+      return delimitersFound + 1;
+   }
+
+   /**
+    * Decodes the fields of the last scanned line, which spans [from, to) without its line ending.
+    * Only call this when the line has the expected number of fields.
+    */
+   void decodeFields(byte[] bytes, int from, int to) {
+      int start = from;
+      for (int f = 0; f < delimitersFound; f++) {
+         fields[f] = decode(bytes, start, delimiters[f]);
+         start = delimiters[f] + 1;
+      }
+      fields[delimitersFound] = decode(bytes, start, to);
+   }
+
+   static String decode(byte[] bytes, int from, int to) {
+      return new String(bytes, from, to - from, StandardCharsets.UTF_8);
+   }
+
+   /**
+    * The fields of the last line that had the expected number of them. Overwritten by the next split.
+    */
+   String[] fields() {
+      return fields;
+   }
+
+   // Same test as line.trim().isEmpty() without creating the trimmed copy
+   static boolean isBlank(String line) {
+      for (int i = 0; i < line.length(); i++) {
+         if (line.charAt(i) > ' ') {
+            return false;
+         }
+      }
+      return true;
+   }
+}
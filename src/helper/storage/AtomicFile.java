@@ -0,0 +1,131 @@
+package helper.storage;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+// Utility to replace a file so that a crash leaves either the old or the new contents, never a mix.
+// The new contents go to a temp file next to the target, which is synced to disk and then renamed over the target.
+// Files without a checksum of their own can be wrapped in a checksummed envelope that is verified when read.
+public final class AtomicFile {
+   private static final String TEMP_SUFFIX = ".tmp";
+   private static final int ENVELOPE_MAGIC = 0x43524343; // "CRCC"
+   // magic, CRC32C of the body, body length
+   private static final int ENVELOPE_HEADER = 16;
+
+   // Private constructor to prevent instantiation
+   private AtomicFile() {
+      throw new IllegalStateException("Utility class");
+   }
+
+   /**
+    * Writes the file through a temp file, forces it to disk and moves it over the target, then syncs the directory
+    * so that the rename itself survives a crash. A mapping of the old file stays valid.
+    *
+    * @param target The file to replace.
+    * @param writer Writes the new contents; the stream is buffered and must not be closed.
+    * @throws IOException If the contents cannot be written; the target is left as it was.
+    */
+   public static void write(Path target, ContentWriter writer) throws IOException {
+      Path temp = tempOf(target);
+      try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+              StandardOpenOption.TRUNCATE_EXISTING)) {
+         OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16);
+         writer.write(out);
+         out.flush();
+         channel.force(true);
+      }
+      try {
+         Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      }
+      catch (AtomicMoveNotSupportedException e) {
+         Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+      }
+      syncDirectory(target.toAbsolutePath().getParent());
+   }
+
+   /**
+    * Like {@link #write}, with the contents preceded by a header holding their length and CRC32C.
+    */
+   public static void writeChecksummed(Path target, ContentWriter writer) throws IOException {
+      ByteArrayOutputStream body = new ByteArrayOutputStream(1 << 12);
+      writer.write(body);
+      CRC32C crc = new CRC32C();
+      crc.update(body.toByteArray());
+      write(target, out -> {
+         DataOutputStream header = new DataOutputStream(out);
+         header.writeInt(ENVELOPE_MAGIC);
+         header.writeInt((int) crc.getValue());
+         header.writeLong(body.size());
+         body.writeTo(out);
+      });
+   }
+
+   /**
+    * Reads a file written by {@link #writeChecksummed}.
+    *
+    * @return The contents, without the header.
+    * @throws IOException If the file cannot be read, or is cut short or damaged.
+    */
+   public static InputStream readChecksummed(Path source) throws IOException {
+      byte[] bytes = Files.readAllBytes(source);
+      ByteBuffer header = ByteBuffer.wrap(bytes);
+      if (bytes.length < ENVELOPE_HEADER || header.getInt() != ENVELOPE_MAGIC) {
+         throw new IOException(source + " has no checksum header");
+      }
+      int expected = header.getInt();
+      long length = header.getLong();
+      if (length != bytes.length - ENVELOPE_HEADER) {
+         throw new IOException(source + " is cut short");
+      }
+      CRC32C crc = new CRC32C();
+      crc.update(bytes, ENVELOPE_HEADER, (int) length);
+      if ((int) crc.getValue() != expected) {
+         throw new IOException(source + " failed its checksum");
+      }
+      return new ByteArrayInputStream(bytes, ENVELOPE_HEADER, (int) length);
+   }
+
+   /**
+    * Deletes the temp file of a write that was cut short.
+    *
+    * @return true if there was one.
+    */
+   public static boolean discardTemp(Path target) {
+      try {
+         return Files.deleteIfExists(tempOf(target));
+      }
+      catch (IOException e) {
+         return false;
+      }
+   }
+
+   // Not every platform can open a directory for syncing; the rename is then as durable as the platform makes it
+   public static void syncDirectory(Path directory) {
+      if (directory == null) {
+         return;
+      }
+      try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+         channel.force(true);
+      }
+      catch (IOException e) {
+         // ignored, see above
+      }
+   }
+
+   private static Path tempOf(Path target) {
+      return target.resolveSibling(target.getFileName() + TEMP_SUFFIX);
+   }
+
+   @FunctionalInterface
+   public interface ContentWriter {
+      void write(OutputStream out) throws IOException;
+   }
+}
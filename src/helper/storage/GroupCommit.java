@@ -0,0 +1,93 @@
+package helper.storage;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Makes writes durable in groups. A participant marks its writes as pending and returns straight away; a single
+ * background thread then syncs every participant with pending writes, at most once per interval, so one fsync
+ * covers all the writes made in the meantime. Participants are synced in the order they were registered.
+ * <p>
+ * Writes made within the last interval before a power failure can be lost. On exit, whatever is still pending is
+ * synced by a shutdown hook, since a participant may not have handed its writes to the operating system yet.
+ */
+public final class GroupCommit {
+   private final long intervalMillis;
+   private final List<Participant> participants = new CopyOnWriteArrayList<>();
+   private final Object lock = new Object();
+   // One sync at a time, so that the exit hook waits for a group that is still being synced
+   private final Object syncLock = new Object();
+   private boolean requested = false;
+   private Thread syncer;
+
+   /**
+    * @param intervalMillis How long the background thread waits after a request before syncing, gathering the
+    *                       writes that arrive in the meantime into the same group.
+    */
+   public GroupCommit(long intervalMillis) {
+      this.intervalMillis = intervalMillis;
+   }
+
+   public void register(Participant participant) {
+      participants.add(participant);
+   }
+
+   /**
+    * Asks for the pending writes to be synced in the next group. Never blocks on I/O.
+    */
+   public void requestSync() {
+      synchronized (lock) {
+         requested = true;
+         if (syncer == null) {
+            syncer = Thread.ofPlatform().name("group-commit").daemon().start(this::run);
+            Runtime.getRuntime().addShutdownHook(new Thread(this::syncNow, "group-commit-exit"));
+         }
+         lock.notify();
+      }
+   }
+
+   /**
+    * Syncs every participant now, on the calling thread, e.g. before a snapshot that depends on them is written.
+    */
+   public void syncNow() {
+      synchronized (syncLock) {
+         for (Participant participant : participants) {
+            try {
+               participant.sync();
+            }
+            catch (IOException e) {
+               System.err.println("Error syncing to disk: " + e.getMessage());
+            }
+         }
+      }
+   }
+
+   private void run() {
+      while (true) {
+         try {
+            synchronized (lock) {
+               while (!requested) {
+                  lock.wait();
+               }
+            }
+            Thread.sleep(intervalMillis); // let the rest of the group arrive
+            synchronized (lock) {
+               requested = false;
+            }
+            syncNow();
+         }
+         catch (InterruptedException e) {
+            return;
+         }
+      }
+   }
+
+   @FunctionalInterface
+   public interface Participant {
+      /**
+       * Forces this participant's pending writes to disk; does nothing if there are none.
+       */
+      void sync() throws IOException;
+   }
+}
@@ -0,0 +1,6 @@
+package interfaces;
+
+// Fills in the parts of an object that were left on disk when it was loaded
+public interface LazyLoader<T> {
+   void load(T target);
+}
@@ -0,0 +1,150 @@
+package manager;
+
+import applicant.Application;
+import applicant.ApplicationStatus;
+import applicant.WithdrawalRequestStatus;
+import project.FlatInventory;
+import project.FlatType;
+import project.Project;
+import user.MaritalStatus;
+import user.User;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Function;
+
+/**
+ * Decides all pending applications of a project in one go, for projects with more applicants than flats.
+ * <p>
+ * Applications are grouped by flat type and priority tier: married applicants first, then singles of 35 and over,
+ * who may only apply for 2-room flats. Applicants who are not eligible at all are unsuccessful. Within a tier the
+ * order is drawn at random from the seed, starting from the applications sorted by id, so the same applications and
+ * seed always give the same draw. Flats are then handed out in that order, tier by tier, until none are free; each
+ * winner holds its flat through the project's inventory, just as an approval by hand does.
+ */
+public final class Ballot {
+   private static final FlatType[] TYPES = FlatType.values();
+   private static final int MARRIED = 0;
+   private static final int SINGLE = 1;
+   private static final int TIERS = 2;
+   private static final int INELIGIBLE = -1;
+
+   private final Project project;
+   private final Function<String, User> applicants;
+   private final long seed;
+   // What the last draw decided, so it can be undone if it cannot be saved
+   private List<Decision> decisions = List.of();
+
+   /**
+    * @param project    The project whose pending applications are balloted.
+    * @param applicants Finds an applicant by NRIC, or returns null if there is no such applicant.
+    * @param seed       Decides the draw; the same seed draws the same order again.
+    */
+   public Ballot(Project project, Function<String, User> applicants, long seed) {
+      this.project = project;
+      this.applicants = applicants;
+      this.seed = seed;
+   }
+
+   private static int tier(User applicant, FlatType flatType) {
+      if (applicant == null) {
+         return INELIGIBLE;
+      }
+      if (applicant.getMaritalStatus() == MaritalStatus.MARRIED) {
+         return applicant.getAge() >= 21 ? MARRIED : INELIGIBLE;
+      }
+      return applicant.getAge() >= 35 && flatType == FlatType.TWO_ROOM ? SINGLE : INELIGIBLE;
+   }
+
+   /**
+    * Marks every pending application successful or unsuccessful. Applications whose withdrawal is still being
+    * decided are left pending.
+    *
+    * @return What was decided; the decided applications still have to be saved by the caller.
+    */
+   public Result draw() {
+      List<Application> applications = project.getApplications();
+      // Per flat type and tier, the id of each pending application in the high half and its index in the low half,
+      // so sorting the keys sorts by id without comparing objects
+      long[][] keys = new long[TYPES.length * TIERS][16];
+      int[] sizes = new int[TYPES.length * TIERS];
+      List<Application> decided = new ArrayList<>();
+      decisions = new ArrayList<>();
+      int ineligible = 0;
+
+      for (int i = 0; i < applications.size(); i++) {
+         Application application = applications.get(i);
+         if (application.getApplicationStatus() != ApplicationStatus.PENDING
+                 || application.getWithdrawalRequestStatus() == WithdrawalRequestStatus.PENDING) {
+            continue;
+         }
+         int tier = application.getFlatType() == null ? INELIGIBLE
+                 : tier(applicants.apply(application.getApplicantNric()), application.getFlatType());
+         if (tier == INELIGIBLE) {
+            decisions.add(new Decision(application));
+            application.setStatus(ApplicationStatus.UNSUCCESSFUL);
+            decided.add(application);
+            ineligible++;
+            continue;
+         }
+         int group = application.getFlatType().ordinal() * TIERS + tier;
+         if (sizes[group] == keys[group].length) {
+            keys[group] = Arrays.copyOf(keys[group], sizes[group] * 2);
+         }
+         keys[group][sizes[group]++] = (long) application.getId() << 32 | i;
+      }
+
+      FlatInventory inventory = project.getInventory();
+      SplittableRandom random = new SplittableRandom(seed);
+      int successful = 0;
+      int unsuccessful = 0;
+      for (FlatType type : TYPES) {
+         boolean flatsLeft = true;
+         for (int tier = 0; tier < TIERS; tier++) {
+            int group = type.ordinal() * TIERS + tier;
+            long[] order = keys[group];
+            int size = sizes[group];
+            Arrays.sort(order, 0, size);
+            // Fisher-Yates over the sorted keys
+            for (int i = size - 1; i > 0; i--) {
+               int j = random.nextInt(i + 1);
+               long swap = order[i];
+               order[i] = order[j];
+               order[j] = swap;
+            }
+            for (int i = 0; i < size; i++) {
+               Application application = applications.get((int) order[i]);
+               Decision decision = new Decision(application);
+               decisions.add(decision);
+               flatsLeft = flatsLeft && decision.reserve(inventory);
+               if (flatsLeft) {
+                  application.setStatus(ApplicationStatus.SUCCESSFUL);
+                  successful++;
+               }
+               else {
+                  application.setStatus(ApplicationStatus.UNSUCCESSFUL);
+                  unsuccessful++;
+               }
+               decided.add(application);
+            }
+         }
+      }
+      return new Result(successful, unsuccessful, ineligible, decided);
+   }
+
+   // The decisions of the last draw, with the applications as they were before it
+   List<Decision> decisions() {
+      return decisions;
+   }
+
+   /**
+    * @param successful   Applications that won a flat.
+    * @param unsuccessful Eligible applications left without a flat.
+    * @param ineligible   Applications the applicant was not eligible to make, also marked unsuccessful.
+    * @param decided      Every application the ballot changed.
+    */
+   public record Result(int successful, int unsuccessful, int ineligible, List<Application> decided) {
+   }
+}
@@ -0,0 +1,20 @@
+package manager;
+
+/**
+ * What a bulk approval or rejection did.
+ *
+ * @param updated  Items that were moved to the new status.
+ * @param skipped  Selected items that were already decided, and so were left as they were.
+ * @param notSaved Items that would have been moved, but were left as they were because the journal could not save
+ *                 the decision; 0 unless updated is.
+ */
+public record BulkResult(int updated, int skipped, int notSaved) {
+   public BulkResult(int updated, int skipped) {
+      this(updated, skipped, 0);
+   }
+
+   // Nothing was decided, as the journal could not save the decisions
+   static BulkResult notSaved(int decided, int skipped) {
+      return new BulkResult(0, skipped, decided);
+   }
+}
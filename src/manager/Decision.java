@@ -0,0 +1,82 @@
+package manager;
+
+import applicant.Application;
+import applicant.ApplicationStatus;
+import applicant.BookingStatus;
+import applicant.WithdrawalRequestStatus;
+import project.FlatInventory;
+
+/**
+ * A manager's decision on one application, with the application as it was before, so the decision can be undone if
+ * the journal cannot save it.
+ * <p>
+ * A flat the decision takes is taken right away, but a flat it takes away from the application is only given back
+ * once the decision is saved, so undoing a decision never needs a flat someone else may have taken in the meantime.
+ * All of it is done under the project's lock.
+ */
+final class Decision {
+   private final Application application;
+   private final ApplicationStatus status;
+   private final WithdrawalRequestStatus withdrawalStatus;
+   private final BookingStatus bookingStatus;
+   // Whether this decision holds a flat for the application
+   private boolean reserved;
+   // Whether this decision took away the flat the application held or booked, to be given back once saved
+   private boolean freed;
+
+   Decision(Application application) {
+      this.application = application;
+      this.status = application.getApplicationStatus();
+      this.withdrawalStatus = application.getWithdrawalRequestStatus();
+      this.bookingStatus = application.getBookingStatus();
+   }
+
+   Application application() {
+      return application;
+   }
+
+   /**
+    * Holds a free flat for the application.
+    *
+    * @return false if there is no free flat of its type left.
+    */
+   boolean reserve(FlatInventory inventory) {
+      reserved = inventory.reserve(application.getFlatType());
+      return reserved;
+   }
+
+   // Takes away the flat the application holds or booked; giveBack frees it once the decision is saved
+   void freeFlat() {
+      freed = true;
+      application.setBookingStatus(BookingStatus.NOT_BOOKED);
+   }
+
+   // Once saved: frees the flat the decision took away, if any
+   void giveBack(FlatInventory inventory) {
+      if (!freed) {
+         return;
+      }
+      if (bookingStatus == BookingStatus.BOOKED) {
+         inventory.unbook(application.getFlatType());
+      }
+      else {
+         inventory.release(application.getFlatType());
+      }
+   }
+
+   // Not saved: puts the application back as it was, and lets go of the flat the decision held for it, if any
+   void undo(FlatInventory inventory) {
+      if (reserved) {
+         // It may have been booked with the flat since
+         if (application.getBookingStatus() == BookingStatus.BOOKED && bookingStatus != BookingStatus.BOOKED) {
+            inventory.unbook(application.getFlatType());
+         }
+         else {
+            inventory.release(application.getFlatType());
+         }
+      }
+      application.setStatus(status);
+      application.setWithdrawalRequestStatus(withdrawalStatus);
+      application.setBookingStatus(bookingStatus);
+   }
+}
@@ -1,5 +1,6 @@
 package manager;
 
+import applicant.Application;
 import applicant.ApplicationStatus;
 import applicant.WithdrawalRequestStatus;
 import enquiry.Enquiry;
@@ -12,6 +13,7 @@ import user.IUserService;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Predicate;
 
 /**
  * Interface defining the operations that can be performed by a Manager.
@@ -19,7 +21,7 @@ import java.util.Map;
 public interface IManagerService extends IUserService {
 
    /**
-    * Sets the current manager user.
+    * Sets the manager of the calling thread's session.
     *
     * @param manager The manager to set
     */
@@ -125,6 +127,15 @@ public interface IManagerService extends IUserService {
     */
    void updateApplicationStatus(String applicationId, ApplicationStatus status) throws Exception;
 
+   /**
+    * Decides every pending application of the current project by ballot, against the flats still free.
+    *
+    * @param seed Decides the draw; balloting the same applications with the same seed gives the same result
+    * @return How many applications were successful, unsuccessful or not eligible
+    * @throws Exception If no project is under the manager's management
+    */
+   Ballot.Result ballotPendingApplications(long seed) throws Exception;
+
    /**
     * Retrieves enquiries related to the current project.
     *
@@ -149,4 +160,40 @@ public interface IManagerService extends IUserService {
     * @throws Exception If there is an error updating the withdrawal request status
     */
    void updateWithdrawalRequestStatus(String withdrawalRequestId, WithdrawalRequestStatus status) throws Exception;
+
+   /**
+    * Decides every pending application of the current project that matches the selection, or none of them.
+    *
+    * @param selection Picks the applications, e.g. by ID
+    * @param status    The new status to apply
+    * @return How many applications were updated, and how many matched but were already decided; if the journal cannot
+    *         save them, none are updated and the result says how many were not saved
+    * @throws Exception If no project is managed, or too few flats are free to approve them all
+    */
+   BulkResult updateApplicationStatuses(Predicate<Application> selection, ApplicationStatus status) throws Exception;
+
+   /**
+    * Decides every pending withdrawal request of the current project that matches the selection, or none of them.
+    *
+    * @param selection Picks the applications whose requests are decided, e.g. by ID
+    * @param status    The new status to apply
+    * @return How many requests were updated, and how many matched but were not pending; if the journal cannot
+    *         save them, none are updated and the result says how many were not saved
+    * @throws Exception If no project is managed, or the flats to give back are not held or booked in the project
+    */
+   BulkResult updateWithdrawalRequestStatuses(Predicate<Application> selection, WithdrawalRequestStatus status)
+           throws Exception;
+
+   /**
+    * Decides every pending officer registration of the current project that matches the selection, or none of them.
+    * Approved officers join the project's officers.
+    *
+    * @param selection Picks the registrations, e.g. by ID
+    * @param status    The new status to apply
+    * @return How many registrations were updated, and how many matched but were already decided; if the journal cannot
+    *         save them, none are updated and the result says how many were not saved
+    * @throws Exception If no project is managed, or there are too few officer slots left to approve them all
+    */
+   BulkResult setRegistrationStatuses(Predicate<RegistrationForm> selection, RegistrationStatus status)
+           throws Exception;
 }
@@ -5,10 +5,14 @@ import user.MaritalStatus;
 import user.User;
 import user.UserFilterSettings;
 
+import java.io.Serial;
+
 /**
  * Represents a Manager user who can manage housing projects.
  */
 public class Manager extends User {
+   @Serial
+   private static final long serialVersionUID = 3533612706538400512L;
 
    /**
     * The project currently being managed by this manager.
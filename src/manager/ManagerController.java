@@ -5,6 +5,8 @@ import applicant.ApplicationStatus;
 import applicant.WithdrawalRequestStatus;
 import enquiry.Enquiry;
 import helper.Color;
+import helper.IdSelection;
+import officer.BookingQueue;
 import officer.RegistrationForm;
 import officer.RegistrationStatus;
 import project.FlatType;
@@ -15,11 +17,11 @@ import system.ServiceRegistry;
 import system.SessionManager;
 import user.User;
 
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.Scanner;
 import java.util.stream.Collectors;
 
 public class ManagerController {
@@ -58,7 +60,7 @@ public class ManagerController {
          return null;
       }
       else {
-         UserFilterManager userFilterManager = new UserFilterManager(new Scanner(System.in));
+         UserFilterManager userFilterManager = new UserFilterManager();
 
          User currentUser = ServiceRegistry.get(SessionManager.class).getCurrentUser();
          userFilterManager.manageFilters(currentUser);
@@ -111,14 +113,34 @@ public class ManagerController {
    public boolean toggleVisibility(Integer projectId) {
       Project project = projectService.getProjectById(projectId);
       project.setVisibility(!project.isVisibility());
+      projectService.saveProject(project);
       return true;
    }
 
+   // Switches the current project between booking first come, first served and booking each batch by ballot
+   public BookingQueue.Order toggleBookingOrder() throws Exception {
+      Project project = managerService.getCurrentProject();
+      if (project == null) {
+         throw new Exception("No project is under your management");
+      }
+      BookingQueue.Order previous = project.getBookingOrder();
+      project.setBookingOrder(previous == BookingQueue.Order.BALLOT
+              ? BookingQueue.Order.FIRST_COME_FIRST_SERVED : BookingQueue.Order.BALLOT);
+      try {
+         projectService.saveProject(project);
+      }
+      catch (UncheckedIOException e) {
+         project.setBookingOrder(previous);
+         throw e;
+      }
+      return project.getBookingOrder();
+   }
+
    public void editProject(Integer projectId, String option, Object T) {
       Project project = projectService.getProjectById(projectId);
       switch (option) {
          case "1" -> {
-            project.setProjectName((String) T);
+            projectService.renameProject(project, (String) T);
          }
          case "2" -> {
             project.setNeighborhood((String) T);
@@ -134,8 +156,10 @@ public class ManagerController {
          }
          default -> {
             System.out.println("Invalid option");
+            return;
          }
       }
+      projectService.saveProject(project);
    }
 
    public List<List<String>> getPendingRegistrationTableData() throws Exception {
@@ -175,6 +199,11 @@ public class ManagerController {
       return false;
    }
 
+   public BulkResult processOfficerRegistrations(String ids, RegistrationStatus status) throws Exception {
+      IdSelection selection = IdSelection.parse(ids);
+      return managerService.setRegistrationStatuses(form -> selection.contains(form.getId()), status);
+   }
+
    public String getCurrentProjectData() {
       return managerService.getCurrentProject() != null ? managerService.getCurrentProject().toString() : null;
    }
@@ -201,6 +230,26 @@ public class ManagerController {
       return true;
    }
 
+   public BulkResult approveOrRejectApplicantApplications(String ids, boolean isApproved) throws Exception {
+      IdSelection selection = IdSelection.parse(ids);
+      ApplicationStatus status = (isApproved) ? ApplicationStatus.SUCCESSFUL : ApplicationStatus.REJECTED;
+      return managerService.updateApplicationStatuses(application -> selection.contains(application.getId()), status);
+   }
+
+   // With no seed given, the project id seeds the draw, so balloting a project again draws the same way
+   public Ballot.Result ballotPendingApplications(String seed) throws Exception {
+      Project project = managerService.getCurrentProject();
+      if (project == null) {
+         throw new Exception("No project is under your management");
+      }
+      try {
+         return managerService.ballotPendingApplications(seed.isBlank() ? project.getId() : Long.parseLong(seed.trim()));
+      }
+      catch (NumberFormatException e) {
+         throw new Exception("The seed must be a whole number");
+      }
+   }
+
    public void handlePasswordChange(String oldPass, String newPass1, String newPass2) {
       managerService.changePassword(oldPass, newPass1, newPass2); // Uses IUserService default
    }
@@ -247,6 +296,12 @@ public class ManagerController {
       return true;
    }
 
+   public BulkResult approveOrRejectWithdrawalRequests(String ids, boolean isApproved) throws Exception {
+      IdSelection selection = IdSelection.parse(ids);
+      WithdrawalRequestStatus status = (isApproved) ? WithdrawalRequestStatus.APPROVED : WithdrawalRequestStatus.REJECTED;
+      return managerService.updateWithdrawalRequestStatuses(application -> selection.contains(application.getId()), status);
+   }
+
 
    public List<List<String>> generateApplicantReport(Map<String, String> filters) throws Exception {
       Project currentProject = managerService.getCurrentProject();
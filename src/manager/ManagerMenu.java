@@ -1,8 +1,10 @@
 package manager;
 
 import helper.Color;
+import helper.IdSelection;
 import helper.TablePrinter;
 import interfaces.Menu;
+import officer.BookingQueue;
 import officer.RegistrationStatus;
 import system.SessionManager;
 
@@ -49,6 +51,8 @@ public class ManagerMenu extends Menu {
               "14. Reply to Project Enquiries\n" +
               "15. Generate Applicant/Booking Reports\n" +
               "16. Change Password\n" +
+              "17. Ballot Pending Applications\n" +
+              "18. Toggle Booking Order\n" +
               "0. Logout\n" +
               "======================================\n" +
               "Please enter your choice:", Color.CYAN);
@@ -109,6 +113,12 @@ public class ManagerMenu extends Menu {
          case "16" -> {
             handleChangePassword();
          }
+         case "17" -> {
+            handleBallotPendingApplications();
+         }
+         case "18" -> {
+            handleToggleBookingOrder();
+         }
          case "0" -> {
             sessionManager.logout();
          }
@@ -372,13 +382,18 @@ public class ManagerMenu extends Menu {
       try {
          if (handleViewPendingOfficerRegistrations()) {
 
-            Color.print("Enter Registration ID or Officer Name to approve/reject:", Color.GREEN);
+            Color.print("Enter Registration ID or Officer Name (or IDs like 3-10,15, or 'all') to approve/reject:", Color.GREEN);
             String identifier = scanner.nextLine();
 
             Color.print("Enter 'A' to approve or 'R' to reject:", Color.GREEN);
             String action = scanner.nextLine().toUpperCase();
 
-            if (action.equals("A") || action.equals("R")) {
+            if ((action.equals("A") || action.equals("R")) && IdSelection.isSelection(identifier)) {
+               RegistrationStatus status = action.equals("A") ? RegistrationStatus.APPROVED : RegistrationStatus.REJECTED;
+               printBulkResult("Registrations", status.toString().toLowerCase(),
+                       managerController.processOfficerRegistrations(identifier, status));
+            }
+            else if (action.equals("A") || action.equals("R")) {
 
                RegistrationStatus isApproved = action.equals("A") ? RegistrationStatus.APPROVED : RegistrationStatus.REJECTED;
 
@@ -435,13 +450,18 @@ public class ManagerMenu extends Menu {
       // You can use the tablePrinter for printing the table
       try {
          handleViewApplicantApplications();
-         Color.print("Enter Application ID to approve or reject:", Color.GREEN);
+         Color.print("Enter Application ID (or IDs like 3-10,15, or 'all') to approve or reject:", Color.GREEN);
          String applicationId = scanner.nextLine();
          Color.print("Enter 'A' to approve or 'R' to reject:", Color.GREEN);
          String action = scanner.nextLine().toUpperCase();
 
 
-         if (action.equals("A") || action.equals("R")) {
+         if ((action.equals("A") || action.equals("R")) && IdSelection.isSelection(applicationId)) {
+            boolean isApproved = action.equals("A");
+            printBulkResult("Applications", isApproved ? "approved" : "rejected",
+                    managerController.approveOrRejectApplicantApplications(applicationId, isApproved));
+         }
+         else if (action.equals("A") || action.equals("R")) {
             boolean isApproved = action.equals("A");
             boolean success = managerController.approveOrRejectApplicantApplication(applicationId, isApproved);
             if (success) {
@@ -461,6 +481,52 @@ public class ManagerMenu extends Menu {
 
    }
 
+   /**
+    * Handles deciding all pending applications of the current project by ballot.
+    */
+   private void handleBallotPendingApplications() {
+      try {
+         Color.print("Enter a ballot seed, or leave blank to use the project ID:", Color.GREEN);
+         String seed = scanner.nextLine();
+         Ballot.Result result = managerController.ballotPendingApplications(seed);
+         Color.println("Ballot done: " + result.successful() + " successful, " + result.unsuccessful()
+                 + " unsuccessful, " + result.ineligible() + " not eligible.", Color.GREEN);
+      }
+      catch (Exception e) {
+         Color.println("Error balloting applications: " + e.getMessage(), Color.RED);
+      }
+   }
+
+   /**
+    * Handles switching the order the current project's flats are booked in.
+    */
+   private void handleToggleBookingOrder() {
+      try {
+         BookingQueue.Order order = managerController.toggleBookingOrder();
+         Color.println(order == BookingQueue.Order.BALLOT
+                 ? "Bookings are now taken in a random order drawn from the project ID."
+                 : "Bookings are now taken first come, first served.", Color.GREEN);
+      }
+      catch (Exception e) {
+         Color.println("Error changing the booking order: " + e.getMessage(), Color.RED);
+      }
+   }
+
+   private void printBulkResult(String items, String decision, BulkResult result) {
+      if (result.notSaved() > 0) {
+         Color.println("The " + result.notSaved() + " " + items.toLowerCase() + " could not be saved, so none were "
+                 + decision + ".", Color.RED);
+         return;
+      }
+      if (result.updated() == 0 && result.skipped() == 0) {
+         Color.println("No " + items.toLowerCase() + " match those IDs.", Color.RED);
+         return;
+      }
+      Color.println(items + " " + decision + ": " + result.updated()
+              + (result.skipped() > 0 ? " (" + result.skipped() + " already decided, left as they were)" : "")
+              + ".", Color.GREEN);
+   }
+
    /**
     * Handles changing the manager's password.
     */
@@ -527,11 +593,16 @@ public class ManagerMenu extends Menu {
    private void handleApproveRejectWithdrawalRequests() {
       try {
          handleViewAllWithdrawalRequests();
-         Color.print("Enter Withdrawal Request ID to approve or reject:", Color.GREEN);
+         Color.print("Enter Withdrawal Request ID (or IDs like 3-10,15, or 'all') to approve or reject:", Color.GREEN);
          String withdrawalRequestId = scanner.nextLine();
          Color.print("Enter 'A' to approve or 'R' to reject:", Color.GREEN);
          String action = scanner.nextLine().toUpperCase();
-         if (action.equals("A") || action.equals("R")) {
+         if ((action.equals("A") || action.equals("R")) && IdSelection.isSelection(withdrawalRequestId)) {
+            boolean isApproved = action.equals("A");
+            printBulkResult("Withdrawal requests", isApproved ? "approved" : "rejected",
+                    managerController.approveOrRejectWithdrawalRequests(withdrawalRequestId, isApproved));
+         }
+         else if (action.equals("A") || action.equals("R")) {
             boolean isApproved = action.equals("A");
             boolean success = managerController.approveOrRejectWithdrawalRequest(withdrawalRequestId, isApproved);
             if (success) {
@@ -10,25 +10,35 @@ import interfaces.StaffService;
 import officer.IOfficerService;
 import officer.RegistrationForm;
 import officer.RegistrationStatus;
+import project.FlatInventory;
 import project.FlatType;
 import project.IProjectService;
 import project.Project;
+import system.EntityLocks;
 import system.ServiceRegistry;
+import system.SessionContext;
+import system.SessionJournal;
+import system.SessionManager;
 import user.IPasswordValidationService;
 import user.User;
+import user.UserRegistry;
 
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Predicate;
 
 public class ManagerService implements IManagerService, StaffService {
    private final IProjectService projectService;
    private final IPasswordValidationService passwordValidationService;
-   private Manager manager;
+   private final SessionJournal journal;
 
    public ManagerService() {
       this.projectService = ServiceRegistry.get(IProjectService.class);
       this.passwordValidationService = ServiceRegistry.get(IPasswordValidationService.class);
+      this.journal = ServiceRegistry.get(SessionJournal.class);
    }
 
    @Override
@@ -57,28 +67,30 @@ public class ManagerService implements IManagerService, StaffService {
    public void deleteProject(Integer projectId) {
       Project proj = projectService.getProjectById(projectId);
       projectService.deleteProject(proj);
+      ServiceRegistry.get(IOfficerService.class).closeBookingQueue(proj);
    }
 
    @Override
    public Project getCurrentProject() {
-      return manager.getCurrentProject();
+      return manager().getCurrentProject();
    }
 
    public void setCurrentProject(Project currentProject) {
-      this.manager.setCurrentProject(currentProject);
+      manager().setCurrentProject(currentProject);
+      journal.recordUser(manager());
    }
 
    @Override
    public List<RegistrationForm> getPendingOfficerRegistrations() throws Exception {
       try {
          List<RegistrationForm> pendingRegistrations
-                 = manager.getCurrentProject()
+                 = manager().getCurrentProject()
                  .getRegistrationForms().stream()
                  .filter(RegistrationForm::isPending).toList();//Lambda expression
          return pendingRegistrations;
       }
       catch (RuntimeException e) {
-         if (manager.getCurrentProject() == null) {
+         if (manager().getCurrentProject() == null) {
             throw new Exception("You are not managing any project.");
          }
          else {
@@ -94,7 +106,7 @@ public class ManagerService implements IManagerService, StaffService {
    @Override
    public List<Project> getMyProjects() {
       //System.out.println("Returning all projects managed by the manager");
-      return projectService.getFilteredProjects(project -> project.getManager().equals(manager.getName()));
+      return projectService.getFilteredProjects(project -> project.getManager().equals(manager().getName()));
    }
 
    @Override
@@ -104,12 +116,17 @@ public class ManagerService implements IManagerService, StaffService {
 
    @Override
    public User getUser() { //upcasting is done via return type definition
-      return this.manager;
+      return manager();
    }
 
    @Override
    public void setUser(Manager manager) {
-      this.manager = manager;
+      SessionContext.current().setUser(manager);
+   }
+
+   // Looked up per call, see SessionContext
+   private Manager manager() {
+      return (Manager) SessionContext.current().getUser();
    }
 
    @Override
@@ -127,61 +144,141 @@ public class ManagerService implements IManagerService, StaffService {
          // Identifier is not a number, assume it's a name
       }
 
-      Project project = manager.getCurrentProject();
+      Project project = managedProject();
+      RegistrationForm f;
+      RegistrationStatus previous;
+      // Under the project's lock, like the bulk decision, so the two cannot decide the same form at once
+      EntityLocks.lock(project);
       try {
          if (id == null) {
-            RegistrationForm f =
-                    project.getRegistrationForms().stream().filter(x -> x.getOfficerName().equals(identifier)).findFirst().get();
-            f.setStatus(status);
-            return f.getOfficerName();
+            f = project.getRegistrationForms().stream().filter(x -> x.getOfficerName().equals(identifier)).findFirst().get();
          }
          else {
             Integer finalId = id;//lamda only allow final variable in lambda expression
-            RegistrationForm f =
-                    project.getRegistrationForms().stream().filter(x -> x.getId().equals(finalId)).findFirst().get();
-            f.setStatus(status);
-            return f.getOfficerName();
+            f = project.getRegistrationForms().stream().filter(x -> x.getId().equals(finalId)).findFirst().get();
          }
-
+         previous = f.getStatus();
+         f.setStatus(status);
       }
       catch (Exception e) {
          throw new Exception("Registration form not found, please check your input");
       }
+      finally {
+         EntityLocks.unlock(project);
+      }
+      try {
+         journal.recordRegistration(f);
+      }
+      catch (UncheckedIOException e) {
+         EntityLocks.lock(project);
+         try {
+            f.setStatus(previous);
+         }
+         finally {
+            EntityLocks.unlock(project);
+         }
+         throw e;
+      }
+      return f.getOfficerName();
    }
 
    @Override
    public void addToOfficersList(String officerStr) {
-      Project project = manager.getCurrentProject();
+      Project project = manager().getCurrentProject();
       String[] officerArr = officerStr.split(",");
-      for (String officer : officerArr) {
-         project.getOfficers().add(officer);
+      // All at once under the project's lock, so a bulk approval cannot hand out the same officer slots in between
+      EntityLocks.lock(project);
+      try {
+         project.getOfficers().addAll(List.of(officerArr));
+      }
+      finally {
+         EntityLocks.unlock(project);
+      }
+      try {
+         projectService.saveProject(project);
+      }
+      catch (UncheckedIOException e) {
+         EntityLocks.lock(project);
+         try {
+            for (String officer : officerArr) {
+               project.getOfficers().remove(officer);
+            }
+         }
+         finally {
+            EntityLocks.unlock(project);
+         }
+         throw e;
       }
    }
 
    @Override
    public void updateApplicationStatus(String applicationId, ApplicationStatus status) throws Exception {
+      Project project = managedProject();
+      Decision decision;
+      EntityLocks.lock(project);
       try {
-         manager.getCurrentProject().getApplications().stream().filter(x -> x.getId().equals(Integer.parseInt(applicationId))).findFirst().get().setStatus(status);
+         Application application = findApplication(applicationId);
+         decision = new Decision(application);
+         boolean successful = application.getApplicationStatus() == ApplicationStatus.SUCCESSFUL;
+         // A successful application holds a flat until it books it, so it can only be approved while one is free
+         if (status == ApplicationStatus.SUCCESSFUL && !successful && !decision.reserve(project.getInventory())) {
+            throw new Exception("No " + application.getFlatType() + " flats left to approve this application.");
+         }
+         if (status != ApplicationStatus.SUCCESSFUL && successful) {
+            decision.freeFlat();
+         }
+         application.setStatus(status);
       }
-      catch (Exception e) {
-         throw new Exception("Application not found: " + e.getMessage());
+      finally {
+         EntityLocks.unlock(project);
+      }
+      save(project, List.of(decision));
+   }
+
+   @Override
+   public Ballot.Result ballotPendingApplications(long seed) throws Exception {
+      Project project = managedProject();
+      UserRegistry users = ServiceRegistry.get(SessionManager.class).getUserRegistry();
+      Ballot ballot = new Ballot(project, users::getUserByNric, seed);
+      Ballot.Result result;
+      EntityLocks.lock(project);
+      try {
+         result = ballot.draw();
+      }
+      finally {
+         EntityLocks.unlock(project);
       }
+      // A draw the journal cannot save is undone, flats and all, so a restart does not disagree with it
+      save(project, ballot.decisions());
+      return result;
    }
 
    @Override
    public List<Enquiry> getProjectEnquiries() {
-      return manager.getCurrentProject().getEnquiries();
+      return manager().getCurrentProject().getEnquiries();
    }
 
    @Override
    public boolean replyToProjectEnquiry(String enquiryId, String reply) {
-      Project project = manager.getCurrentProject();
+      Project project = manager().getCurrentProject();
       Enquiry enquiry = project.getEnquiries().stream().filter(x -> x.getId().equals(Integer.parseInt(enquiryId))).findFirst().get();
       if (enquiry == null) {
          return false;
       }
       if (enquiry.getReply() == null || enquiry.getReply().isEmpty()) {
+         String previous = enquiry.getReply();
+         String previousRespondent = enquiry.getRespondent();
+         LocalDate previousDate = enquiry.getDateReplied();
          enquiry.setReply(reply);
+         try {
+            journal.recordEnquiry(enquiry);
+         }
+         catch (UncheckedIOException e) {
+            enquiry.setReply(previous);
+            enquiry.setRespondent(previousRespondent);
+            enquiry.setDateReplied(previousDate);
+            throw e;
+         }
          Color.println("Enquiry replied successfully.", Color.GREEN);
          return true;
       }
@@ -190,22 +287,241 @@ public class ManagerService implements IManagerService, StaffService {
 
    @Override
    public void updateWithdrawalRequestStatus(String withdrawalRequestId, WithdrawalRequestStatus status) throws Exception {
+      Project project = managedProject();
+      Decision decision;
+      EntityLocks.lock(project);
       try {
-         Application application =
-                 manager.getCurrentProject().getApplications().stream().filter(x -> x.getId().equals(Integer.parseInt(withdrawalRequestId))).findFirst().get();
+         decision = new Decision(findApplication(withdrawalRequestId));
+         decideWithdrawal(decision, status);
+      }
+      finally {
+         EntityLocks.unlock(project);
+      }
+      save(project, List.of(decision));
+   }
 
-         application.setWithdrawalRequestStatus(status);
+   @Override
+   public BulkResult updateApplicationStatuses(Predicate<Application> selection, ApplicationStatus status) throws Exception {
+      Project project = managedProject();
+      List<Decision> pending = new ArrayList<>();
+      int skipped = 0;
+      EntityLocks.lock(project);
+      try {
+         for (Application application : project.getApplications()) {
+            if (!selection.test(application)) {
+               continue;
+            }
+            if (application.getApplicationStatus() == ApplicationStatus.PENDING) {
+               pending.add(new Decision(application));
+            }
+            else {
+               skipped++;
+            }
+         }
+         if (status == ApplicationStatus.SUCCESSFUL) {
+            reserveAll(pending, project.getInventory());
+         }
+         pending.forEach(decision -> decision.application().setStatus(status));
+      }
+      finally {
+         EntityLocks.unlock(project);
+      }
+      return saveAll(project, pending, skipped);
+   }
+
+   @Override
+   public BulkResult updateWithdrawalRequestStatuses(Predicate<Application> selection, WithdrawalRequestStatus status)
+           throws Exception {
+      Project project = managedProject();
+      List<Decision> requested = new ArrayList<>();
+      int skipped = 0;
+      EntityLocks.lock(project);
+      try {
+         FlatInventory inventory = project.getInventory();
+         // Flats the approvals would give back, per flat type, so they can all be checked before any is given back
+         int[] toRelease = new int[FlatType.values().length];
+         int[] toUnbook = new int[FlatType.values().length];
+         for (Application application : project.getApplications()) {
+            if (!selection.test(application)) {
+               continue;
+            }
+            if (application.getWithdrawalRequestStatus() != WithdrawalRequestStatus.PENDING) {
+               skipped++;
+               continue;
+            }
+            requested.add(new Decision(application));
+            if (application.getApplicationStatus() == ApplicationStatus.SUCCESSFUL) {
+               int[] counts = application.getBookingStatus() == BookingStatus.BOOKED ? toUnbook : toRelease;
+               counts[application.getFlatType().ordinal()]++;
+            }
+         }
+         if (status == WithdrawalRequestStatus.APPROVED) {
+            for (FlatType type : FlatType.values()) {
+               if (inventory.held(type) < toRelease[type.ordinal()] || inventory.booked(type) < toUnbook[type.ordinal()]) {
+                  throw new Exception("The " + type + " flats of these applications do not match the project's flats; "
+                          + "no withdrawal was approved.");
+               }
+            }
+         }
+         for (Decision decision : requested) {
+            decideWithdrawal(decision, status);
+         }
+      }
+      finally {
+         EntityLocks.unlock(project);
+      }
+      return saveAll(project, requested, skipped);
+   }
+
+   @Override
+   public BulkResult setRegistrationStatuses(Predicate<RegistrationForm> selection, RegistrationStatus status)
+           throws Exception {
+      Project project = managedProject();
+      List<RegistrationForm> pending = new ArrayList<>();
+      List<String> joining = new ArrayList<>();
+      int skipped = 0;
+      EntityLocks.lock(project);
+      try {
+         for (RegistrationForm form : project.getRegistrationForms()) {
+            if (!selection.test(form)) {
+               continue;
+            }
+            if (form.isPending()) {
+               pending.add(form);
+            }
+            else {
+               skipped++;
+            }
+         }
+
+         List<String> officers = project.getOfficers();
+         if (status == RegistrationStatus.APPROVED) {
+            for (RegistrationForm form : pending) {
+               if (!officers.contains(form.getOfficerName()) && !joining.contains(form.getOfficerName())) {
+                  joining.add(form.getOfficerName());
+               }
+            }
+            int slotsLeft = project.getAvailableOfficerSlots() - officers.size();
+            if (joining.size() > slotsLeft) {
+               throw new Exception("Only " + slotsLeft + " officer slots left for " + joining.size()
+                       + " officers; no registration was approved.");
+            }
+         }
+         pending.forEach(form -> form.setStatus(status));
+         officers.addAll(joining);
+      }
+      finally {
+         EntityLocks.unlock(project);
+      }
+      try {
+         journal.recordRegistrations(pending);
+         if (!joining.isEmpty()) {
+            projectService.saveProject(project);
+         }
+      }
+      catch (UncheckedIOException e) {
+         // Every form was pending before
+         EntityLocks.lock(project);
+         try {
+            pending.forEach(form -> form.setStatus(RegistrationStatus.PENDING));
+            joining.forEach(project.getOfficers()::remove);
+         }
+         finally {
+            EntityLocks.unlock(project);
+         }
+         return BulkResult.notSaved(pending.size(), skipped);
+      }
+      return new BulkResult(pending.size(), skipped);
+   }
+
+   private Project managedProject() throws Exception {
+      Project project = manager().getCurrentProject();
+      if (project == null) {
+         throw new Exception("You are not managing any project.");
+      }
+      return project;
+   }
+
+   // A rejected request leaves the application, and the flat it holds or booked, as they were
+   private void decideWithdrawal(Decision decision, WithdrawalRequestStatus status) {
+      Application application = decision.application();
+      application.setWithdrawalRequestStatus(status);
+      if (status == WithdrawalRequestStatus.APPROVED) {
+         if (application.getApplicationStatus() == ApplicationStatus.SUCCESSFUL) {
+            decision.freeFlat();
+         }
          application.setBookingStatus(BookingStatus.NOT_BOOKED);
          application.setStatus(ApplicationStatus.UNSUCCESSFUL);
       }
+   }
+
+   // Holds a flat for every decision, or for none of them if there are not enough free
+   private void reserveAll(List<Decision> decisions, FlatInventory inventory) throws Exception {
+      for (int i = 0; i < decisions.size(); i++) {
+         FlatType type = decisions.get(i).application().getFlatType();
+         if (!decisions.get(i).reserve(inventory)) {
+            for (int j = 0; j < i; j++) {
+               inventory.release(decisions.get(j).application().getFlatType());
+            }
+            throw new Exception("Not enough " + type + " flats left to approve all " + decisions.size()
+                    + " applications; none were approved.");
+         }
+      }
+   }
+
+   private Application findApplication(String applicationId) throws Exception {
+      try {
+         return manager().getCurrentProject().getApplications().stream().filter(x -> x.getId().equals(Integer.parseInt(applicationId))).findFirst().get();
+      }
       catch (Exception e) {
          throw new Exception("Application not found: " + e.getMessage());
       }
    }
 
+   // Journals decided applications, then frees the flats they gave up; if they cannot be saved they are undone
+   private void save(Project project, List<Decision> decisions) {
+      try {
+         journal.recordApplications(decisions.stream().map(Decision::application).toList());
+      }
+      catch (UncheckedIOException e) {
+         settle(project, decisions, false);
+         throw e;
+      }
+      settle(project, decisions, true);
+   }
+
+   // As save, but a batch the journal cannot save is reported in the result instead of thrown
+   private BulkResult saveAll(Project project, List<Decision> decisions, int skipped) {
+      try {
+         save(project, decisions);
+      }
+      catch (UncheckedIOException e) {
+         return BulkResult.notSaved(decisions.size(), skipped);
+      }
+      return new BulkResult(decisions.size(), skipped);
+   }
+
+   private void settle(Project project, List<Decision> decisions, boolean saved) {
+      EntityLocks.lock(project);
+      try {
+         FlatInventory inventory = project.getInventory();
+         for (Decision decision : decisions) {
+            if (saved) {
+               decision.giveBack(inventory);
+            }
+            else {
+               decision.undo(inventory);
+            }
+         }
+      }
+      finally {
+         EntityLocks.unlock(project);
+      }
+   }
+
    public void setOfficerCurrentProject(String officerName) {
       // TODO: Implement this method
       IOfficerService officerService = ServiceRegistry.get(IOfficerService.class);
-      officerService.setOfficerCurrentProject(officerName, manager.getCurrentProject());
+      officerService.setOfficerCurrentProject(officerName, manager().getCurrentProject());
    }
 }
\ No newline at end of file
@@ -0,0 +1,311 @@
+package officer;
+
+import applicant.Application;
+import applicant.ApplicationStatus;
+import applicant.BookingStatus;
+import applicant.WithdrawalRequestStatus;
+import project.FlatInventory;
+import project.Project;
+import system.EntityLocks;
+import system.SessionJournal;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Books the flats of one project on a single writer thread. Bookings from any number of sessions wait in a bounded
+ * queue; the writer takes them in batches, orders each batch, books them one after another and journals the whole
+ * batch as one append. Only the writer books flats of the project, so bookings never wait on one another, and a full
+ * queue holds up the sessions that submit, not the writer.
+ * <p>
+ * The writer does take the project's lock, once per batch and never while journaling, even though the queue was
+ * meant to keep locks off the booking path: a manager deciding a withdrawal, or the ballot, changes the same
+ * applications and flats under that lock, and without it a booking could go through on an application withdrawn
+ * a moment before. One lock per batch of up to {@value #BATCH_SIZE} bookings keeps that cost small.
+ * <p>
+ * Each batch is ordered by the project's {@link Project#getBookingOrder() booking order}, read again for every batch,
+ * so a manager can switch it while the queue is running.
+ * <p>
+ * An approved application already holds a flat, so the order only decides who books when fewer flats are held than
+ * there are approved applications, as in data approved before flats were held.
+ * <p>
+ * The writer runs until the queue is closed, which is done when the project is deleted.
+ */
+public final class BookingQueue {
+   private static final int CAPACITY = 4096;
+   private static final int BATCH_SIZE = 256;
+   // Wakes the writer up to find the queue closed; never booked
+   private static final Request WAKE_UP = new Request(null, 0, null);
+
+   public enum Order {
+      FIRST_COME_FIRST_SERVED,
+      // Each batch is booked in a random order drawn from the seed, so the same arrivals book the same way again
+      BALLOT
+   }
+
+   private final Project project;
+   private final SessionJournal journal;
+   private final Random ballot;
+   private final BlockingQueue<Request> queue = new ArrayBlockingQueue<>(CAPACITY);
+   private final Stats stats = new Stats();
+   private volatile boolean closed;
+
+   /**
+    * @param seed Seeds the draw when the project books by {@link Order#BALLOT}.
+    */
+   public BookingQueue(Project project, SessionJournal journal, long seed) {
+      this.project = project;
+      this.journal = journal;
+      this.ballot = new Random(seed);
+      Thread.ofVirtual().name("booking-" + project.getId()).start(this::drain);
+   }
+
+   /**
+    * Queues a booking, waiting while the queue is full.
+    *
+    * @return Completes with the application once it is booked and journaled, or exceptionally if it cannot be booked.
+    */
+   public CompletableFuture<Application> submit(Application application) throws InterruptedException {
+      if (closed) {
+         throw new IllegalStateException(closedMessage());
+      }
+      Request request = new Request(application, System.nanoTime(), new CompletableFuture<>());
+      queue.put(request);
+      // Closed while queueing: the writer may have stopped without seeing it, and nothing else would take it out
+      if (closed && queue.remove(request)) {
+         request.result().completeExceptionally(new IllegalStateException(closedMessage()));
+      }
+      return request.result();
+   }
+
+   /**
+    * Stops the writer once the batch it is booking is done; bookings still queued are refused.
+    */
+   public void close() {
+      closed = true;
+      // A full queue means the writer is busy, and it checks for closing before every batch
+      queue.offer(WAKE_UP);
+   }
+
+   public Stats getStats() {
+      return stats;
+   }
+
+   private void drain() {
+      List<Request> batch = new ArrayList<>(BATCH_SIZE);
+      List<Application> booked = new ArrayList<>(BATCH_SIZE);
+      while (!closed) {
+         try {
+            batch.add(queue.take());
+         }
+         catch (InterruptedException e) {
+            return;
+         }
+         queue.drainTo(batch, BATCH_SIZE - 1);
+         batch.remove(WAKE_UP);
+         if (closed) {
+            break;
+         }
+         if (project.getBookingOrder() == Order.BALLOT) {
+            Collections.shuffle(batch, ballot);
+         }
+
+         RuntimeException[] failures = new RuntimeException[batch.size()];
+         BookingStatus[] before = new BookingStatus[batch.size()];
+         // Under the project's lock, so a manager deciding a withdrawal never sees a booking half done
+         EntityLocks.lock(project);
+         try {
+            for (int i = 0; i < batch.size(); i++) {
+               before[i] = batch.get(i).application().getBookingStatus();
+               try {
+                  book(batch.get(i).application());
+                  booked.add(batch.get(i).application());
+               }
+               catch (RuntimeException e) {
+                  failures[i] = e;
+               }
+            }
+         }
+         finally {
+            EntityLocks.unlock(project);
+         }
+         if (!booked.isEmpty()) {
+            try {
+               journal.recordApplications(booked);
+            }
+            catch (UncheckedIOException e) {
+               undoBookings(batch, failures, before, e);
+            }
+         }
+
+         long now = System.nanoTime();
+         for (int i = 0; i < batch.size(); i++) {
+            Request request = batch.get(i);
+            stats.record(now - request.enqueuedAt(), failures[i] == null, now);
+            if (failures[i] == null) {
+               request.result().complete(request.application());
+            }
+            else {
+               request.result().completeExceptionally(failures[i]);
+            }
+         }
+         stats.batchDone();
+         batch.clear();
+         booked.clear();
+      }
+
+      queue.drainTo(batch);
+      for (Request request : batch) {
+         if (request != WAKE_UP) {
+            request.result().completeExceptionally(new IllegalStateException(closedMessage()));
+         }
+      }
+   }
+
+   private String closedMessage() {
+      return "Project '" + project.getProjectName() + "' is no longer taking bookings.";
+   }
+
+   // Called under the project's lock, so the application cannot be decided or withdrawn between the checks and booking
+   private void book(Application application) {
+      if (!project.getId().equals(application.getProjectId())) {
+         throw new IllegalArgumentException("This application is not for project '" + project.getProjectName() + "'.");
+      }
+      if (application.getApplicationStatus() != ApplicationStatus.SUCCESSFUL) {
+         throw new IllegalArgumentException("Only successful applications can be booked.");
+      }
+      WithdrawalRequestStatus withdrawal = application.getWithdrawalRequestStatus();
+      if (withdrawal == WithdrawalRequestStatus.PENDING || withdrawal == WithdrawalRequestStatus.APPROVED) {
+         throw new IllegalArgumentException("This application has a withdrawal request " + withdrawal.toString().toLowerCase() + ".");
+      }
+      if (application.getBookingStatus() == BookingStatus.BOOKED) {
+         throw new IllegalArgumentException("This application has already booked a flat.");
+      }
+      // Books the flat held for the application since it was approved
+      project.getInventory().confirm(application.getFlatType());
+      application.setBookingStatus(BookingStatus.BOOKED);
+   }
+
+   // The batch could not be journaled: the flats go back to being held for the applications, which are failed
+   private void undoBookings(List<Request> batch, RuntimeException[] failures, BookingStatus[] before, UncheckedIOException cause) {
+      EntityLocks.lock(project);
+      try {
+         FlatInventory inventory = project.getInventory();
+         for (int i = 0; i < batch.size(); i++) {
+            if (failures[i] == null) {
+               Application application = batch.get(i).application();
+               inventory.unbook(application.getFlatType());
+               inventory.reserve(application.getFlatType());
+               application.setBookingStatus(before[i]);
+               failures[i] = cause;
+            }
+         }
+      }
+      finally {
+         EntityLocks.unlock(project);
+      }
+   }
+
+   private record Request(Application application, long enqueuedAt, CompletableFuture<Application> result) {
+   }
+
+   /**
+    * Bookings done by the queue so far, and how long they waited from being queued until they were done.
+    * Latencies are kept in buckets a quarter of a power of two wide, so percentiles are within about 20%.
+    */
+   public static final class Stats {
+      private static final int SUB_BUCKETS = 4;
+      private final long[] buckets = new long[64 * SUB_BUCKETS];
+      private long booked;
+      private long refused;
+      private long batches;
+      private long maxNanos;
+      private long firstDoneAt;
+      private long lastDoneAt;
+
+      private synchronized void record(long nanos, boolean wasBooked, long doneAt) {
+         if (wasBooked) {
+            booked++;
+         }
+         else {
+            refused++;
+         }
+         buckets[bucket(nanos)]++;
+         maxNanos = Math.max(maxNanos, nanos);
+         if (firstDoneAt == 0) {
+            firstDoneAt = doneAt;
+         }
+         lastDoneAt = doneAt;
+      }
+
+      private synchronized void batchDone() {
+         batches++;
+      }
+
+      public synchronized long getBooked() {
+         return booked;
+      }
+
+      public synchronized long getRefused() {
+         return refused;
+      }
+
+      public synchronized long getBatches() {
+         return batches;
+      }
+
+      /**
+       * @param percentile E.g. 99 for the latency 99% of bookings stayed within.
+       * @return The upper edge of the bucket holding that percentile, in nanoseconds.
+       */
+      public synchronized long latencyPercentile(double percentile) {
+         long total = booked + refused;
+         long wanted = (long) Math.ceil(total * percentile / 100);
+         long seen = 0;
+         for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= wanted && seen > 0) {
+               return Math.min(upperEdge(i), maxNanos);
+            }
+         }
+         return maxNanos;
+      }
+
+      // Bookings per second between the first and the last one done
+      public synchronized double throughput() {
+         long span = lastDoneAt - firstDoneAt;
+         return span > 0 ? (booked + refused) * 1e9 / span : 0;
+      }
+
+      @Override
+      public synchronized String toString() {
+         return String.format("%d booked, %d refused in %d batches, %.0f bookings/s, queued p50 %.2f ms, p99 %.2f ms, max %.2f ms",
+                 booked, refused, batches, throughput(), latencyPercentile(50) / 1e6, latencyPercentile(99) / 1e6,
+                 maxNanos / 1e6);
+      }
+
+      private static int bucket(long nanos) {
+         if (nanos < SUB_BUCKETS) {
+            return (int) Math.max(nanos, 0);
+         }
+         int power = 63 - Long.numberOfLeadingZeros(nanos);
+         int sub = (int) (nanos >>> (power - 2)) & (SUB_BUCKETS - 1);
+         return power * SUB_BUCKETS + sub;
+      }
+
+      private static long upperEdge(int bucket) {
+         int power = bucket / SUB_BUCKETS;
+         int sub = bucket % SUB_BUCKETS;
+         if (power < 2) {
+            return bucket;
+         }
+         return (1L << power) + ((long) (sub + 1) << (power - 2)) - 1;
+      }
+   }
+}
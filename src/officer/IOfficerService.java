@@ -31,6 +31,14 @@ public interface IOfficerService extends IUserService {
 
    void bookFlat(Application application);
 
+   /**
+    * @return How the project's bookings have gone so far, or null if none were made since the program started.
+    */
+   BookingQueue.Stats getBookingStats(Project project);
+
+   // Stops the thread booking the project's flats, e.g. when the project is deleted
+   void closeBookingQueue(Project project);
+
 
    // Application Management
 //   List<Application> getApplicationsForCurrentProject();
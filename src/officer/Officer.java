@@ -1,17 +1,24 @@
 package officer;
 
 import applicant.Applicant;
+import helper.concurrent.GuardedList;
 import project.Project;
+import system.EntityLocks;
 import user.MaritalStatus;
 
+import java.io.Serial;
 import java.util.ArrayList;
 import java.util.List;
 
 public class Officer extends Applicant {
+   @Serial
+   private static final long serialVersionUID = 3368399844924581608L;
    private final List<RegistrationForm> myRegistrationForms;
    private Project currentProject;
    private RegistrationForm currentRegistrationForm;
    private OfficerStatus officerStatus;
+   // Made on first use, as in Applicant
+   private transient List<RegistrationForm> myRegistrationFormsView;
 
    public Officer(String name, String nric, String password, int age, MaritalStatus maritalStatus) {
       super(name, nric, password, age, maritalStatus);
@@ -22,10 +29,12 @@ public class Officer extends Applicant {
    }
 
    public RegistrationForm getCurrentRegistrationForm() {
+      resolveLinks();
       return currentRegistrationForm;
    }
 
    public void setCurrentRegistrationForm(RegistrationForm currentRegistrationForm) {
+      resolveLinks();
       this.currentRegistrationForm = currentRegistrationForm;
    }
 
@@ -38,15 +47,21 @@ public class Officer extends Applicant {
    }
 
    public List<RegistrationForm> getMyRegistrationForms() {//Read-only as a whole
-      return myRegistrationForms;
+      resolveLinks();
+      List<RegistrationForm> guarded = myRegistrationFormsView;
+      if (guarded == null) {
+         guarded = new GuardedList<>(myRegistrationForms, EntityLocks.of(this));
+         myRegistrationFormsView = guarded;
+      }
+      return guarded;
    }
 
    public void addRegistrationForm(RegistrationForm registrationForm) {
-      myRegistrationForms.add(registrationForm);
+      getMyRegistrationForms().add(registrationForm);
    }
 
    public void removeRegistrationForm(RegistrationForm registrationForm) {
-      myRegistrationForms.remove(registrationForm);
+      getMyRegistrationForms().remove(registrationForm);
    }
 
    public Project getCurrentProject() {
@@ -6,21 +6,23 @@ import project.IProjectService;
 import project.Project;
 import project.UserFilterManager;
 import system.ServiceRegistry;
+import system.SessionJournal;
 import system.SessionManager;
 import user.User;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Scanner;
 
 public class OfficerController {
 
    private final IOfficerService officerService;
    private final IProjectService projectService;
+   private final SessionJournal journal;
 
    public OfficerController() {
       this.officerService = ServiceRegistry.get(IOfficerService.class);
       this.projectService = ServiceRegistry.get(IProjectService.class);
+      this.journal = ServiceRegistry.get(SessionJournal.class);
    }
 
    public List<List<String>> getAllProjectsTableData() throws Exception {
@@ -29,7 +31,7 @@ public class OfficerController {
          return null;
       }
       else {
-         UserFilterManager userFilterManager = new UserFilterManager(new Scanner(System.in));
+         UserFilterManager userFilterManager = new UserFilterManager();
 
          User currentUser = ServiceRegistry.get(SessionManager.class).getCurrentUser();
          userFilterManager.manageFilters(currentUser);
@@ -61,8 +63,13 @@ public class OfficerController {
          throw new IllegalStateException("You are already registered as an officer for the project.");
       }
 
+      // Only offer projects with a free slot whose application period the officer is not already committed in
+      Officer officer = (Officer) officerService.getUser();
+      OfficerSchedule schedule = new OfficerSchedule(ServiceRegistry.get(SessionManager.class).getProjectRegistry(),
+              officer.getName(), officer.getMyRegistrationForms());
       List<Project> projects = projectService.getFilteredProjects(project ->
-              project.getOfficers().size() < project.getAvailableOfficerSlots()
+              project.getOfficers().size() < project.getAvailableOfficerSlots() &&
+                      !project.getOfficers().contains(officer.getName()) && schedule.isFreeFor(project)
       );
 
       if (projects == null || projects.isEmpty()) {
@@ -119,7 +126,6 @@ public class OfficerController {
       officerService.setOfficerStatus(OfficerStatus.PENDING);
       //Color.println(" Registration Request Sent and set officer status", Color.GREEN);
       officerService.setCurrentRegistrationForm(form);
-      officerService.addToMyRegistrations(form);
    }
 
    public OfficerStatus getOfficerStatus() {
@@ -130,6 +136,10 @@ public class OfficerController {
       return officerService.getCurrentProject();
    }
 
+   public BookingQueue.Stats getBookingStats(Project project) {
+      return officerService.getBookingStats(project);
+   }
+
    public RegistrationForm getCurrentRegistrationForm() throws Exception {
       return officerService.getCurrentRegistrationForm();
    }
@@ -162,6 +172,7 @@ public class OfficerController {
 
       if (enquiry.getReply() == null || enquiry.getReply().isEmpty()) {
          enquiry.setReply(reply);
+         journal.recordEnquiry(enquiry);
          Color.println("Enquiry replied successfully.", Color.GREEN);
          return true;
       }
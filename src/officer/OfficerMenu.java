@@ -189,6 +189,10 @@ public class OfficerMenu extends Menu {
       try {
          Project project = officerController.getCurrentProject();
          Color.println(project.toString(), Color.YELLOW);
+         BookingQueue.Stats bookings = officerController.getBookingStats(project);
+         if (bookings != null) {
+            Color.println("Bookings since start-up: " + bookings, Color.YELLOW);
+         }
       }
       catch (Exception e) {
          Color.println("Error in the System: You have no current registration form. :" + e.getMessage(), Color.RED);
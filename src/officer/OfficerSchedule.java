@@ -0,0 +1,47 @@
+package officer;
+
+import helper.IntervalTree;
+import project.Project;
+import project.ProjectRegistry;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Application periods an officer is already committed to: the projects they handle, plus the projects they have
+ * a pending or approved registration for. An officer may not take on two projects whose periods overlap.
+ */
+class OfficerSchedule {
+   private final IntervalTree<Project> handling;
+   private final IntervalTree<Project> registered;
+
+   OfficerSchedule(ProjectRegistry projectRegistry, String officerName, List<RegistrationForm> forms) {
+      this.handling = projectRegistry.getOfficerWindows(officerName);
+      List<Project> projects = new ArrayList<>();
+      for (RegistrationForm form : forms) {
+         if (form.getStatus() == RegistrationStatus.REJECTED) {
+            continue;
+         }
+         Project project = projectRegistry.getProjectById(form.getProjectId());
+         if (project != null && project.getApplicationOpeningDate() != null && project.getApplicationClosingDate() != null) {
+            projects.add(project);
+         }
+      }
+      this.registered = ProjectRegistry.windowsOf(projects);
+   }
+
+   // A committed project whose period overlaps [from, to], if any
+   Optional<Project> clashBetween(LocalDate from, LocalDate to) {
+      List<Project> clashes = handling.overlapping(from.toEpochDay(), to.toEpochDay());
+      if (clashes.isEmpty()) {
+         clashes = registered.overlapping(from.toEpochDay(), to.toEpochDay());
+      }
+      return clashes.stream().findFirst();
+   }
+
+   boolean isFreeFor(Project project) {
+      return clashBetween(project.getApplicationOpeningDate(), project.getApplicationClosingDate()).isEmpty();
+   }
+}
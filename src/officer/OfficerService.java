@@ -3,8 +3,6 @@ package officer;
 import UniqueID.IUniqueIdService;
 import UniqueID.IdType;
 import applicant.Application;
-import applicant.ApplicationStatus;
-import applicant.BookingStatus;
 import enquiry.Enquiry;
 import helper.Color;
 import interfaces.StaffService;
@@ -12,34 +10,42 @@ import project.FlatType;
 import project.IProjectService;
 import project.Project;
 import system.ServiceRegistry;
+import system.SessionContext;
+import system.SessionJournal;
 import system.SessionManager;
 import user.IPasswordValidationService;
 import user.User;
 import user.UserRegistry;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class OfficerService implements IOfficerService, StaffService {
    private final IProjectService projectService;
    private final IUniqueIdService uniqueIdService;
    private final IPasswordValidationService passwordValidationService;
-   private Officer officer;
+   private final SessionJournal journal;
+   // Flats of a project are booked by its own queue; one per project that has been booked from so far
+   private final Map<Integer, BookingQueue> bookingQueues = new ConcurrentHashMap<>();
 
    public OfficerService() {
 
       this.projectService = ServiceRegistry.get(IProjectService.class);
       this.uniqueIdService = ServiceRegistry.get(IUniqueIdService.class);
       this.passwordValidationService = ServiceRegistry.get(IPasswordValidationService.class);
+      this.journal = ServiceRegistry.get(SessionJournal.class);
    }
 
    private void atLogin() {
       // Check if officer object is initialized
-      if (officer == null) {
+      if (officer() == null) {
          System.out.println("Error: Officer not initialized");
          return;
       }
 
-      Project currentProject = officer.getCurrentProject();
+      Project currentProject = officer().getCurrentProject();
       RegistrationForm currentRegistrationForm = getCurrentRegistrationForm();
 
       if (currentProject != null) {
@@ -60,7 +66,8 @@ public class OfficerService implements IOfficerService, StaffService {
             setOfficerStatus(OfficerStatus.ACTIVE);
             Project project = projectService.getProjectById(currentRegistrationForm.getProjectId());
             if (project != null) {
-               officer.setCurrentProject(project);
+               officer().setCurrentProject(project);
+               journal.recordUser(officer());
                //System.outprintln("Assigned to project: " + project.getProjectName());
             }
             else {
@@ -81,7 +88,7 @@ public class OfficerService implements IOfficerService, StaffService {
 
    @Override
    public RegistrationForm createRegistrationForm(String projectName) {
-      return new RegistrationForm(uniqueIdService.generateUniqueId(IdType.REGISTRATION_FORM_ID), officer.getName(), officer.getNric(), projectService.getProjectByName(projectName).getId(), projectName);
+      return new RegistrationForm(uniqueIdService.generateUniqueId(IdType.REGISTRATION_FORM_ID), officer().getName(), officer().getNric(), projectService.getProjectByName(projectName).getId(), projectName);
    }
 
    @Override
@@ -92,82 +99,94 @@ public class OfficerService implements IOfficerService, StaffService {
    @Override
    public OfficerStatus getOfficerStatus() {
       //System.out.println("Officer status: " + officer.getOfficerStatus());
-      return officer.getOfficerStatus();
+      return officer().getOfficerStatus();
    }
 
    @Override
    public void setOfficerStatus(OfficerStatus status) {
-      officer.setOfficerStatus(status);
+      officer().setOfficerStatus(status);
+      journal.recordUser(officer());
    }
 
    @Override
    public RegistrationForm getCurrentRegistrationForm() {
-      return officer.getCurrentRegistrationForm();
+      return officer().getCurrentRegistrationForm();
    }
 
    @Override
    public void setCurrentRegistrationForm(RegistrationForm form) {
-      officer.setCurrentRegistrationForm(form);
+      officer().setCurrentRegistrationForm(form);
+      journal.recordUser(officer());
    }
 
    @Override
    public void addToMyRegistrations(RegistrationForm form) {
-      officer.addRegistrationForm(form);
+      officer().addRegistrationForm(form);
    }
 
    @Override
    public void removeRegistrationForm(RegistrationForm form) {
-      officer.removeRegistrationForm(form);
+      officer().removeRegistrationForm(form);
    }
 
    @Override
    public Project getCurrentProject() {
-      return officer.getCurrentProject();
+      return officer().getCurrentProject();
    }
 
    @Override
    public User getUser() {
-      return this.officer;
+      return officer();
    }
 
    @Override
    public void setUser(Officer officer) {
-      this.officer = officer;
+      SessionContext.current().setUser(officer);
       this.atLogin();
    }
 
+   // The officer logged in to the calling session
+   private Officer officer() {
+      return (Officer) SessionContext.current().getUser();
+   }
+
    @Override
    public void setOfficerCurrentProject(String officerName, Project currentProject) {
-      UserRegistry userRegistry = ServiceRegistry.get(UserRegistry.class);
+      UserRegistry userRegistry = ServiceRegistry.get(SessionManager.class).getUserRegistry();
       Officer officer = (Officer) userRegistry.getUser(officerName);
       officer.setCurrentProject(currentProject);
+      journal.recordUser(officer);
    }
 
    @Override
    public void bookFlat(Application application) {
-      Project project = officer.getCurrentProject();
+      Project project = officer().getCurrentProject();
       if (project == null) {
          throw new IllegalStateException("You are not assigned to any project.");
       }
 
-      // Ensure the application is successful
-      if (application.getApplicationStatus() != ApplicationStatus.SUCCESSFUL) {
-         throw new IllegalArgumentException("Only successful applications can be booked.");
-      }
-
-      // Check and decrement flat count
+      // The queue checks the application is successful, not being withdrawn and for this project, under its lock
       FlatType flatType = application.getFlatType();
-      /*Map<FlatType, Integer> remainingFlats = project.getRemainingFlats();
-
-      if (!remainingFlats.containsKey(flatType) || remainingFlats.get(flatType) <= 0) {
-         throw new IllegalStateException("No available " + flatType.toString().toLowerCase().replace("_", "-") + " flats left.");
+      System.out.println("Updating project: " + project.getProjectName());
+      BookingQueue queue = bookingQueues.computeIfAbsent(project.getId(), id -> {
+         // Checked while the entry is created, so a queue is never started after its project's was closed
+         if (projectService.getProjectById(id) == null) {
+            throw new IllegalStateException("Project '" + project.getProjectName() + "' no longer exists.");
+         }
+         return new BookingQueue(project, journal, id);
+      });
+      try {
+         queue.submit(application).join();
       }
-      remainingFlats.put(flatType, remainingFlats.get(flatType) - 1);*/
-
-      // Update project and application
-      projectService.updateProject(project, flatType);
+      catch (CompletionException e) {
+         throw e.getCause() instanceof RuntimeException cause ? cause : e;
+      }
+      catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new IllegalStateException("Interrupted while booking.");
+      }
+      System.out.println("Remaining flats after booking: " + project.getRemainingFlats());
       System.out.println("Booked a " + flatType.toString().toLowerCase().replace("_", "-") + " flat.");
-      application.setBookingStatus(BookingStatus.BOOKED);
       System.out.println("Booking successful.");
       //projectService.updateApplicationStatus(application);
 
@@ -183,6 +202,21 @@ public class OfficerService implements IOfficerService, StaffService {
       Color.println("=======================", Color.GREEN);
    }
 
+   @Override
+   public BookingQueue.Stats getBookingStats(Project project) {
+      BookingQueue queue = bookingQueues.get(project.getId());
+      return queue != null ? queue.getStats() : null;
+   }
+
+   @Override
+   public void closeBookingQueue(Project project) {
+      BookingQueue queue = bookingQueues.remove(project.getId());
+      if (queue != null) {
+         queue.close();
+         System.out.println("Closed the booking queue of project '" + project.getProjectName() + "': " + queue.getStats());
+      }
+   }
+
    @Override
    public IPasswordValidationService getPasswordValidationService() {
       return this.passwordValidationService;
@@ -1,10 +1,13 @@
 package officer;
 
+import java.io.Serial;
 import java.io.Serializable;
 import java.time.LocalDate;
 import java.util.List;
 
 public class RegistrationForm implements Serializable {
+   @Serial
+   private static final long serialVersionUID = -8778772101537740609L;
    private final Integer id;
    private final String officerName;
    private final String nric;
@@ -23,6 +26,18 @@ public class RegistrationForm implements Serializable {
       this.status = RegistrationStatus.PENDING;
    }
 
+   // Use this when restoring a persisted registration form
+   public RegistrationForm(Integer id, String officerName, String nric, Integer projectId, String projectName,
+                           LocalDate dateApplied, RegistrationStatus status) {
+      this.id = id;
+      this.officerName = officerName;
+      this.nric = nric;
+      this.projectId = projectId;
+      this.projectName = projectName;
+      this.dateApplied = dateApplied;
+      this.status = status;
+   }
+
    public Integer getId() {
       return id;
    }
@@ -2,24 +2,29 @@ package officer;
 
 import project.Project;
 import project.ProjectRegistry;
+import user.User;
+import user.UserRegistry;
 
 import java.time.LocalDate;
+import java.util.List;
 
 public class RegistrationValidationService implements IRegistrationValidationService {
    private final ProjectRegistry projectRegistry;
+   private final UserRegistry userRegistry;
 
-   public RegistrationValidationService(ProjectRegistry projectRegistry) {
+   public RegistrationValidationService(ProjectRegistry projectRegistry, UserRegistry userRegistry) {
       this.projectRegistry = projectRegistry;
+      this.userRegistry = userRegistry;
    }
 
    @Override
    public void validateRegistration(RegistrationForm form) {
-      Project targetProject = projectRegistry.getProjects().stream()
-              .filter(p -> p.getId().equals(form.getProjectId()))
-              .findFirst()
-              .orElseThrow(() -> new IllegalArgumentException("Project does not exist"));
+      Project targetProject = projectRegistry.getProjectById(form.getProjectId());
+      if (targetProject == null) {
+         throw new IllegalArgumentException("Project does not exist");
+      }
       validateNotAlreadyHandling(form.getOfficerName(), targetProject);
-      validateNoExistingRegistration(form.getNric(), targetProject);
+      validateNoExistingRegistration(form, targetProject);
       validateOfficerSlots(targetProject);
       validateApplicationPeriod(targetProject);
    }
@@ -38,21 +43,17 @@ public class RegistrationValidationService implements IRegistrationValidationSer
       }
    }
 
-   private void validateNoExistingRegistration(String nric, Project newProject) {
-      projectRegistry.getProjects().stream()
-              .filter(p -> p.getOfficers().contains(nric))
-              .filter(p -> datesOverlap(p, newProject))
-              .findAny()
+   // Officer lists hold names, so projects the officer handles are looked up by name; their own forms by NRIC
+   private void validateNoExistingRegistration(RegistrationForm form, Project newProject) {
+      User user = userRegistry.getUserByNric(form.getNric());
+      List<RegistrationForm> forms = user instanceof Officer officer ? officer.getMyRegistrationForms() : List.of();
+      new OfficerSchedule(projectRegistry, form.getOfficerName(), forms)
+              .clashBetween(newProject.getApplicationOpeningDate(), newProject.getApplicationClosingDate())
               .ifPresent(p -> {
                  throw new IllegalArgumentException("Existing officer registration in overlapping period");
               });
    }
 
-   private boolean datesOverlap(Project existing, Project newProject) {
-      return !existing.getApplicationClosingDate().isBefore(newProject.getApplicationOpeningDate()) &&
-              !existing.getApplicationOpeningDate().isAfter(newProject.getApplicationClosingDate());
-   }
-
    private void validateNotAlreadyHandling(String officer, Project project) {
       if (project.getOfficers().contains(officer)) {
          throw new IllegalArgumentException("Officer already assigned to this project");
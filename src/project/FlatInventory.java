@@ -0,0 +1,164 @@
+package project;
+
+import applicant.Application;
+import applicant.ApplicationStatus;
+import applicant.BookingStatus;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * The flats of one project, per flat type: free, held for a successful application that has not booked yet, or
+ * booked. Every change is a compare-and-set on the counters, so flats are never handed out twice without any lock.
+ * <p>
+ * The counts are not stored: they follow from the status of the project's applications, which the journal and the
+ * snapshot already keep, so an inventory is rebuilt from the applications when a project is loaded.
+ */
+public final class FlatInventory {
+   private static final FlatType[] TYPES = FlatType.values();
+   private static final int FREE = 0;
+   private static final int HELD = 1;
+   private static final int BOOKED = 2;
+   private static final int SLOTS = 3;
+
+   // SLOTS counters per flat type, in the order of FlatType
+   private final AtomicIntegerArray counts = new AtomicIntegerArray(TYPES.length * SLOTS);
+   // Told when the free flats of a type run out or come back
+   private volatile Runnable soldOutListener;
+
+   /**
+    * @param units        The number of flats of each type the project was built with.
+    * @param applications The project's applications; successful ones hold a flat, or have booked it.
+    */
+   FlatInventory(Map<FlatType, Integer> units, List<Application> applications) {
+      for (Application application : applications) {
+         if (application.getApplicationStatus() == ApplicationStatus.SUCCESSFUL && application.getFlatType() != null) {
+            boolean booked = application.getBookingStatus() == BookingStatus.BOOKED;
+            counts.incrementAndGet(slot(application.getFlatType(), booked ? BOOKED : HELD));
+         }
+      }
+      for (FlatType type : TYPES) {
+         // Data from before the inventory may have approved more applications than there are flats; only as many
+         // as there are flats left hold one, the rest can no longer book
+         int left = Math.max(0, units.getOrDefault(type, 0) - counts.get(slot(type, BOOKED)));
+         int held = Math.min(counts.get(slot(type, HELD)), left);
+         counts.set(slot(type, HELD), held);
+         counts.set(slot(type, FREE), left - held);
+      }
+   }
+
+   /**
+    * Holds a free flat, e.g. for an application that is being approved.
+    *
+    * @return false if there is no free flat of the type left.
+    */
+   public boolean reserve(FlatType type) {
+      int free = take(slot(type, FREE));
+      if (free == 0) {
+         return false;
+      }
+      counts.incrementAndGet(slot(type, HELD));
+      if (free == 1) {
+         soldOutChanged();
+      }
+      return true;
+   }
+
+   /**
+    * Books a held flat.
+    *
+    * @throws IllegalStateException If no flat of the type is held.
+    */
+   public void confirm(FlatType type) {
+      if (take(slot(type, HELD)) == 0) {
+         throw new IllegalStateException("No " + type + " flat is held for booking");
+      }
+      counts.incrementAndGet(slot(type, BOOKED));
+   }
+
+   /**
+    * Frees a held flat, e.g. when the application holding it is withdrawn before booking.
+    *
+    * @throws IllegalStateException If no flat of the type is held.
+    */
+   public void release(FlatType type) {
+      if (take(slot(type, HELD)) == 0) {
+         throw new IllegalStateException("No " + type + " flat is held");
+      }
+      free(type);
+   }
+
+   /**
+    * Frees a booked flat, e.g. when a booked application is withdrawn.
+    *
+    * @throws IllegalStateException If no flat of the type is booked.
+    */
+   public void unbook(FlatType type) {
+      if (take(slot(type, BOOKED)) == 0) {
+         throw new IllegalStateException("No " + type + " flat is booked");
+      }
+      free(type);
+   }
+
+   public int remaining(FlatType type) {
+      return counts.get(slot(type, FREE));
+   }
+
+   public int held(FlatType type) {
+      return counts.get(slot(type, HELD));
+   }
+
+   public int booked(FlatType type) {
+      return counts.get(slot(type, BOOKED));
+   }
+
+   // The free flats of every type, as read one type at a time
+   public Map<FlatType, Integer> remaining() {
+      Map<FlatType, Integer> remaining = new EnumMap<>(FlatType.class);
+      for (FlatType type : TYPES) {
+         remaining.put(type, remaining(type));
+      }
+      return Collections.unmodifiableMap(remaining);
+   }
+
+   /**
+    * Sets what to tell when the free flats of any type run out, or come back after running out, e.g. so that an
+    * index of the projects with free flats can be dropped. Replaces the one set before. It is called while the
+    * project's lock may be held, so it must not take any lock itself.
+    */
+   void onSoldOutChange(Runnable listener) {
+      this.soldOutListener = listener;
+   }
+
+   private void free(FlatType type) {
+      if (counts.incrementAndGet(slot(type, FREE)) == 1) {
+         soldOutChanged();
+      }
+   }
+
+   private void soldOutChanged() {
+      Runnable listener = soldOutListener;
+      if (listener != null) {
+         listener.run();
+      }
+   }
+
+   // Decrements the counter unless it is already zero; returns what it was, so 0 if nothing was taken
+   private int take(int slot) {
+      int current;
+      do {
+         current = counts.get(slot);
+         if (current <= 0) {
+            return 0;
+         }
+      } while (!counts.weakCompareAndSetVolatile(slot, current, current - 1));
+      return current;
+   }
+
+   private static int slot(FlatType type, int state) {
+      return type.ordinal() * SLOTS + state;
+   }
+}
@@ -34,21 +34,30 @@ public interface IProjectService {
 
    void removeProjectFromRegistry(Project project);
 
+   void renameProject(Project project, String projectName);
+
+   void saveProject(Project project);
+
    List<Project> getFilteredProjects(Predicate<Project> predicate);
 
    void validateNewProject(Project project) throws IllegalArgumentException;
 
+   // Adds the form to its project and to the officer who sent it
    void addRegistrationToProject(RegistrationForm form);
 
+   // Adds the enquiry to its project and to the applicant who made it
    void addEnquiryToProject(Enquiry enquiry);
 
+   // Removes the enquiry from its project and from the applicant who made it
    void removeEnquiryFromProject(Enquiry enquiry);
 
    List<List<String>> getEnquiriesFrom(String projectId);
 
    List<List<String>> getAllEnquiriesFromAllProjects();
 
-   void addApplicationToProject(Application application);
+   Application getApplication(String applicantNric, Integer projectId);
 
-   void updateProject(Project project, FlatType flatType);
+   // Adds the application to its project and to the applicant who made it; throws IllegalArgumentException if the
+   // applicant already has an active application
+   void addApplicationToProject(Application application);
 }
\ No newline at end of file
@@ -2,7 +2,11 @@ package project;
 
 import applicant.Application;
 import enquiry.Enquiry;
+import helper.concurrent.GuardedList;
+import interfaces.LazyLoader;
+import officer.BookingQueue;
 import officer.RegistrationForm;
+import system.EntityLocks;
 
 import java.io.Serial;
 import java.io.Serializable;
@@ -19,7 +23,6 @@ public class Project implements Serializable {
    private final String manager;
    private final Map<FlatType, Double> flatPrices;
    private final Map<FlatType, Integer> availableFlats;
-   private final Map<FlatType, Integer> remainingFlats;//Officer can modify
    private final List<String> officers;
    private final List<RegistrationForm> registrationForms = new ArrayList<>();
    private final List<Application> applications = new ArrayList<>();
@@ -32,6 +35,17 @@ public class Project implements Serializable {
    private LocalDate applicationClosingDate;
    private boolean visibility = true;
    private Integer availableOfficerSlots;
+   // Read by the project's booking queue before every batch; null in projects saved before it was kept
+   private volatile BookingQueue.Order bookingOrder = BookingQueue.Order.FIRST_COME_FIRST_SERVED;
+   // Set while the registration forms, applications and enquiries are still in the snapshot file
+   private transient volatile LazyLoader<Project> childLoader;
+   // Built from the applications when first needed
+   private transient volatile FlatInventory inventory;
+   // The lists as handed out, made on first use; a wrapper only has final fields, so one made twice by a race is safe
+   private transient List<String> officersView;
+   private transient List<RegistrationForm> registrationFormsView;
+   private transient List<Application> applicationsView;
+   private transient List<Enquiry> enquiriesView;
 
    // Use this when Manager wants to create a new project
    public Project(int id, String projectName, String neighborhood, Integer twoRoomUnits, Double twoRoomPrice,
@@ -43,7 +57,6 @@ public class Project implements Serializable {
       this.neighborhood = neighborhood;
       this.flatPrices = Map.of(FlatType.TWO_ROOM, twoRoomPrice, FlatType.THREE_ROOM, threeRoomPrice);
       this.availableFlats = Map.of(FlatType.TWO_ROOM, twoRoomUnits, FlatType.THREE_ROOM, threeRoomUnits);
-      this.remainingFlats = Map.of(FlatType.TWO_ROOM, twoRoomUnits, FlatType.THREE_ROOM, threeRoomUnits);
       this.applicationOpeningDate = applicationOpeningDate;
       this.applicationClosingDate = applicationClosingDate;
       this.manager = manager;
@@ -52,6 +65,21 @@ public class Project implements Serializable {
    }
    // =================== Immutable Project Details ===================
 
+   // Leaves the child lists empty until one of them is first used
+   public void setChildLoader(LazyLoader<Project> childLoader) {
+      this.childLoader = childLoader;
+   }
+
+   // Cleared only once loaded, so other threads wait in the loader until then. The loader adds the children through
+   // this object, and ignores being called again for a project it has already paged in
+   private void pageIn() {
+      LazyLoader<Project> loader = childLoader;
+      if (loader != null) {
+         loader.load(this);
+         childLoader = null;
+      }
+   }
+
    public Integer getId() {
       return id;
    }
@@ -68,32 +96,74 @@ public class Project implements Serializable {
       return availableFlats;
    }
 
+   // Flats neither held for a successful application nor booked
    public Map<FlatType, Integer> getRemainingFlats() {
-      return remainingFlats;
+      return getInventory().remaining();
+   }
+
+   public FlatInventory getInventory() {
+      FlatInventory current = inventory;
+      return current != null ? current : buildInventory();
    }
 
+   // Built without holding this object's monitor, which a reader would otherwise hold while waiting for the
+   // project's lock; if two threads build one, the first one set is kept
+   private FlatInventory buildInventory() {
+      FlatInventory built = new FlatInventory(availableFlats, getApplications());
+      synchronized (this) {
+         if (inventory == null) {
+            inventory = built;
+         }
+         return inventory;
+      }
+   }
+
+   // The lists below are guarded by the project's lock, see EntityLocks
    public List<String> getOfficers() {
-      return officers;
+      List<String> guarded = officersView;
+      if (guarded == null) {
+         guarded = new GuardedList<>(officers, EntityLocks.of(this));
+         officersView = guarded;
+      }
+      return guarded;
    }
 
    public List<RegistrationForm> getRegistrationForms() {
-      return registrationForms;
+      pageIn();
+      List<RegistrationForm> guarded = registrationFormsView;
+      if (guarded == null) {
+         guarded = new GuardedList<>(registrationForms, EntityLocks.of(this));
+         registrationFormsView = guarded;
+      }
+      return guarded;
    }
 
    public void addRegistrationForm(RegistrationForm registrationForm) {
-      registrationForms.add(registrationForm);
+      getRegistrationForms().add(registrationForm);
    }
 
    public void removeRegistrationForm(RegistrationForm registrationForm) {
-      registrationForms.remove(registrationForm);
+      getRegistrationForms().remove(registrationForm);
    }
 
    public List<Application> getApplications() {
-      return applications;
+      pageIn();
+      List<Application> guarded = applicationsView;
+      if (guarded == null) {
+         guarded = new GuardedList<>(applications, EntityLocks.of(this));
+         applicationsView = guarded;
+      }
+      return guarded;
    }
 
    public List<Enquiry> getEnquiries() {
-      return enquiries;
+      pageIn();
+      List<Enquiry> guarded = enquiriesView;
+      if (guarded == null) {
+         guarded = new GuardedList<>(enquiries, EntityLocks.of(this));
+         enquiriesView = guarded;
+      }
+      return guarded;
    }
 
    public String getProjectName() {
@@ -101,6 +171,7 @@ public class Project implements Serializable {
    }
 
    public void setProjectName(String projectName) {
+      pageIn(); // the snapshot stores children's project name relative to the current one
       this.projectName = projectName;
    }
 
@@ -136,6 +207,14 @@ public class Project implements Serializable {
       this.visibility = visibility;
    }
 
+   public BookingQueue.Order getBookingOrder() {
+      return bookingOrder != null ? bookingOrder : BookingQueue.Order.FIRST_COME_FIRST_SERVED;
+   }
+
+   public void setBookingOrder(BookingQueue.Order bookingOrder) {
+      this.bookingOrder = bookingOrder;
+   }
+
    public Integer getAvailableOfficerSlots() {
       return availableOfficerSlots;
    }
@@ -162,27 +241,27 @@ public class Project implements Serializable {
 
    //Setters
    public void addEnquiry(Enquiry enquiry) {
-      enquiries.add(enquiry);
+      getEnquiries().add(enquiry);
    }
 
    public void removeEnquiry(Enquiry enquiry) {
-      enquiries.remove(enquiry);
+      getEnquiries().remove(enquiry);
    }
 
    public void addApplication(Application application) {
-      applications.add(application);
+      getApplications().add(application);
    }
 
    public void removeApplication(Application application) {
-      applications.remove(application);
+      getApplications().remove(application);
    }
 
    public void addOfficer(String officer) {
-      officers.add(officer);
+      getOfficers().add(officer);
    }
 
    public void removeOfficer(String officer) {
-      officers.remove(officer);
+      getOfficers().remove(officer);
    }
 
 // =================== Mutable Project Metadata ===================
@@ -192,7 +271,7 @@ public class Project implements Serializable {
 
    //"Project ID", "Project Name", "Neighbourhood", "Visibility", "Two Room Units", "Two Room Price", "Three Room Units", "Three Room Price", "Appln..Opening Date", "Appln..Closing Date", "Manager", "Officer Slots", "Officers"
    public List<String> toStringAsList() {
-      return List.of(id.toString(), projectName, neighborhood, visibility ? "Visible" : "Hidden", getTwoRoomUnits().toString(), getTwoRoomPrice().toString(), getThreeRoomUnits().toString(), getThreeRoomPrice().toString(), applicationOpeningDate.toString(), applicationClosingDate.toString(), manager, availableOfficerSlots.toString(), officers.toString());
+      return List.of(id.toString(), projectName, neighborhood, visibility ? "Visible" : "Hidden", getTwoRoomUnits().toString(), getTwoRoomPrice().toString(), getThreeRoomUnits().toString(), getThreeRoomPrice().toString(), applicationOpeningDate.toString(), applicationClosingDate.toString(), manager, availableOfficerSlots.toString(), getOfficers().toString());
    }
 
    @Override // to print as a form like
@@ -210,38 +289,10 @@ public class Project implements Serializable {
               "Closing Date        : " + applicationClosingDate + "\n" +
               "Manager             : " + manager + "\n" +
               "Officer Slots       : " + availableOfficerSlots + "\n" +
-              "Officers            : " + ((officers.isEmpty()) ? "N/A" : officers) + "\n" +
+              "Officers            : " + ((getOfficers().isEmpty()) ? "N/A" : getOfficers()) + "\n" +
               "==============================================";
    }
 
-
-   public void decrementRemainingFlat(FlatType flatType) {
-      Integer currentCount = remainingFlats.get(flatType);
-      if (currentCount == null || currentCount <= 0) {
-         throw new IllegalStateException("No remaining " + flatType + " flats available");
-      }
-      remainingFlats.put(flatType, currentCount - 1);
-   }
-
-   /**
-    * Decrements the number of remaining two-room flats by one.
-    *
-    * @throws IllegalStateException if there are no remaining two-room flats
-    */
-   public void decrementRemainingTwoRoomFlat() {
-      decrementRemainingFlat(FlatType.TWO_ROOM);
-   }
-
-   /**
-    * Decrements the number of remaining three-room flats by one.
-    *
-    * @throws IllegalStateException if there are no remaining three-room flats
-    */
-   public void decrementRemainingThreeRoomFlat() {
-      decrementRemainingFlat(FlatType.THREE_ROOM);
-   }
-
-
 }
 
 
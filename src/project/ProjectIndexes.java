@@ -0,0 +1,253 @@
+package project;
+
+import helper.IntervalTree;
+import user.UserFilterSettings;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Secondary indexes over one version of the project registry, used to answer {@link UserFilterSettings} queries.
+ * Projects are referred to by their position in the registry view so results come back in registry order.
+ * Built on first use and thrown away by the registry whenever a project is added, removed or edited. The flat type
+ * index follows the free flats in each project's {@link FlatInventory}, which change without the registry knowing,
+ * so it is built on the first query by flat type and dropped again whenever a project's free flats of a type run
+ * out or come back.
+ */
+final class ProjectIndexes {
+   private enum Access { SCAN, NEIGHBOURHOOD, FLAT_TYPE, DATE }
+
+   private final List<Project> projects;
+   private final Map<Project, Integer> positions;
+   // Lower-cased once here instead of on every comparison
+   private final String[] names;
+   private final String[] neighbourhoods;
+   // Lower-cased neighbourhood -> positions, ascending
+   private final Map<String, int[]> byNeighbourhood;
+   // Flat type -> positions of projects with free units of it, ascending; null until needed or after a change
+   private volatile Map<FlatType, int[]> byFlatType;
+   // Bumped whenever a project's free flats of a type run out or come back
+   private final AtomicInteger flatChanges = new AtomicInteger();
+   // Application period of every project that has both dates, as epoch days
+   private final IntervalTree<Integer> byDate;
+
+   ProjectIndexes(List<Project> projects) {
+      this.projects = projects;
+      int size = projects.size();
+      this.positions = new IdentityHashMap<>(size);
+      this.names = new String[size];
+      this.neighbourhoods = new String[size];
+
+      Map<String, List<Integer>> hoods = new HashMap<>();
+      List<Integer> dated = new ArrayList<>();
+      for (int i = 0; i < size; i++) {
+         Project project = projects.get(i);
+         positions.put(project, i);
+         names[i] = lowerCase(project.getProjectName());
+         neighbourhoods[i] = lowerCase(project.getNeighborhood());
+         if (neighbourhoods[i] != null) {
+            hoods.computeIfAbsent(neighbourhoods[i], k -> new ArrayList<>()).add(i);
+         }
+         if (project.getApplicationOpeningDate() != null && project.getApplicationClosingDate() != null) {
+            dated.add(i);
+         }
+      }
+
+      this.byNeighbourhood = new HashMap<>(hoods.size() * 2);
+      hoods.forEach((hood, list) -> byNeighbourhood.put(hood, toArray(list)));
+      this.byDate = new IntervalTree<>(dated,
+              i -> projects.get(i).getApplicationOpeningDate().toEpochDay(),
+              i -> projects.get(i).getApplicationClosingDate().toEpochDay());
+   }
+
+   // Whether these indexes were built from the given registry view
+   boolean covers(List<Project> view) {
+      return projects == view;
+   }
+
+   /**
+    * Projects out of {@code within} that match every filter in {@code filters}, in the order of {@code within}.
+    * When {@code within} is the registry view the most selective index drives the query and only its candidates
+    * are checked against the remaining filters; any other list is scanned, still using the pre-computed fields.
+    */
+   List<Project> query(UserFilterSettings filters, List<Project> within) {
+      if (within != projects) {
+         return scan(filters, within);
+      }
+
+      // Pick the access path that leaves the fewest candidates
+      Access access = Access.SCAN;
+      int estimate = projects.size();
+      List<int[]> hoodMatches = null;
+      if (filters.getNeighbourhood() != null) {
+         hoodMatches = neighbourhoodMatches(filters.getNeighbourhood());
+         int count = hoodMatches.stream().mapToInt(list -> list.length).sum();
+         if (count < estimate) {
+            access = Access.NEIGHBOURHOOD;
+            estimate = count;
+         }
+      }
+      int[] flatTypeMatches = null;
+      if (filters.getFlatType() != null) {
+         flatTypeMatches = flatTypeIndex().getOrDefault(filters.getFlatType(), new int[0]);
+         int count = flatTypeMatches.length;
+         if (count < estimate) {
+            access = Access.FLAT_TYPE;
+            estimate = count;
+         }
+      }
+      if (filters.getDate() != null) {
+         int count = byDate.countContaining(filters.getDate().toEpochDay());
+         if (count < estimate) {
+            access = Access.DATE;
+         }
+      }
+
+      int[] candidates = switch (access) {
+         case SCAN -> null;
+         case NEIGHBOURHOOD -> merge(hoodMatches);
+         case FLAT_TYPE -> flatTypeMatches;
+         case DATE -> dateMatches(filters.getDate());
+      };
+
+      List<Project> result = new ArrayList<>();
+      int count = candidates == null ? projects.size() : candidates.length;
+      for (int c = 0; c < count; c++) {
+         int i = candidates == null ? c : candidates[c];
+         if (matches(i, filters, access)) {
+            result.add(projects.get(i));
+         }
+      }
+      return result;
+   }
+
+   private List<Project> scan(UserFilterSettings filters, List<Project> within) {
+      List<Project> result = new ArrayList<>();
+      for (Project project : within) {
+         Integer i = positions.get(project);
+         if (i != null ? matches(i, filters, Access.SCAN) : matchesDirectly(project, filters)) {
+            result.add(project);
+         }
+      }
+      return result;
+   }
+
+   // Residual filters, skipping the one the access path already answered
+   private boolean matches(int i, UserFilterSettings filters, Access answered) {
+      if (filters.getProjectName() != null && (names[i] == null || !names[i].contains(filters.getProjectName()))) {
+         return false;
+      }
+      if (answered != Access.NEIGHBOURHOOD && filters.getNeighbourhood() != null &&
+              (neighbourhoods[i] == null || !neighbourhoods[i].contains(filters.getNeighbourhood()))) {
+         return false;
+      }
+      Project project = projects.get(i);
+      // Checked again even when the index answered it, as flats may have gone since it was built
+      if (filters.getFlatType() != null && !hasUnits(project, filters.getFlatType())) {
+         return false;
+      }
+      return answered == Access.DATE || filters.getDate() == null || isOpenOn(project, filters.getDate());
+   }
+
+   // For projects the registry did not hold when these indexes were built
+   private static boolean matchesDirectly(Project project, UserFilterSettings filters) {
+      String name = lowerCase(project.getProjectName());
+      String hood = lowerCase(project.getNeighborhood());
+      return (filters.getProjectName() == null || name != null && name.contains(filters.getProjectName())) &&
+              (filters.getNeighbourhood() == null || hood != null && hood.contains(filters.getNeighbourhood())) &&
+              (filters.getFlatType() == null || hasUnits(project, filters.getFlatType())) &&
+              (filters.getDate() == null || isOpenOn(project, filters.getDate()));
+   }
+
+   // Built outside the registry's lock, since reading the free flats may page projects in
+   private Map<FlatType, int[]> flatTypeIndex() {
+      Map<FlatType, int[]> built = byFlatType;
+      if (built != null) {
+         return built;
+      }
+      int changes = flatChanges.get();
+      Map<FlatType, List<Integer>> flats = new EnumMap<>(FlatType.class);
+      for (int i = 0; i < projects.size(); i++) {
+         FlatInventory inventory = projects.get(i).getInventory();
+         // Listening before reading, so a change right after the read is not missed
+         inventory.onSoldOutChange(this::flatsChanged);
+         for (FlatType flatType : FlatType.values()) {
+            if (inventory.remaining(flatType) > 0) {
+               flats.computeIfAbsent(flatType, k -> new ArrayList<>()).add(i);
+            }
+         }
+      }
+      built = new EnumMap<>(FlatType.class);
+      for (Map.Entry<FlatType, List<Integer>> entry : flats.entrySet()) {
+         built.put(entry.getKey(), toArray(entry.getValue()));
+      }
+      byFlatType = built;
+      // Flats ran out or came back while this was built; it still answers this query, but is built again next time
+      if (flatChanges.get() != changes) {
+         byFlatType = null;
+      }
+      return built;
+   }
+
+   // Called by the inventories while a project's lock may be held, so it takes no lock
+   private void flatsChanged() {
+      flatChanges.incrementAndGet();
+      byFlatType = null;
+   }
+
+   // Neighbourhood filters are substrings, so every distinct neighbourhood containing the filter contributes
+   private List<int[]> neighbourhoodMatches(String filter) {
+      List<int[]> matches = new ArrayList<>();
+      byNeighbourhood.forEach((hood, list) -> {
+         if (hood.contains(filter)) {
+            matches.add(list);
+         }
+      });
+      return matches;
+   }
+
+   private int[] dateMatches(LocalDate date) {
+      List<Integer> open = byDate.containing(date.toEpochDay());
+      int[] result = toArray(open);
+      Arrays.sort(result);
+      return result;
+   }
+
+   private static int[] merge(List<int[]> lists) {
+      if (lists.isEmpty()) {
+         return new int[0];
+      }
+      if (lists.size() == 1) {
+         return lists.getFirst();
+      }
+      int[] result = lists.stream().flatMapToInt(Arrays::stream).toArray();
+      Arrays.sort(result);
+      return result;
+   }
+
+   // Units neither held for a successful application nor booked
+   private static boolean hasUnits(Project project, FlatType flatType) {
+      return project.getInventory().remaining(flatType) > 0;
+   }
+
+   private static boolean isOpenOn(Project project, LocalDate date) {
+      LocalDate opening = project.getApplicationOpeningDate();
+      LocalDate closing = project.getApplicationClosingDate();
+      return opening != null && closing != null && !date.isBefore(opening) && !date.isAfter(closing);
+   }
+
+   private static String lowerCase(String value) {
+      return value == null ? null : value.toLowerCase();
+   }
+
+   private static int[] toArray(List<Integer> list) {
+      return list.stream().mapToInt(Integer::intValue).toArray();
+   }
+}
@@ -2,36 +2,137 @@ package project;
 
 import UniqueID.IUniqueIdService;
 import UniqueID.IdType;
+import applicant.Application;
+import helper.IntervalTree;
+import helper.storage.AtomicFile;
 import interfaces.Filterable;
+import interfaces.LazyLoader;
 import system.ServiceRegistry;
+import system.SessionJournal;
+import user.UserFilterSettings;
 
 import java.io.*;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
-// This class is used to store all projects in a list
+// This class is used to store all projects in a list.
+// Safe for concurrent sessions: changes to the set of projects are synchronized, lookups go through concurrent maps
+// and immutable views without locking. Nothing is paged in or journaled while the registry's lock is held, and a
+// project's lock is only ever taken after it, see EntityLocks.
 public class ProjectRegistry implements Serializable, Filterable<Project> {
    @Serial
    private static final long serialVersionUID = 1L;
    private static final String filePath = "./data/projectRegistry.dat";
+   private static final IntervalTree<Project> NO_WINDOWS = windowsOf(List.of());
    private final List<Project> projects;
+   // Lookup indexes over projects, kept in step by add/remove/rename and rebuilt after deserialization
+   private transient volatile Map<Integer, Project> projectsById;
+   private transient volatile Map<String, Project> projectsByName;
+   // Immutable copy of projects handed to readers; dropped on every change and rebuilt on the next read
+   private transient volatile List<Project> view;
+   // Bumped on every add/remove/rename so callers can tell whether a view they kept is still current
+   private transient volatile int version;
+   // Secondary indexes for filter queries over the current view; dropped with it and rebuilt on the next query
+   private transient volatile ProjectIndexes indexes;
+   // Officer name -> application periods of the projects they handle; dropped and rebuilt like the indexes
+   private transient volatile Map<String, IntervalTree<Project>> officerWindows;
+   // Applicant NRIC -> project id -> their application there. An applicant's entry is filled from their own
+   // applications on their first lookup, which only pages in the projects they applied to, and is kept current by
+   // indexApplication, unindexApplication and removeProject from then on.
+   private transient Map<String, Map<Integer, Application>> applicationsByApplicant;
+   // Where an applicant's entry is filled from; no applications are known without it
+   private transient Function<String, List<Application>> applicationsOf;
+   // Mutations are appended here instead of re-serializing the whole registry; null while loading.
+   private transient SessionJournal journal;
+   // Set while the projects are still being read after a fast start; every lookup waits in it until they are in
+   private transient volatile LazyLoader<ProjectRegistry> loader;
 
    public ProjectRegistry() {
       this.projects = new ArrayList<>();
+      reindex();
    }
 
 
    // We will always use this because we will always be loading projects from csv.
    public ProjectRegistry(List<Project> projects) {
       this.projects = projects;
+      reindex();
    }
 
-   public void createDummyProjects() {
+   @Serial
+   private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+      in.defaultReadObject();
+      reindex();
+   }
+
+   private synchronized void reindex() {
+      changed();
+      applicationsByApplicant = new ConcurrentHashMap<>();
+      projectsById = new ConcurrentHashMap<>(projects.size() * 2);
+      projectsByName = new ConcurrentHashMap<>(projects.size() * 2);
+      projects.forEach(this::index);
+   }
+
+   private void changed() {
+      view = null;
+      indexes = null;
+      officerWindows = null;
+      version++;
+   }
+
+   private void index(Project project) {
+      projectsById.put(project.getId(), project);
+      // Names are meant to be unique; if they are not, the earliest project keeps the name like a scan would
+      if (project.getProjectName() != null) {
+         projectsByName.putIfAbsent(project.getProjectName(), project);
+      }
+   }
+
+   // Drops the name entry of a project and hands the name to the next project that has it, if any
+   private void unindexName(Project project, String name) {
+      if (name != null && projectsByName.get(name) == project) {
+         projectsByName.remove(name);
+         projects.stream()
+                 .filter(p -> p != project && p.getProjectName().equals(name))
+                 .findFirst()
+                 .ifPresent(p -> projectsByName.put(name, p));
+      }
+   }
+
+   // Attach once loading/replay is done; every later add/remove is then recorded in the journal.
+   /**
+    * Makes every lookup call the loader first, until it is set back to null. The loader fills the registry in, and
+    * must return right away when the thread filling it in looks something up meanwhile; it is called before any of
+    * the registry's own locks is taken.
+    */
+   public void setLoader(LazyLoader<ProjectRegistry> loader) {
+      this.loader = loader;
+   }
+
+   private void awaitLoader() {
+      LazyLoader<ProjectRegistry> pending = loader;
+      if (pending != null) {
+         pending.load(this);
+      }
+   }
+
+   public void setJournal(SessionJournal journal) {
+      this.journal = journal;
+   }
+
+   public synchronized void createDummyProjects() {
       // Clear existing projects to avoid duplicates when called multiple times
       projects.clear();
+      reindex();
 
       // Create dummy projects with realistic data
       for (int i = 1; i <= 10; i++) {
@@ -69,7 +170,9 @@ public class ProjectRegistry implements Serializable, Filterable<Project> {
          );
          project.setVisibility(true);
          projects.add(project);
+         index(project);
       }
+      changed();
       save();
       System.out.println("Dummy projects created and saved.");
    }
@@ -89,22 +192,225 @@ public class ProjectRegistry implements Serializable, Filterable<Project> {
    // Only for other service classes to view and filter, cannot make any changes to the original list.
    // Cannot modify the original list structure (add/remove projects).
    // Please use add or remove methods explicitly if manager wants to add or remove projects.
+   // The returned list is immutable and shared between callers until the registry next changes, so it is
+   // never copied per call; a caller holding on to it keeps seeing the projects as they were at that point.
    public List<Project> getProjects() {
-      return List.copyOf(projects);
+      awaitLoader();
+      List<Project> current = view;
+      if (current == null) {
+         synchronized (this) {
+            current = view;
+            if (current == null) {
+               current = List.copyOf(projects);
+               view = current;
+            }
+         }
+      }
+      return current;
+   }
+
+   // Changes whenever projects are added, removed or renamed
+   public int getVersion() {
+      return version;
+   }
+
+   public Project getProjectById(Integer projectId) {
+      awaitLoader();
+      return projectId == null ? null : projectsById.get(projectId);
+   }
+
+   public Project getProjectByName(String projectName) {
+      awaitLoader();
+      return projectName == null ? null : projectsByName.get(projectName);
+   }
+
+   /**
+    * Projects out of {@code within} that pass every filter in {@code filters}, in the order of {@code within}.
+    * Pass {@link #getProjects()} itself to let the most selective secondary index drive the query.
+    */
+   public List<Project> findProjects(UserFilterSettings filters, List<Project> within) {
+      List<Project> current = getProjects();
+      ProjectIndexes built = indexes;
+      if (built == null || !built.covers(current)) {
+         // Built under the lock, so an edit in between cannot leave indexes of the project as it was behind
+         synchronized (this) {
+            current = getProjects();
+            built = indexes;
+            if (built == null || !built.covers(current)) {
+               built = new ProjectIndexes(current);
+               indexes = built;
+            }
+         }
+      }
+      return built.query(filters, within);
+   }
+
+   // Edits to neighbourhood, dates or units must come through here so the filter indexes are rebuilt
+   public synchronized void projectChanged(Project project) {
+      if (projectsById.get(project.getId()) == project) {
+         indexes = null;
+         officerWindows = null;
+      }
+   }
+
+   /**
+    * Application periods of the projects whose officer list names this officer, for O(log n) overlap checks.
+    */
+   public IntervalTree<Project> getOfficerWindows(String officerName) {
+      awaitLoader();
+      Map<String, IntervalTree<Project>> windows = officerWindows;
+      if (windows == null) {
+         synchronized (this) {
+            windows = officerWindows;
+            if (windows == null) {
+               windows = buildOfficerWindows();
+               officerWindows = windows;
+            }
+         }
+      }
+      return windows.getOrDefault(officerName, NO_WINDOWS);
+   }
+
+   private Map<String, IntervalTree<Project>> buildOfficerWindows() {
+      Map<String, List<Project>> handled = new HashMap<>();
+      for (Project project : getProjects()) {
+         if (project.getApplicationOpeningDate() == null || project.getApplicationClosingDate() == null) {
+            continue;
+         }
+         for (String officer : project.getOfficers()) {
+            handled.computeIfAbsent(officer, k -> new ArrayList<>()).add(project);
+         }
+      }
+      Map<String, IntervalTree<Project>> windows = new HashMap<>(handled.size() * 2);
+      handled.forEach((officer, list) -> windows.put(officer, windowsOf(list)));
+      return windows;
+   }
+
+   public static IntervalTree<Project> windowsOf(List<Project> projects) {
+      return new IntervalTree<>(projects,
+              p -> p.getApplicationOpeningDate().toEpochDay(),
+              p -> p.getApplicationClosingDate().toEpochDay());
+   }
+
+   /**
+    * The application the applicant with this NRIC has made for the project, or null if they have not applied.
+    */
+   public Application getApplication(String applicantNric, Integer projectId) {
+      awaitLoader();
+      return applicationsByApplicant.computeIfAbsent(applicantNric, this::applicationsByProject).get(projectId);
+   }
+
+   /**
+    * Where the applications of an applicant are read from the first time they are looked up, e.g. the applicant's
+    * own list of applications.
+    */
+   public void indexApplicationsOf(Function<String, List<Application>> applicationsOf) {
+      this.applicationsOf = applicationsOf;
+      applicationsByApplicant.clear();
+   }
+
+   private Map<Integer, Application> applicationsByProject(String applicantNric) {
+      Map<Integer, Application> applications = new ConcurrentHashMap<>();
+      if (applicationsOf != null) {
+         applicationsOf.apply(applicantNric).forEach(a -> applications.put(a.getProjectId(), a));
+      }
+      return applications;
+   }
+
+   // Must be called whenever an application is added to one of the projects
+   public void indexApplication(Application application) {
+      Map<Integer, Application> applications = applicationsByApplicant.get(application.getApplicantNric());
+      if (applications != null) {
+         applications.put(application.getProjectId(), application);
+      }
+   }
+
+   // Must be called whenever an application is taken out of its project
+   public void unindexApplication(Application application) {
+      Map<Integer, Application> applications = applicationsByApplicant.get(application.getApplicantNric());
+      if (applications != null) {
+         applications.remove(application.getProjectId(), application);
+      }
    }
 
    public void addProject(Project project) {
-      projects.add(project);
-      save();
+      synchronized (this) {
+         projects.add(project);
+         index(project);
+         changed();
+      }
+      if (journal != null) {
+         journal.recordProject(project);
+      }
+   }
+
+   /**
+    * Adds many projects at once as a single batch, e.g. when loading from the data file. The lookup maps are
+    * indexed in one pass sized for the result, the cached views and indexes are invalidated once, and an attached
+    * journal receives all the records with a single flush.
+    */
+   public void addProjects(Collection<Project> batch) {
+      synchronized (this) {
+         projects.addAll(batch);
+         if (batch.size() > projectsById.size()) {
+            // Cheaper to index everything once into maps sized for the result than to grow them as the batch goes in;
+            // readers keep the old maps until the new ones are full
+            Map<Integer, Project> byId = new ConcurrentHashMap<>(projects.size() * 2);
+            Map<String, Project> byName = new ConcurrentHashMap<>(projects.size() * 2);
+            for (Project project : projects) {
+               byId.put(project.getId(), project);
+               if (project.getProjectName() != null) {
+                  byName.putIfAbsent(project.getProjectName(), project);
+               }
+            }
+            projectsById = byId;
+            projectsByName = byName;
+         }
+         else {
+            batch.forEach(this::index);
+         }
+         changed();
+      }
+      if (journal != null && !batch.isEmpty()) {
+         journal.recordProjects(batch);
+      }
    }
 
    public void removeProject(Project project) {
-      projects.remove(project);
+      synchronized (this) {
+         if (!projects.remove(project)) {
+            return;
+         }
+         projectsById.remove(project.getId(), project);
+         unindexName(project, project.getProjectName());
+         // Without paging the project in
+         applicationsByApplicant.values().forEach(applications -> applications.remove(project.getId()));
+         changed();
+      }
+      if (journal != null) {
+         journal.recordProjectRemoved(project);
+      }
+   }
+
+   // Renames must go through here so that getProjectByName keeps finding the project
+   public void renameProject(Project project, String projectName) {
+      // A rename pages the project in, and the snapshot pager's lock comes before the registry's, so that is done
+      // first; setProjectName then finds it paged in and takes no other lock
+      project.getApplications();
+      synchronized (this) {
+         String oldName = project.getProjectName();
+         project.setProjectName(projectName);
+         if (projects.contains(project)) {
+            unindexName(project, oldName);
+            projectsByName.putIfAbsent(projectName, project);
+            changed();
+         }
+      }
    }
 
-   public void save() {
-      try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(filePath))) {
-         oos.writeObject(this);
+   public synchronized void save() {
+      try {
+         writeTo(filePath, this);
          System.out.println("ProjectRegistry saved successfully to " + filePath);
       }
       catch (IOException e) {
@@ -113,16 +419,25 @@ public class ProjectRegistry implements Serializable, Filterable<Project> {
       }
    }
 
+   // Replaced whole through a temp file and checksummed, so a crash mid-write leaves the previous file
+   private static void writeTo(String path, Object registry) throws IOException {
+      AtomicFile.writeChecksummed(Path.of(path), out -> {
+         ObjectOutputStream oos = new ObjectOutputStream(out);
+         oos.writeObject(registry);
+         oos.flush();
+      });
+   }
+
    @Override
    public List<Project> filter(Predicate<Project> predicate) {
-      return projects.stream()
+      return getProjects().stream()
               .filter(predicate)
               .collect(Collectors
                       .toList());
    }
 
    public Integer size() {
-      return projects.size();
+      return getProjects().size();
    }
 }
 
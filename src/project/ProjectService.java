@@ -2,13 +2,20 @@ package project;
 
 import UniqueID.IUniqueIdService;
 import UniqueID.IdType;
+import applicant.Applicant;
 import applicant.Application;
 import enquiry.Enquiry;
 import officer.IRegistrationValidationService;
+import officer.Officer;
 import officer.RegistrationForm;
 import officer.RegistrationValidationService;
+import system.EntityLocks;
 import system.ServiceRegistry;
+import system.SessionJournal;
+import system.SessionManager;
+import user.UserRegistry;
 
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.function.Predicate;
@@ -18,28 +25,29 @@ public class ProjectService implements IProjectService {
    private final IUniqueIdService uniqueIdService;
    private final IProjectValidationService projectValidationService;
    private final IRegistrationValidationService registrationValidationService;
+   private final SessionJournal journal;
+   private final UserRegistry userRegistry;
 
    public ProjectService(ProjectRegistry projectRegistry) {
       this.projectRegistry = projectRegistry;
       this.uniqueIdService = ServiceRegistry.get(IUniqueIdService.class);
       this.projectValidationService = new ProjectValidationService();
-      this.registrationValidationService = new RegistrationValidationService(projectRegistry);
+      this.userRegistry = ServiceRegistry.get(SessionManager.class).getUserRegistry();
+      this.registrationValidationService = new RegistrationValidationService(projectRegistry, userRegistry);
+      this.journal = ServiceRegistry.get(SessionJournal.class);
+      // An applicant's own applications only page in the projects they applied to
+      projectRegistry.indexApplicationsOf(nric -> userRegistry.getUserByNric(nric) instanceof Applicant applicant
+              ? applicant.getMyApplications() : List.of());
    }
 
    @Override
    public Project getProjectById(Integer projectId) {
-      return projectRegistry.getProjects().stream()
-              .filter(p -> p.getId().equals(projectId))
-              .findFirst()
-              .orElse(null);
+      return projectRegistry.getProjectById(projectId);
    }
 
    @Override
    public Project getProjectByName(String projectName) {
-      return projectRegistry.getProjects().stream()
-              .filter(p -> p.getProjectName().equals(projectName))
-              .findFirst()
-              .orElse(null);
+      return projectRegistry.getProjectByName(projectName);
    }
 
    @Override
@@ -69,20 +77,12 @@ public class ProjectService implements IProjectService {
    @Override
    public String returnNameIfProjectExists(String projectName) {
       //check existence of project by name and id
-      String returnName = projectRegistry.getProjects().stream()
-              .filter(p -> p.getProjectName().equals(projectName))
-              .findFirst()
-              .map(Project::getProjectName)
-              .orElse(null);
+      Project project = projectRegistry.getProjectByName(projectName);
       //check by id
-      if (returnName == null) {
-         returnName = projectRegistry.getProjects().stream()
-                 .filter(p -> p.getId().equals(Integer.parseInt(projectName)))
-                 .findFirst()
-                 .map(Project::getProjectName)
-                 .orElse(null);
+      if (project == null) {
+         project = projectRegistry.getProjectById(Integer.parseInt(projectName));
       }
-      return returnName;
+      return project != null ? project.getProjectName() : null;
    }
 
    @Override
@@ -95,6 +95,18 @@ public class ProjectService implements IProjectService {
       projectRegistry.removeProject(project);
    }
 
+   @Override
+   public void renameProject(Project project, String projectName) {
+      projectRegistry.renameProject(project, projectName);
+   }
+
+   // Call after editing an existing project's metadata so the change is journaled
+   @Override
+   public void saveProject(Project project) {
+      projectRegistry.projectChanged(project);
+      journal.recordProject(project);
+   }
+
    @Override
    public List<Project> getFilteredProjects(Predicate<Project> predicate) {
       return projectRegistry.filter(predicate);
@@ -116,26 +128,107 @@ public class ProjectService implements IProjectService {
    public void addRegistrationToProject(RegistrationForm form) throws IllegalArgumentException {
       registrationValidationService.validateRegistration(form);
       Project project = getProjectById(form.getProjectId());
-      project.addRegistrationForm(form);
+      Officer officer = (Officer) userRegistry.getUserByNric(form.getNric());
+      EntityLocks.lock(project, officer);
+      try {
+         project.addRegistrationForm(form);
+         if (officer != null) {
+            officer.addRegistrationForm(form);
+         }
+      }
+      finally {
+         EntityLocks.unlock(project, officer);
+      }
+      try {
+         journal.recordRegistration(form);
+      }
+      catch (UncheckedIOException e) {
+         EntityLocks.lock(project, officer);
+         try {
+            project.removeRegistrationForm(form);
+            if (officer != null) {
+               officer.removeRegistrationForm(form);
+            }
+         }
+         finally {
+            EntityLocks.unlock(project, officer);
+         }
+         throw e;
+      }
    }
 
    @Override
    public void addEnquiryToProject(Enquiry enquiry) {
       Project project = getProjectById(enquiry.getProjectId());
-      project.addEnquiry(enquiry);
+      Applicant applicant = (Applicant) userRegistry.getUserByNric(enquiry.getApplicantNric());
+      EntityLocks.lock(project, applicant);
+      try {
+         project.addEnquiry(enquiry);
+         if (applicant != null) {
+            applicant.getEnquiries().add(enquiry);
+         }
+      }
+      finally {
+         EntityLocks.unlock(project, applicant);
+      }
+      try {
+         journal.recordEnquiry(enquiry);
+      }
+      catch (UncheckedIOException e) {
+         EntityLocks.lock(project, applicant);
+         try {
+            project.removeEnquiry(enquiry);
+            if (applicant != null) {
+               applicant.getEnquiries().remove(enquiry);
+            }
+         }
+         finally {
+            EntityLocks.unlock(project, applicant);
+         }
+         throw e;
+      }
    }
 
    @Override
    public void removeEnquiryFromProject(Enquiry enquiry) {
       Project project = getProjectById(enquiry.getProjectId());
-      project.removeEnquiry(enquiry);
+      Applicant applicant = (Applicant) userRegistry.getUserByNric(enquiry.getApplicantNric());
+      EntityLocks.lock(project, applicant);
+      try {
+         if (applicant != null) {
+            applicant.getEnquiries().remove(enquiry);
+         }
+         project.removeEnquiry(enquiry);
+      }
+      finally {
+         EntityLocks.unlock(project, applicant);
+      }
+      try {
+         journal.recordEnquiryRemoved(enquiry);
+      }
+      catch (UncheckedIOException e) {
+         EntityLocks.lock(project, applicant);
+         try {
+            project.addEnquiry(enquiry);
+            if (applicant != null) {
+               applicant.getEnquiries().add(enquiry);
+            }
+         }
+         finally {
+            EntityLocks.unlock(project, applicant);
+         }
+         throw e;
+      }
    }
 
    @Override
    public List<List<String>> getEnquiriesFrom(String projectId) {
-      return projectRegistry.getProjects().stream()
-              .filter(p -> p.getId().equals(Integer.parseInt(projectId)))
-              .flatMap(p -> p.getEnquiries().stream().map(Enquiry::toStringList))
+      Project project = projectRegistry.getProjectById(Integer.parseInt(projectId));
+      if (project == null) {
+         return List.of();
+      }
+      return project.getEnquiries().stream()
+              .map(Enquiry::toStringList)
               .toList();
    }
 
@@ -148,18 +241,49 @@ public class ProjectService implements IProjectService {
    }
 
    @Override
-   public void addApplicationToProject(Application application) {
-      Project project = getProjectById(application.getProjectId());
-      System.out.println("Adding application to project: " + project.getProjectName());
-      project.addApplication(application);
+   public Application getApplication(String applicantNric, Integer projectId) {
+      return projectRegistry.getApplication(applicantNric, projectId);
    }
 
    @Override
-   public void updateProject(Project project, FlatType flatType) {
-      Project existingProject = getProjectById(project.getId());
-      System.out.println("Updating project: " + existingProject.getProjectName());
-      //existingProject.decrementRemainingFlat(flatType);
-      System.out.println("Remaining flats after decrement: " + existingProject.getRemainingFlats());
+   public void addApplicationToProject(Application application) {
+      Project project = getProjectById(application.getProjectId());
+      Applicant applicant = (Applicant) userRegistry.getUserByNric(application.getApplicantNric());
+      System.out.println("Adding application to project: " + project.getProjectName());
+      // Added to the project and its applicant together, and journaled once the locks are let go of
+      EntityLocks.lock(project, applicant);
+      try {
+         // Checked again under the applicant's lock: the menu's check does not stop two sessions applying at once
+         if (applicant != null && applicant.getMyApplications().stream().anyMatch(Application::isActive)) {
+            throw new IllegalArgumentException("You already have an active application or booking and cannot apply for another.");
+         }
+         project.addApplication(application);
+         if (applicant != null) {
+            applicant.getMyApplications().add(application);
+         }
+      }
+      finally {
+         EntityLocks.unlock(project, applicant);
+      }
+      try {
+         journal.recordApplication(application);
+      }
+      catch (UncheckedIOException e) {
+         // Not saved, so not made either
+         EntityLocks.lock(project, applicant);
+         try {
+            project.removeApplication(application);
+            if (applicant != null) {
+               applicant.getMyApplications().remove(application);
+            }
+         }
+         finally {
+            EntityLocks.unlock(project, applicant);
+         }
+         projectRegistry.unindexApplication(application); // in case the applicant was looked up in between
+         throw e;
+      }
+      projectRegistry.indexApplication(application);
    }
 
 
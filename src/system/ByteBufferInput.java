@@ -0,0 +1,136 @@
+package system;
+
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * DataInput view of a ByteBuffer, so that {@link SessionCodec} can decode straight from a mapped file.
+ */
+class ByteBufferInput implements DataInput {
+   private final ByteBuffer buffer;
+
+   ByteBufferInput(ByteBuffer buffer) {
+      this.buffer = buffer;
+   }
+
+   int position() {
+      return buffer.position();
+   }
+
+   private void require(int bytes) throws EOFException {
+      if (buffer.remaining() < bytes) {
+         throw new EOFException("Unexpected end of snapshot");
+      }
+   }
+
+   @Override
+   public void readFully(byte[] b) throws IOException {
+      readFully(b, 0, b.length);
+   }
+
+   @Override
+   public void readFully(byte[] b, int off, int len) throws IOException {
+      try {
+         buffer.get(b, off, len);
+      }
+      catch (BufferUnderflowException e) {
+         throw new EOFException("Unexpected end of snapshot");
+      }
+   }
+
+   @Override
+   public int skipBytes(int n) throws IOException {
+      require(n);
+      buffer.position(buffer.position() + n);
+      return n;
+   }
+
+   @Override
+   public boolean readBoolean() throws IOException {
+      return readByte() != 0;
+   }
+
+   @Override
+   public byte readByte() throws IOException {
+      require(1);
+      return buffer.get();
+   }
+
+   @Override
+   public int readUnsignedByte() throws IOException {
+      return readByte() & 0xFF;
+   }
+
+   @Override
+   public short readShort() throws IOException {
+      require(2);
+      return buffer.getShort();
+   }
+
+   @Override
+   public int readUnsignedShort() throws IOException {
+      return readShort() & 0xFFFF;
+   }
+
+   @Override
+   public char readChar() throws IOException {
+      require(2);
+      return buffer.getChar();
+   }
+
+   @Override
+   public int readInt() throws IOException {
+      require(4);
+      return buffer.getInt();
+   }
+
+   @Override
+   public long readLong() throws IOException {
+      require(8);
+      return buffer.getLong();
+   }
+
+   @Override
+   public float readFloat() throws IOException {
+      require(4);
+      return buffer.getFloat();
+   }
+
+   @Override
+   public double readDouble() throws IOException {
+      require(8);
+      return buffer.getDouble();
+   }
+
+   // As DataInputStream.readLine: bytes up to \n, \r or \r\n, each taken as a char, or null at the end
+   @Override
+   public String readLine() {
+      if (!buffer.hasRemaining()) {
+         return null;
+      }
+      StringBuilder line = new StringBuilder();
+      while (buffer.hasRemaining()) {
+         int c = buffer.get() & 0xFF;
+         if (c == '\n') {
+            break;
+         }
+         if (c == '\r') {
+            if (buffer.hasRemaining() && buffer.get(buffer.position()) == '\n') {
+               buffer.get();
+            }
+            break;
+         }
+         line.append((char) c);
+      }
+      return line.toString();
+   }
+
+   @Override
+   public String readUTF() throws IOException {
+      return DataInputStream.readUTF(this);
+   }
+}
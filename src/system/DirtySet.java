@@ -0,0 +1,40 @@
+package system;
+
+import project.Project;
+import user.User;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The projects and users whose stored form has changed since a snapshot was read, as told by the journal records
+ * replayed or appended since. Applications, enquiries and registration forms are stored in the block of their
+ * project and linked from the user they belong to, so a change to one of them dirties both.
+ * Whatever is still clean is written into the next snapshot as the bytes it was read from.
+ */
+final class DirtySet {
+   private final Set<Integer> projectIds = new HashSet<>();
+   private final Set<String> userNrics = new HashSet<>();
+
+   synchronized void project(int projectId) {
+      projectIds.add(projectId);
+   }
+
+   synchronized void user(String nric) {
+      userNrics.add(nric);
+   }
+
+   // An application, enquiry or registration form
+   synchronized void child(int projectId, String nric) {
+      projectIds.add(projectId);
+      userNrics.add(nric);
+   }
+
+   synchronized boolean isDirty(Project project) {
+      return projectIds.contains(project.getId());
+   }
+
+   synchronized boolean isDirty(User user) {
+      return userNrics.contains(user.getNric());
+   }
+}
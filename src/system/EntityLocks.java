@@ -0,0 +1,80 @@
+package system;
+
+import applicant.Applicant;
+import helper.concurrent.StripedLocks;
+import project.Project;
+
+/**
+ * The locks guarding projects and applicants, striped by project id and by NRIC.
+ * <p>
+ * Each project's registration forms, applications, enquiries and officers, and each applicant's applications,
+ * enquiries and registration forms, are only changed under the write lock of the owner's stripe; the lists take it
+ * themselves for a single change. A change that must be seen whole, such as deciding an application and the flat it
+ * holds, or adding an application to both its project and its applicant, takes the locks here for its duration.
+ * <p>
+ * Locks are always taken in this order, and never the other way round:
+ * <ol>
+ * <li>the session manager, whose checkpoints are synchronized, and which completes a fast start at the first lookup
+ * of a project or use of an applicant's lists; until then no project can be reached to be locked, and an applicant's
+ * lists are used before its stripe is taken</li>
+ * <li>the journal, which is synchronized</li>
+ * <li>the snapshot pager, which pages projects and applicants in, and is synchronized</li>
+ * <li>the project and user registries, which are synchronized while projects or users are added or removed</li>
+ * <li>one project stripe</li>
+ * <li>one applicant stripe</li>
+ * </ol>
+ * So an operation on an application locks its project before its applicant. Nothing is journaled while a stripe is
+ * held, and both owners are paged in here before their stripes are taken.
+ */
+public final class EntityLocks {
+   private static final StripedLocks PROJECTS = new StripedLocks(64);
+   private static final StripedLocks APPLICANTS = new StripedLocks(64);
+
+   private EntityLocks() {
+      throw new IllegalStateException("Utility class");
+   }
+
+   public static StripedLocks.Stripe of(Project project) {
+      return PROJECTS.of(project.getId());
+   }
+
+   public static StripedLocks.Stripe of(Applicant applicant) {
+      return APPLICANTS.of(applicant.getNric());
+   }
+
+   /**
+    * Write-locks a project; let go of it with {@link #unlock(Project)} in a finally block.
+    */
+   public static void lock(Project project) {
+      lock(project, null);
+   }
+
+   /**
+    * Write-locks a project, then one of its applicants; let go of them with {@link #unlock(Project, Applicant)}
+    * in a finally block.
+    *
+    * @param applicant May be null, to lock the project alone.
+    */
+   public static void lock(Project project, Applicant applicant) {
+      project.getApplications();
+      if (applicant != null) {
+         applicant.getMyApplications();
+      }
+      of(project).lockWrite();
+      if (applicant != null) {
+         of(applicant).lockWrite();
+      }
+   }
+
+   public static void unlock(Project project) {
+      unlock(project, null);
+   }
+
+   // Lets go of the locks taken by lock with the same arguments, in the reverse order
+   public static void unlock(Project project, Applicant applicant) {
+      if (applicant != null) {
+         of(applicant).unlockWrite();
+      }
+      of(project).unlockWrite();
+   }
+}
@@ -6,6 +6,7 @@ import applicant.*;
 import enquiry.EnquiryService;
 import helper.Color;
 import helper.TablePrinter;
+import helper.storage.GroupCommit;
 import interfaces.Menu;
 import manager.*;
 import officer.*;
@@ -16,17 +17,38 @@ import project.UserFilterManager;
 import user.IPasswordValidationService;
 import user.PasswordValidationService;
 
+import java.io.UncheckedIOException;
 import java.util.Scanner;
 
 public class EntryPoint {
+   private static final long GROUP_COMMIT_INTERVAL_MS = 20;
+
    public void start() throws Exception {
-      boolean running = true; // Flag to control the main loop
-      Scanner scanner = new Scanner(System.in);
-      TablePrinter tablePrinter = new TablePrinter();
       Boolean loadFromTxt = false;
+      boolean fastStart = true; // Show the login prompt while the projects of the saved session are still being read
 
       // Initialize and register all services to ServiceRegistry
-      initializeServices(loadFromTxt); // written in the initializeServices method below, to prevent DI boilerplate
+      initializeServices(loadFromTxt, fastStart); // written in the initializeServices method below, to prevent DI boilerplate
+
+      runSession();
+      SessionContext.current().getScanner().close();
+   }
+
+   /**
+    * Serves sessions over local connections instead of the console, see {@link SessionServer}.
+    *
+    * @param port The local port to listen on.
+    */
+   public void serve(int port) throws Exception {
+      initializeServices(false, true);
+      new SessionServer(port, this::runSession).serve();
+   }
+
+   // Runs the menus for the session of the calling thread, until its user exits
+   private void runSession() {
+      boolean running = true; // Flag to control the main loop
+      Scanner scanner = SessionContext.current().getScanner();
+      TablePrinter tablePrinter = new TablePrinter();
 
       // Get required services from registry
       SessionManager sessionManager = ServiceRegistry.get(SessionManager.class);
@@ -85,7 +107,13 @@ public class EntryPoint {
          }
 
          // Display and handle the current menu
-         currentMenu.run();
+         try {
+            currentMenu.run();
+         }
+         catch (UncheckedIOException e) {
+            // A change the menu did not catch itself could not be journaled; show the menu again
+            Color.println("Error: " + e.getMessage() + ". Please try again.", Color.RED);
+         }
 
          // Check if user wants to exit
          if (sessionManager.getCurrentUser() == null) {
@@ -97,13 +125,15 @@ public class EntryPoint {
          }
       }
       Color.println("Thank you for using the BTO Housing Application System. Goodbye!", Color.CYAN);
-      scanner.close();
    }
 
    /**
     * Initialize all services and register them in the ServiceRegistry
     */
-   private void initializeServices(Boolean loadFromTxt) {
+   private void initializeServices(Boolean loadFromTxt, boolean fastStart) {
+      // Journal appends are forced to disk together, once per group, off the interactive thread
+      ServiceRegistry.register(GroupCommit.class, new GroupCommit(GROUP_COMMIT_INTERVAL_MS));
+
       // Create core services
       IUniqueIdService uniqueIdService = new UniqueIdService();
       IPasswordValidationService passwordValidationService = new PasswordValidationService();
@@ -113,8 +143,9 @@ public class EntryPoint {
       ServiceRegistry.register(IPasswordValidationService.class, passwordValidationService);
 
       // Create and register session manager
-      SessionManager sessionManager = new SessionManager(loadFromTxt);
+      SessionManager sessionManager = new SessionManager(loadFromTxt, fastStart);
       ServiceRegistry.register(SessionManager.class, sessionManager);
+      ServiceRegistry.register(SessionJournal.class, sessionManager.getJournal());
 
       // Get project registry from session manager
       ProjectRegistry projectRegistry = sessionManager.getProjectRegistry();
@@ -147,7 +178,7 @@ public class EntryPoint {
       ManagerController managerController = new ManagerController();
       ServiceRegistry.register(ManagerController.class, managerController);
 
-      UserFilterManager userFilterManager = new UserFilterManager(new Scanner(System.in));
+      UserFilterManager userFilterManager = new UserFilterManager();
       ServiceRegistry.register(UserFilterManager.class, userFilterManager);
 
    }
@@ -0,0 +1,342 @@
+package system;
+
+import applicant.Applicant;
+import applicant.Application;
+import applicant.ApplicationStatus;
+import applicant.BookingStatus;
+import applicant.WithdrawalRequestStatus;
+import enquiry.Enquiry;
+import manager.Manager;
+import officer.BookingQueue;
+import officer.Officer;
+import officer.OfficerStatus;
+import officer.RegistrationForm;
+import officer.RegistrationStatus;
+import project.FlatType;
+import project.Project;
+import user.MaritalStatus;
+import user.User;
+import user.UserFilterSettings;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hand-rolled binary encoding of the session entities, shared by the journal and the snapshot.
+ * Every entity is written field by field in a fixed order; references to other entities are written
+ * as ids and resolved by the reader, so no object graph or class metadata ends up in the files.
+ * <p>
+ * Bump {@link #VERSION} whenever the layout of any entity changes; readers reject other versions.
+ */
+public final class SessionCodec {
+   public static final short VERSION = 2;
+
+   // User kinds inside a user record
+   private static final byte APPLICANT_KIND = 0;
+   private static final byte OFFICER_KIND = 1;
+   private static final byte MANAGER_KIND = 2;
+
+   private SessionCodec() {
+   }
+
+   /**
+    * A user as read from a record, with its references to projects and forms still unresolved.
+    */
+   public record DecodedUser(User user, Integer currentProjectId, Integer currentFormId) {
+   }
+
+   // =================== Users ===================
+
+   public static void writeUser(DataOutput out, User user) throws IOException {
+      byte kind = user instanceof Officer ? OFFICER_KIND : user instanceof Manager ? MANAGER_KIND : APPLICANT_KIND;
+      out.writeByte(kind);
+      out.writeUTF(user.getName());
+      out.writeUTF(user.getNric());
+      out.writeUTF(user.getPassword());
+      out.writeInt(user.getAge());
+      writeEnum(out, user.getMaritalStatus());
+      UserFilterSettings filters = user.getFilterSettings() != null ? user.getFilterSettings() : new UserFilterSettings();
+      writeString(out, filters.getProjectName());
+      writeString(out, filters.getNeighbourhood());
+      writeEnum(out, filters.getFlatType());
+      writeDate(out, filters.getDate());
+
+      if (user instanceof Applicant applicant) {
+         writeEnum(out, applicant.getBookedFlatType());
+      }
+      if (user instanceof Officer officer) {
+         writeEnum(out, officer.getOfficerStatus());
+         writeInteger(out, officer.getCurrentProject() != null ? officer.getCurrentProject().getId() : null);
+         writeInteger(out, officer.getCurrentRegistrationForm() != null ? officer.getCurrentRegistrationForm().getId() : null);
+      }
+      else if (user instanceof Manager manager) {
+         writeInteger(out, manager.getCurrentProject() != null ? manager.getCurrentProject().getId() : null);
+      }
+   }
+
+   public static DecodedUser readUser(DataInput in) throws IOException {
+      byte kind = in.readByte();
+      String name = in.readUTF();
+      String nric = in.readUTF();
+      String password = in.readUTF();
+      int age = in.readInt();
+      MaritalStatus maritalStatus = readEnum(in, MaritalStatus.values());
+      UserFilterSettings filterSettings = new UserFilterSettings();
+      filterSettings.setProjectName(readString(in));
+      filterSettings.setNeighbourhood(readString(in));
+      filterSettings.setFlatType(readEnum(in, FlatType.values()));
+      filterSettings.setDate(readDate(in));
+
+      User user;
+      Integer currentProjectId = null;
+      Integer currentFormId = null;
+      switch (kind) {
+         case OFFICER_KIND -> {
+            Officer officer = new Officer(name, nric, password, age, maritalStatus);
+            officer.setBookedFlatType(readEnum(in, FlatType.values()));
+            officer.setOfficerStatus(readEnum(in, OfficerStatus.values()));
+            currentProjectId = readInteger(in);
+            currentFormId = readInteger(in);
+            user = officer;
+         }
+         case MANAGER_KIND -> {
+            user = new Manager(name, nric, password, age, maritalStatus);
+            currentProjectId = readInteger(in);
+         }
+         case APPLICANT_KIND -> {
+            Applicant applicant = new Applicant(name, nric, password, age, maritalStatus);
+            applicant.setBookedFlatType(readEnum(in, FlatType.values()));
+            user = applicant;
+         }
+         default -> throw new IOException("Unknown user kind " + kind);
+      }
+      user.setFilterSettings(filterSettings);
+      return new DecodedUser(user, currentProjectId, currentFormId);
+   }
+
+   // =================== Projects ===================
+
+   /**
+    * Writes the project's own fields. Its registration forms, applications and enquiries are
+    * written separately by the caller.
+    */
+   public static void writeProject(DataOutput out, Project project) throws IOException {
+      out.writeInt(project.getId());
+      out.writeUTF(project.getProjectName());
+      out.writeUTF(project.getNeighborhood());
+      out.writeInt(project.getTwoRoomUnits());
+      out.writeDouble(project.getTwoRoomPrice());
+      out.writeInt(project.getThreeRoomUnits());
+      out.writeDouble(project.getThreeRoomPrice());
+      writeDate(out, project.getApplicationOpeningDate());
+      writeDate(out, project.getApplicationClosingDate());
+      out.writeUTF(project.getManager());
+      out.writeBoolean(project.isVisibility());
+      writeEnum(out, project.getBookingOrder());
+      writeInteger(out, project.getAvailableOfficerSlots());
+      writeStringList(out, project.getOfficers());
+   }
+
+   public static Project readProject(DataInput in) throws IOException {
+      int id = in.readInt();
+      String projectName = in.readUTF();
+      String neighborhood = in.readUTF();
+      int twoRoomUnits = in.readInt();
+      double twoRoomPrice = in.readDouble();
+      int threeRoomUnits = in.readInt();
+      double threeRoomPrice = in.readDouble();
+      LocalDate openingDate = readDate(in);
+      LocalDate closingDate = readDate(in);
+      String manager = in.readUTF();
+      boolean visibility = in.readBoolean();
+      BookingQueue.Order bookingOrder = readEnum(in, BookingQueue.Order.values());
+      Integer officerSlots = readInteger(in);
+      List<String> officers = readStringList(in);
+
+      Project project = new Project(id, projectName, neighborhood, twoRoomUnits, twoRoomPrice, threeRoomUnits,
+              threeRoomPrice, openingDate, closingDate, manager, officerSlots, officers);
+      project.setVisibility(visibility);
+      project.setBookingOrder(bookingOrder);
+      return project;
+   }
+
+   // =================== Applications, enquiries, registrations ===================
+
+   // A child stored inside its project's block only carries its own copy of the project name when it
+   // differs from the project's (children keep the name they were created under when a project is renamed).
+
+   public static void writeApplication(DataOutput out, Application application) throws IOException {
+      out.writeInt(application.getProjectId());
+      writeApplicationBody(out, application, null);
+   }
+
+   /**
+    * Writes an application without its project id; read it back with
+    * {@link #readApplication(DataInput, Project)} passing the project it belongs to.
+    */
+   public static void writeApplicationBody(DataOutput out, Application application, Project owner) throws IOException {
+      out.writeInt(application.getId());
+      writeProjectName(out, application.getProjectName(), owner);
+      out.writeUTF(application.getApplicantName());
+      out.writeUTF(application.getApplicantNric());
+      writeEnum(out, application.getFlatType());
+      writeDate(out, application.getDateApplied());
+      writeEnum(out, application.getApplicationStatus());
+      writeEnum(out, application.getBookingStatus());
+      writeEnum(out, application.getWithdrawalRequestStatus());
+   }
+
+   public static Application readApplication(DataInput in) throws IOException {
+      return readApplication(in, in.readInt(), null);
+   }
+
+   public static Application readApplication(DataInput in, Project owner) throws IOException {
+      return readApplication(in, owner.getId(), owner.getProjectName());
+   }
+
+   private static Application readApplication(DataInput in, int projectId, String ownerName) throws IOException {
+      int id = in.readInt();
+      String projectName = readProjectName(in, ownerName);
+      return new Application(id, in.readUTF(), in.readUTF(), projectId, projectName,
+              readEnum(in, FlatType.values()), readDate(in), readEnum(in, ApplicationStatus.values()),
+              readEnum(in, BookingStatus.values()), readEnum(in, WithdrawalRequestStatus.values()));
+   }
+
+   public static void writeEnquiry(DataOutput out, Enquiry enquiry) throws IOException {
+      out.writeInt(enquiry.getProjectId());
+      writeEnquiryBody(out, enquiry, null);
+   }
+
+   public static void writeEnquiryBody(DataOutput out, Enquiry enquiry, Project owner) throws IOException {
+      out.writeInt(enquiry.getId());
+      writeProjectName(out, enquiry.getProjectName(), owner);
+      out.writeUTF(enquiry.getApplicantName());
+      out.writeUTF(enquiry.getApplicantNric());
+      writeDate(out, enquiry.getDateEnquired());
+      writeString(out, enquiry.getEnquiry());
+      writeString(out, enquiry.getReply());
+      writeString(out, enquiry.getRespondent());
+      writeDate(out, enquiry.getDateReplied());
+   }
+
+   public static Enquiry readEnquiry(DataInput in) throws IOException {
+      return readEnquiry(in, in.readInt(), null);
+   }
+
+   public static Enquiry readEnquiry(DataInput in, Project owner) throws IOException {
+      return readEnquiry(in, owner.getId(), owner.getProjectName());
+   }
+
+   private static Enquiry readEnquiry(DataInput in, int projectId, String ownerName) throws IOException {
+      int id = in.readInt();
+      String projectName = readProjectName(in, ownerName);
+      return new Enquiry(id, projectName, projectId, in.readUTF(), in.readUTF(), readDate(in),
+              readString(in), readString(in), readString(in), readDate(in));
+   }
+
+   public static void writeRegistration(DataOutput out, RegistrationForm form) throws IOException {
+      out.writeInt(form.getProjectId());
+      writeRegistrationBody(out, form, null);
+   }
+
+   public static void writeRegistrationBody(DataOutput out, RegistrationForm form, Project owner) throws IOException {
+      out.writeInt(form.getId());
+      writeProjectName(out, form.getProjectName(), owner);
+      out.writeUTF(form.getOfficerName());
+      out.writeUTF(form.getNric());
+      writeDate(out, form.getDateApplied());
+      writeEnum(out, form.getStatus());
+   }
+
+   public static RegistrationForm readRegistration(DataInput in) throws IOException {
+      return readRegistration(in, in.readInt(), null);
+   }
+
+   public static RegistrationForm readRegistration(DataInput in, Project owner) throws IOException {
+      return readRegistration(in, owner.getId(), owner.getProjectName());
+   }
+
+   private static RegistrationForm readRegistration(DataInput in, int projectId, String ownerName) throws IOException {
+      int id = in.readInt();
+      String projectName = readProjectName(in, ownerName);
+      return new RegistrationForm(id, in.readUTF(), in.readUTF(), projectId, projectName,
+              readDate(in), readEnum(in, RegistrationStatus.values()));
+   }
+
+   private static void writeProjectName(DataOutput out, String projectName, Project owner) throws IOException {
+      boolean sameAsOwner = owner != null && owner.getProjectName().equals(projectName);
+      writeString(out, sameAsOwner ? null : projectName);
+   }
+
+   private static String readProjectName(DataInput in, String ownerName) throws IOException {
+      String projectName = readString(in);
+      return projectName != null ? projectName : ownerName;
+   }
+
+   // =================== Primitive helpers ===================
+
+   public static void writeString(DataOutput out, String value) throws IOException {
+      out.writeBoolean(value != null);
+      if (value != null) {
+         out.writeUTF(value);
+      }
+   }
+
+   public static String readString(DataInput in) throws IOException {
+      return in.readBoolean() ? in.readUTF() : null;
+   }
+
+   public static void writeInteger(DataOutput out, Integer value) throws IOException {
+      out.writeBoolean(value != null);
+      if (value != null) {
+         out.writeInt(value);
+      }
+   }
+
+   public static Integer readInteger(DataInput in) throws IOException {
+      return in.readBoolean() ? in.readInt() : null;
+   }
+
+   // Dates are stored as an int epoch day, which covers every date this system will ever see
+   public static void writeDate(DataOutput out, LocalDate date) throws IOException {
+      out.writeInt(date != null ? Math.toIntExact(date.toEpochDay()) : Integer.MIN_VALUE);
+   }
+
+   public static LocalDate readDate(DataInput in) throws IOException {
+      int epochDay = in.readInt();
+      return epochDay == Integer.MIN_VALUE ? null : LocalDate.ofEpochDay(epochDay);
+   }
+
+   public static void writeEnum(DataOutput out, Enum<?> value) throws IOException {
+      out.writeByte(value != null ? value.ordinal() : -1);
+   }
+
+   public static <E extends Enum<E>> E readEnum(DataInput in, E[] values) throws IOException {
+      byte ordinal = in.readByte();
+      if (ordinal >= values.length) {
+         throw new IOException("Unknown " + values.getClass().getComponentType().getSimpleName() + " ordinal " + ordinal);
+      }
+      return ordinal < 0 ? null : values[ordinal];
+   }
+
+   public static void writeStringList(DataOutput out, List<String> values) throws IOException {
+      List<String> list = values != null ? values : List.of();
+      out.writeInt(list.size());
+      for (String value : list) {
+         out.writeUTF(value);
+      }
+   }
+
+   public static List<String> readStringList(DataInput in) throws IOException {
+      int size = in.readInt();
+      List<String> values = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+         values.add(in.readUTF());
+      }
+      return values;
+   }
+}
@@ -0,0 +1,64 @@
+package system;
+
+import user.User;
+
+import java.io.PrintStream;
+import java.util.Scanner;
+
+/**
+ * What belongs to one user's session rather than to the system: the logged-in user, and where the session reads
+ * its input from and writes its output to. The services are shared by every session and look the user up here on
+ * each call, so one JVM can serve several sessions at once, each on its own thread.
+ * <p>
+ * A thread that has not entered a session of its own works in the console session, on System.in and System.out.
+ */
+public final class SessionContext {
+   private static final SessionContext CONSOLE = new SessionContext(new Scanner(System.in), System.out);
+   private static final ThreadLocal<SessionContext> CURRENT = new ThreadLocal<>();
+
+   private final Scanner scanner;
+   private final PrintStream out;
+   private volatile User user;
+
+   public SessionContext(Scanner scanner, PrintStream out) {
+      this.scanner = scanner;
+      this.out = out;
+   }
+
+   public static SessionContext current() {
+      SessionContext context = CURRENT.get();
+      return context != null ? context : CONSOLE;
+   }
+
+   // Null outside a session of its own
+   static SessionContext entered() {
+      return CURRENT.get();
+   }
+
+   /**
+    * Makes this the session of the calling thread until {@link #leave} is called.
+    */
+   public void enter() {
+      CURRENT.set(this);
+   }
+
+   public void leave() {
+      CURRENT.remove();
+   }
+
+   public Scanner getScanner() {
+      return scanner;
+   }
+
+   public PrintStream getOut() {
+      return out;
+   }
+
+   public User getUser() {
+      return user;
+   }
+
+   public void setUser(User user) {
+      this.user = user;
+   }
+}
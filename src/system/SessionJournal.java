@@ -0,0 +1,693 @@
+package system;
+
+import UniqueID.IdType;
+import applicant.Applicant;
+import applicant.Application;
+import enquiry.Enquiry;
+import helper.storage.AtomicFile;
+import helper.storage.GroupCommit;
+import manager.Manager;
+import officer.Officer;
+import officer.RegistrationForm;
+import project.Project;
+import project.ProjectRegistry;
+import user.User;
+import user.UserRegistry;
+
+import java.io.*;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Append-only write-ahead journal of session mutations.
+ * Every record is either an upsert of a single entity (keyed by its id) or a removal, so replaying
+ * the same record twice leaves the registries unchanged. The SessionManager replays the journal on
+ * top of the last snapshot at startup and truncates it whenever a new snapshot has been written.
+ * <p>
+ * File layout: a header (magic, codec version) followed by frames of [int length][int CRC32C][byte type][payload],
+ * where the payload is an entity encoded by {@link SessionCodec} and the checksum covers type and payload.
+ * A final frame cut short or damaged by a crash is discarded on the next replay. Anything else that cannot be read,
+ * such as a record type written by a newer build, fails the replay instead, since the records after it may be
+ * committed changes.
+ * <p>
+ * Appends are flushed to the operating system right away. With a {@link GroupCommit} they are forced to disk by
+ * its background thread, one fsync for a whole group of appends; without one, every append is forced itself.
+ * A record that cannot be written throws an {@link UncheckedIOException}, so the change is reported as failed rather
+ * than as done and then lost on restart.
+ * <p>
+ * At a checkpoint the journal is sealed: its records move to a sealed segment that is folded into the snapshot in
+ * the background, while new records go to an empty journal. A sealed segment that is still on disk at startup is
+ * replayed before the journal. Every record also marks the projects and users it touches in a {@link DirtySet}.
+ */
+public class SessionJournal {
+   private static final String JOURNAL_FILE = "./data/session.journal";
+   private static final String SEALED_SUFFIX = ".sealed";
+   private static final int MAGIC = 0x42544F4B; // "BTOK"
+   // Length and checksum
+   private static final int FRAME_HEADER = 8;
+   private static final short VERSION = SessionCodec.VERSION;
+
+   // Record types
+   private static final byte USER = 1;
+   private static final byte USER_REMOVED = 2;
+   private static final byte PROJECT = 3;
+   private static final byte PROJECT_REMOVED = 4;
+   private static final byte APPLICATION = 5;
+   private static final byte ENQUIRY = 6;
+   private static final byte ENQUIRY_REMOVED = 7;
+   private static final byte REGISTRATION = 8;
+
+   private final File file;
+   private final File sealedFile;
+   private FileOutputStream fileOut;
+   private DataOutputStream out;
+   private int recordCount = 0;
+   private DirtySet changes = new DirtySet();
+   private GroupCommit groupCommit;
+   private boolean pendingSync = false;
+   // Highest id of each type seen while replaying
+   private final Map<IdType, Integer> highestIds = new EnumMap<>(IdType.class);
+
+   public SessionJournal() {
+      this(new File(JOURNAL_FILE));
+   }
+
+   private SessionJournal(File file) {
+      this.file = file;
+      this.sealedFile = new File(file.getPath() + SEALED_SUFFIX);
+   }
+
+   /**
+    * Where the projects and users touched by replayed and appended records are marked from now on.
+    */
+   synchronized void trackChangesIn(DirtySet changes) {
+      this.changes = changes;
+   }
+
+   /**
+    * From now on appends only ask the group commit for a sync instead of forcing the file themselves.
+    */
+   public synchronized void commitThrough(GroupCommit groupCommit) {
+      this.groupCommit = groupCommit;
+      groupCommit.register(this::syncPending);
+   }
+
+   /**
+    * Number of records currently in the journal (replayed plus appended since the last truncate).
+    */
+   public int getRecordCount() {
+      return recordCount;
+   }
+
+   // =================== Appending ===================
+
+   public void recordUser(User user) {
+      changes.user(user.getNric());
+      append(USER, out -> SessionCodec.writeUser(out, user));
+   }
+
+   public void recordUserRemoved(User user) {
+      changes.user(user.getNric());
+      append(USER_REMOVED, out -> out.writeUTF(user.getNric()));
+   }
+
+   public void recordProject(Project project) {
+      changes.project(project.getId());
+      append(PROJECT, out -> SessionCodec.writeProject(out, project));
+   }
+
+   public void recordProjectRemoved(Project project) {
+      changes.project(project.getId());
+      append(PROJECT_REMOVED, out -> out.writeInt(project.getId()));
+   }
+
+   public void recordApplication(Application application) {
+      changes.child(application.getProjectId(), application.getApplicantNric());
+      append(APPLICATION, out -> SessionCodec.writeApplication(out, application));
+   }
+
+   public void recordEnquiry(Enquiry enquiry) {
+      changes.child(enquiry.getProjectId(), enquiry.getApplicantNric());
+      append(ENQUIRY, out -> SessionCodec.writeEnquiry(out, enquiry));
+   }
+
+   public void recordEnquiryRemoved(Enquiry enquiry) {
+      changes.child(enquiry.getProjectId(), enquiry.getApplicantNric());
+      append(ENQUIRY_REMOVED, out -> {
+         out.writeInt(enquiry.getProjectId());
+         out.writeInt(enquiry.getId());
+         out.writeUTF(enquiry.getApplicantNric());
+      });
+   }
+
+   public void recordRegistration(RegistrationForm form) {
+      changes.child(form.getProjectId(), form.getNric());
+      append(REGISTRATION, out -> SessionCodec.writeRegistration(out, form));
+   }
+
+   // Bulk variants: every record is written before a single flush
+   public void recordUsers(Collection<? extends User> users) {
+      users.forEach(user -> changes.user(user.getNric()));
+      appendAll(USER, users, SessionCodec::writeUser);
+   }
+
+   public void recordProjects(Collection<Project> projects) {
+      projects.forEach(project -> changes.project(project.getId()));
+      appendAll(PROJECT, projects, SessionCodec::writeProject);
+   }
+
+   public void recordApplications(Collection<Application> applications) {
+      applications.forEach(application -> changes.child(application.getProjectId(), application.getApplicantNric()));
+      appendAll(APPLICATION, applications, SessionCodec::writeApplication);
+   }
+
+   public void recordRegistrations(Collection<RegistrationForm> forms) {
+      forms.forEach(form -> changes.child(form.getProjectId(), form.getNric()));
+      appendAll(REGISTRATION, forms, SessionCodec::writeRegistration);
+   }
+
+   private synchronized void append(byte type, RecordWriter writer) {
+      long length = file.length();
+      int count = recordCount;
+      try {
+         DataOutputStream stream = openForAppend();
+         writeFrame(stream, new ByteArrayOutputStream(128), type, writer);
+         stream.flush();
+         appended();
+      }
+      catch (IOException e) {
+         throw failedAppend(e, length, count);
+      }
+   }
+
+   private synchronized <T> void appendAll(byte type, Collection<? extends T> entities, EntityWriter<T> writer) {
+      long length = file.length();
+      int count = recordCount;
+      try {
+         DataOutputStream stream = openForAppend();
+         ByteArrayOutputStream buffer = new ByteArrayOutputStream(128);
+         for (T entity : entities) {
+            writeFrame(stream, buffer, type, out -> writer.write(out, entity));
+         }
+         stream.flush();
+         appended();
+      }
+      catch (IOException e) {
+         throw failedAppend(e, length, count);
+      }
+   }
+
+   // Cuts off whatever part of the failed append reached the file, so later appends are not lost behind a torn frame
+   private UncheckedIOException failedAppend(IOException cause, long length, int count) {
+      if (fileOut != null) {
+         try {
+            fileOut.close();
+         }
+         catch (IOException e) {
+            // the file is cut back below either way
+         }
+      }
+      out = null;
+      fileOut = null;
+      pendingSync = false;
+      recordCount = count;
+      if (file.length() > length) {
+         discardTail(length);
+      }
+      return new UncheckedIOException("The change could not be saved to the session journal", cause);
+   }
+
+   private void writeFrame(DataOutputStream stream, ByteArrayOutputStream buffer, byte type, RecordWriter writer) throws IOException {
+      buffer.reset();
+      CRC32C crc = new CRC32C();
+      DataOutputStream payload = new DataOutputStream(new CheckedOutputStream(buffer, crc));
+      payload.writeByte(type);
+      writer.write(payload);
+
+      stream.writeInt(buffer.size());
+      stream.writeInt((int) crc.getValue());
+      buffer.writeTo(stream);
+      recordCount++;
+   }
+
+   private void appended() throws IOException {
+      if (groupCommit == null) {
+         fileOut.getChannel().force(false);
+         return;
+      }
+      pendingSync = true;
+      groupCommit.requestSync();
+   }
+
+   // Called by the group commit; the fsync runs outside the lock so that appends are not held up by it
+   private void syncPending() throws IOException {
+      FileChannel channel;
+      synchronized (this) {
+         if (!pendingSync || fileOut == null) {
+            return;
+         }
+         pendingSync = false;
+         channel = fileOut.getChannel();
+      }
+      try {
+         channel.force(false);
+      }
+      catch (ClosedChannelException e) {
+         // closed in the meantime, and close() forces the file itself
+      }
+   }
+
+   private DataOutputStream openForAppend() throws IOException {
+      if (out == null) {
+         boolean fresh = !file.exists() || file.length() == 0;
+         fileOut = new FileOutputStream(file, true);
+         out = new DataOutputStream(new BufferedOutputStream(fileOut));
+         if (fresh) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+         }
+      }
+      return out;
+   }
+
+   /**
+    * Discards all records, including a sealed segment. Called once a snapshot containing them has been written.
+    */
+   public synchronized void truncate() {
+      try {
+         close();
+         new FileOutputStream(file).close();
+         recordCount = 0;
+         Files.deleteIfExists(sealedFile.toPath());
+      }
+      catch (IOException e) {
+         System.err.println("Error truncating session journal: " + e.getMessage());
+      }
+   }
+
+   // =================== Segments ===================
+
+   /**
+    * Moves the records into the sealed segment, to be folded into the snapshot while new records go to an empty
+    * journal. There can only be one sealed segment at a time.
+    *
+    * @return the sealed segment
+    */
+   public synchronized SessionJournal seal() throws IOException {
+      if (hasSealedSegment()) {
+         throw new IllegalStateException("The sealed journal segment has not been compacted yet");
+      }
+      close();
+      if (file.exists()) {
+         Files.move(file.toPath(), sealedFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+         AtomicFile.syncDirectory(sealedFile.toPath().toAbsolutePath().getParent());
+      }
+      recordCount = 0;
+      return new SessionJournal(sealedFile);
+   }
+
+   public boolean hasSealedSegment() {
+      return sealedFile.exists();
+   }
+
+   /**
+    * The segment sealed by an earlier {@link #seal} that has not been compacted yet, or null if there is none.
+    */
+   public SessionJournal sealedSegment() {
+      return hasSealedSegment() ? new SessionJournal(sealedFile) : null;
+   }
+
+   /**
+    * Deletes a segment once a snapshot containing its records has been written.
+    */
+   public synchronized void delete() throws IOException {
+      close();
+      Files.deleteIfExists(file.toPath());
+   }
+
+   public synchronized void close() throws IOException {
+      if (out != null) {
+         out.flush();
+         fileOut.getChannel().force(false);
+         out.close();
+         out = null;
+         fileOut = null;
+         pendingSync = false;
+      }
+   }
+
+   // =================== Replay ===================
+
+   /**
+    * Applies every complete record in the journal to the given registries.
+    * The registries must not have a journal attached while replaying, otherwise the records would be
+    * appended again. Only a final frame cut short or damaged by a crash is discarded.
+    *
+    * @return the number of records applied
+    * @throws IOException If the journal is not one this build can read, or a record before its last frame cannot be
+    *                     read. The file is left as it is, and the registries hold the records before that one.
+    * @see #getHighestReplayedIds()
+    */
+   public synchronized int replay(ProjectRegistry projectRegistry, UserRegistry userRegistry) throws IOException {
+      recordCount = readFrames(frame -> apply(frame, projectRegistry, userRegistry), true);
+      return recordCount;
+   }
+
+   /**
+    * Applies only the users' own records: who they are, their passwords and settings, but none of their links to
+    * projects. Enough to check a login before the projects are loaded; {@link #replay} must still follow, and
+    * applies these records again along with the rest. A torn last frame is left for it to discard.
+    *
+    * @return the number of records read
+    * @throws IOException As {@link #replay}.
+    */
+   public synchronized int replayUsers(UserRegistry userRegistry) throws IOException {
+      return readFrames(frame -> applyToUsers(frame, userRegistry), false);
+   }
+
+   // Hands every complete frame to the reader, and returns how many it was given
+   private int readFrames(FrameReader reader, boolean repair) throws IOException {
+      int records = 0;
+      if (!file.exists() || file.length() == 0) {
+         return 0;
+      }
+      long fileLength = file.length();
+      long validLength = 0;
+      try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+         int magic = in.readInt();
+         if (magic != MAGIC) {
+            throw new IOException("Not a session journal");
+         }
+         short version = in.readShort();
+         if (version != VERSION) {
+            throw new IOException("Unsupported session journal version " + version);
+         }
+         validLength = 6;
+         CRC32C crc = new CRC32C();
+         while (true) {
+            int length;
+            try {
+               length = in.readInt();
+            }
+            catch (EOFException e) {
+               break; // clean end of journal
+            }
+            // A length that runs past the end is a torn tail as well, and is never allocated
+            if (length <= 0 || length > fileLength - validLength - FRAME_HEADER) {
+               throw new EOFException();
+            }
+            int expected = in.readInt();
+            byte[] frame = new byte[length];
+            in.readFully(frame);
+            crc.reset();
+            crc.update(frame);
+            if ((int) crc.getValue() != expected) {
+               if (validLength + FRAME_HEADER + length != fileLength) {
+                  throw new IOException("Damaged session journal record at byte " + validLength);
+               }
+               if (repair) {
+                  System.out.println("Session journal ends with a damaged record, discarding it.");
+                  discardTail(validLength);
+               }
+               return records;
+            }
+            try {
+               reader.read(new DataInputStream(new ByteArrayInputStream(frame)));
+            }
+            catch (IOException | RuntimeException e) {
+               throw new IOException("Unreadable session journal record at byte " + validLength + ": " + e.getMessage(), e);
+            }
+            validLength += FRAME_HEADER + length;
+            records++;
+         }
+      }
+      catch (EOFException e) {
+         if (repair) {
+            System.out.println("Session journal ends with an incomplete record, discarding it.");
+            discardTail(validLength);
+         }
+      }
+      return records;
+   }
+
+   /**
+    * Moves the journal out of the way, e.g. when it cannot be replayed, so that nothing is appended to it and it is
+    * not truncated; it can then still be recovered by hand or with a build that reads it.
+    */
+   public synchronized void setAside() {
+      try {
+         close();
+      }
+      catch (IOException e) {
+         // moved all the same
+      }
+      File target = new File(file.getPath() + ".damaged");
+      if (file.renameTo(target)) {
+         System.out.println("Moved the session journal to " + target.getName() + ".");
+      }
+   }
+
+   /**
+    * The highest id of each type in the records replayed so far. Ids are made durable by a group commit of their own,
+    * so after a crash these can be ahead of the saved id state and must not be generated again.
+    */
+   public synchronized Map<IdType, Integer> getHighestReplayedIds() {
+      return new EnumMap<>(highestIds);
+   }
+
+   private void sawId(IdType idType, int id) {
+      highestIds.merge(idType, id, Math::max);
+   }
+
+   private void discardTail(long validLength) {
+      try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+         raf.setLength(validLength);
+      }
+      catch (IOException e) {
+         System.err.println("Error repairing session journal: " + e.getMessage());
+      }
+   }
+
+   private void apply(DataInputStream in, ProjectRegistry projectRegistry, UserRegistry userRegistry) throws IOException {
+      byte type = in.readByte();
+      switch (type) {
+         case USER -> applyUser(in, projectRegistry, userRegistry);
+         case USER_REMOVED -> {
+            String nric = in.readUTF();
+            changes.user(nric);
+            User user = userRegistry.getUserByNric(nric);
+            if (user != null) {
+               userRegistry.removeUser(user);
+            }
+         }
+         case PROJECT -> applyProject(in, projectRegistry);
+         case PROJECT_REMOVED -> {
+            int projectId = in.readInt();
+            changes.project(projectId);
+            sawId(IdType.PROJECT_ID, projectId);
+            Project project = findProject(projectRegistry, projectId);
+            if (project != null) {
+               projectRegistry.removeProject(project);
+            }
+         }
+         case APPLICATION -> applyApplication(in, projectRegistry, userRegistry);
+         case ENQUIRY -> applyEnquiry(in, projectRegistry, userRegistry);
+         case ENQUIRY_REMOVED -> {
+            int projectId = in.readInt();
+            int enquiryId = in.readInt();
+            String nric = in.readUTF();
+            changes.child(projectId, nric);
+            sawId(IdType.ENQUIRY_ID, enquiryId);
+            Project project = findProject(projectRegistry, projectId);
+            User user = userRegistry.getUserByNric(nric);
+            if (project != null) {
+               project.getEnquiries().removeIf(e -> e.getId() == enquiryId);
+            }
+            if (user instanceof Applicant applicant) {
+               applicant.getEnquiries().removeIf(e -> e.getId() == enquiryId);
+            }
+         }
+         case REGISTRATION -> applyRegistration(in, projectRegistry, userRegistry);
+         default -> throw new IOException("Unknown journal record type " + type);
+      }
+   }
+
+   // The users' own records only; every other record is skipped, but must still be one this build knows
+   private void applyToUsers(DataInputStream in, UserRegistry userRegistry) throws IOException {
+      byte type = in.readByte();
+      switch (type) {
+         case USER -> applyUserFields(SessionCodec.readUser(in).user(), userRegistry);
+         case USER_REMOVED -> {
+            User user = userRegistry.getUserByNric(in.readUTF());
+            if (user != null) {
+               userRegistry.removeUser(user);
+            }
+         }
+         case PROJECT, PROJECT_REMOVED, APPLICATION, ENQUIRY, ENQUIRY_REMOVED, REGISTRATION -> {
+         }
+         default -> throw new IOException("Unknown journal record type " + type);
+      }
+   }
+
+   private void applyUser(DataInputStream in, ProjectRegistry projectRegistry, UserRegistry userRegistry) throws IOException {
+      SessionCodec.DecodedUser decoded = SessionCodec.readUser(in);
+      User incoming = decoded.user();
+      changes.user(incoming.getNric());
+
+      User user = applyUserFields(incoming, userRegistry);
+      if (user instanceof Officer officer) {
+         Integer currentFormId = decoded.currentFormId();
+         officer.setCurrentProject(decoded.currentProjectId() == null ? null : findProject(projectRegistry, decoded.currentProjectId()));
+         officer.setCurrentRegistrationForm(officer.getMyRegistrationForms().stream()
+                 .filter(f -> f.getId().equals(currentFormId))
+                 .findFirst()
+                 .orElse(null));
+      }
+      else if (user instanceof Manager manager) {
+         manager.setCurrentProject(decoded.currentProjectId() == null ? null : findProject(projectRegistry, decoded.currentProjectId()));
+      }
+   }
+
+   // Adds the user, or updates the one already there with everything but its links to projects
+   private User applyUserFields(User incoming, UserRegistry userRegistry) {
+      User user = userRegistry.getUserByNric(incoming.getNric());
+      if (user == null) {
+         user = incoming;
+         userRegistry.addUser(user);
+      }
+      user.setPassword(incoming.getPassword());
+      user.setFilterSettings(incoming.getFilterSettings());
+
+      if (user instanceof Applicant applicant && incoming instanceof Applicant source) {
+         applicant.setBookedFlatType(source.getBookedFlatType());
+      }
+      if (user instanceof Officer officer && incoming instanceof Officer source) {
+         officer.setOfficerStatus(source.getOfficerStatus());
+      }
+      return user;
+   }
+
+   private void applyProject(DataInputStream in, ProjectRegistry projectRegistry) throws IOException {
+      Project incoming = SessionCodec.readProject(in);
+      changes.project(incoming.getId());
+      sawId(IdType.PROJECT_ID, incoming.getId());
+
+      Project project = findProject(projectRegistry, incoming.getId());
+      if (project == null) {
+         projectRegistry.addProject(incoming);
+         return;
+      }
+      projectRegistry.renameProject(project, incoming.getProjectName());
+      project.setNeighborhood(incoming.getNeighborhood());
+      project.setApplicationOpeningDate(incoming.getApplicationOpeningDate());
+      project.setApplicationClosingDate(incoming.getApplicationClosingDate());
+      project.setAvailableOfficerSlots(incoming.getAvailableOfficerSlots());
+      project.setVisibility(incoming.isVisibility());
+      project.setBookingOrder(incoming.getBookingOrder());
+      List<String> officers = incoming.getOfficers();
+      List<String> current = new ArrayList<>(project.getOfficers());
+      current.stream().filter(o -> !officers.contains(o)).forEach(project::removeOfficer);
+      officers.stream().filter(o -> !current.contains(o)).forEach(project::addOfficer);
+      projectRegistry.projectChanged(project);
+   }
+
+   private void applyApplication(DataInputStream in, ProjectRegistry projectRegistry, UserRegistry userRegistry) throws IOException {
+      Application incoming = SessionCodec.readApplication(in);
+      changes.child(incoming.getProjectId(), incoming.getApplicantNric());
+      sawId(IdType.APPLICATION_ID, incoming.getId());
+      Project project = findProject(projectRegistry, incoming.getProjectId());
+      if (project == null) {
+         return;
+      }
+      Application existing = project.getApplications().stream()
+              .filter(a -> a.getId().equals(incoming.getId()))
+              .findFirst()
+              .orElse(null);
+      if (existing != null) {
+         existing.setStatus(incoming.getApplicationStatus());
+         existing.setBookingStatus(incoming.getBookingStatus());
+         existing.setWithdrawalRequestStatus(incoming.getWithdrawalRequestStatus());
+         return;
+      }
+      project.addApplication(incoming);
+      projectRegistry.indexApplication(incoming);
+      if (userRegistry.getUserByNric(incoming.getApplicantNric()) instanceof Applicant applicant) {
+         applicant.getMyApplications().add(incoming);
+      }
+   }
+
+   private void applyEnquiry(DataInputStream in, ProjectRegistry projectRegistry, UserRegistry userRegistry) throws IOException {
+      Enquiry incoming = SessionCodec.readEnquiry(in);
+      changes.child(incoming.getProjectId(), incoming.getApplicantNric());
+      sawId(IdType.ENQUIRY_ID, incoming.getId());
+      Project project = findProject(projectRegistry, incoming.getProjectId());
+      if (project == null) {
+         return;
+      }
+      // Enquiries are replaced wholesale; their text and reply can only be set through the enquiry service.
+      replaceById(project.getEnquiries(), incoming);
+      if (userRegistry.getUserByNric(incoming.getApplicantNric()) instanceof Applicant applicant) {
+         replaceById(applicant.getEnquiries(), incoming);
+      }
+   }
+
+   private void replaceById(List<Enquiry> enquiries, Enquiry incoming) {
+      for (int i = 0; i < enquiries.size(); i++) {
+         if (enquiries.get(i).getId().equals(incoming.getId())) {
+            enquiries.set(i, incoming);
+            return;
+         }
+      }
+      enquiries.add(incoming);
+   }
+
+   private void applyRegistration(DataInputStream in, ProjectRegistry projectRegistry, UserRegistry userRegistry) throws IOException {
+      RegistrationForm incoming = SessionCodec.readRegistration(in);
+      changes.child(incoming.getProjectId(), incoming.getNric());
+      sawId(IdType.REGISTRATION_FORM_ID, incoming.getId());
+      Project project = findProject(projectRegistry, incoming.getProjectId());
+      if (project == null) {
+         return;
+      }
+      RegistrationForm existing = project.getRegistrationForms().stream()
+              .filter(f -> f.getId().equals(incoming.getId()))
+              .findFirst()
+              .orElse(null);
+      if (existing != null) {
+         existing.setStatus(incoming.getStatus());
+         return;
+      }
+      project.addRegistrationForm(incoming);
+      if (userRegistry.getUserByNric(incoming.getNric()) instanceof Officer officer) {
+         officer.addRegistrationForm(incoming);
+      }
+   }
+
+   private Project findProject(ProjectRegistry projectRegistry, int id) {
+      return projectRegistry.getProjectById(id);
+   }
+
+   @FunctionalInterface
+   private interface RecordWriter {
+      void write(DataOutputStream out) throws IOException;
+   }
+
+   @FunctionalInterface
+   private interface EntityWriter<T> {
+      void write(DataOutputStream out, T entity) throws IOException;
+   }
+
+   @FunctionalInterface
+   private interface FrameReader {
+      void read(DataInputStream frame) throws IOException;
+   }
+}
@@ -1,81 +1,307 @@
 package system;
 
 import UniqueID.IUniqueIdService;
-import helper.ProjectRegistryLoader.ProjectRegistryLoadingController;
-import helper.ProjectRegistryLoader.ProjectStaffLinker;
-import helper.UserRegistryLoader.UserRegistryLoadingController;
+import UniqueID.IdType;
+import helper.storage.GroupCommit;
+import manager.Manager;
+import officer.Officer;
+import project.Project;
 import project.ProjectRegistry;
 import user.IPasswordValidationService;
 import user.User;
 import user.UserRegistry;
 
 import java.io.*;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 public class SessionManager implements Serializable {
    @Serial
    private static final long serialVersionUID = 1L;
-   private static final String SAVE_FILE = "session.ser";
+   // Java-serialized sessions written by older versions; only read to migrate them to the snapshot
+   private static final String LEGACY_SAVE_FILE = "session.ser";
+   // The journal is folded into the snapshot once this many mutations have accumulated in it
+   private static final int SNAPSHOT_INTERVAL = 200;
    private transient final IPasswordValidationService passwordValidationService;
    private transient final IUniqueIdService uniqueIdService;
+   private transient final SessionJournal journal;
+   private transient final SessionSnapshot snapshot;
    private ProjectRegistry projectRegistry;
    private UserRegistry userRegistry;
-   private User currentUser = null;
+   // Set by a fast start until the background read of the projects has been waited for
+   private transient CompletableFuture<List<Project>> pendingProjects;
+   private transient SessionSnapshot.StagedRead stagedRead;
+   // Folds the last sealed journal segment into the snapshot; non-daemon so that an exit lets it finish
+   private transient Thread compaction;
+   // Set when a fast start could not be completed; every later use of the session fails with it
+   private transient IllegalStateException failedStart;
+   // Held while checking a login, and while a fast start replaces the users the logins are checked against
+   private transient final Object logins = new Object();
+   // Whether anyone has logged in; a fast start can then no longer replace the users
+   private transient boolean usersInUse;
 
    public SessionManager(Boolean loadFromTxt) {
+      this(loadFromTxt, false);
+   }
+
+   /**
+    * @param loadFromTxt Start from the given txt files instead of the saved session.
+    * @param fastStart   When starting from a snapshot, decode only the users, and the user records of the journal,
+    *                    before returning and read the projects on a background thread; the session is completed at
+    *                    the first lookup of a project, or when a staff member logs in. Snapshots without a checksum
+    *                    of their own for the users are read in full.
+    */
+   public SessionManager(Boolean loadFromTxt, boolean fastStart) {
       this.uniqueIdService = ServiceRegistry.get(IUniqueIdService.class);
       this.passwordValidationService = ServiceRegistry.get(IPasswordValidationService.class);
+      this.journal = new SessionJournal();
+      this.snapshot = new SessionSnapshot();
+      // Otherwise every append is forced to disk on its own
+      if (ServiceRegistry.isRegistered(GroupCommit.class)) {
+         journal.commitThrough(ServiceRegistry.get(GroupCommit.class));
+      }
 
       boolean loadedFromSerialized = false;
 
-      // Only try to load from serialized file if not explicitly told to load from txt
+      // Only try to load from the snapshot (or a legacy serialized file) if not explicitly told to load from txt
       if (!loadFromTxt) {
-         SessionManager loadedSession = loadSession();
-         if (loadedSession != null) {
+         loadedFromSerialized = (fastStart && startFromSnapshot()) || loadSnapshot() || migrateLegacySession();
+      }
+
+      // If we couldn't load from serialized file or were explicitly told to load from txt
+      if (!loadedFromSerialized) {
+         startFromTxt();
+      }
+
+      if (pendingProjects == null) {
+         attachJournal();
+      }
+   }
+
+   private void startFromTxt() {
+      this.projectRegistry = new ProjectRegistry();
+      this.userRegistry = new UserRegistry();
+
+      try {
+         loadFromTxt();
+         System.out.println("Session loaded from Txt file.");
+
+         // After loading from txt, save the session to update the serialized file
+         saveSession();
+      }
+      catch (Exception e) {
+         System.out.println("Error: @ Loading Files " + e.getMessage());
+         e.printStackTrace();
+      }
+   }
+
+   // From here on every mutation is appended to the journal instead of rewriting the registries
+   private void attachJournal() {
+      projectRegistry.setJournal(journal);
+      userRegistry.setJournal(journal);
+   }
+
+   // Fast start: the users are decoded now and the projects on a background thread, for awaitSession to pick up
+   private boolean startFromSnapshot() {
+      if (!snapshot.exists()) {
+         return false;
+      }
+      try {
+         SessionSnapshot.StagedRead staged = snapshot.readUsersFirst(this::awaitSession);
+         CompletableFuture<List<Project>> projects = new CompletableFuture<>();
+         Thread.ofPlatform().name("session-loader").daemon().start(() -> {
             try {
-               this.projectRegistry = loadedSession.projectRegistry;
-               this.userRegistry = loadedSession.userRegistry;
-               System.out.println("Session loaded from serialized file.");
-               loadedFromSerialized = true;
+               projects.complete(staged.readProjects());
             }
-            catch (Exception e) {
-               System.out.println("Error during deserialization processing: " + e.getMessage());
-               // If we get an exception while accessing the loaded data, it's likely a class incompatibility
-               loadedFromSerialized = false;
+            catch (Throwable e) {
+               projects.completeExceptionally(e);
             }
+         });
+         this.userRegistry = staged.userRegistry();
+         this.projectRegistry = new ProjectRegistry(); // filled in by awaitSession; services may hold it already
+         this.projectRegistry.setLoader(registry -> awaitSession());
+         this.stagedRead = staged;
+         this.pendingProjects = projects;
+         // So logins are checked against the passwords in the journal as well
+         replayUserRecords();
+         return true;
+      }
+      catch (IOException e) {
+         System.out.println("Error loading session snapshot: " + e.getMessage());
+         snapshot.setAside();
+         return false;
+      }
+   }
+
+   /**
+    * Completes a fast start: waits for the projects, links the users to them, replays the journal and attaches it.
+    * Does nothing if the session is already complete, or is being completed by the calling thread.
+    */
+   private synchronized void awaitSession() {
+      if (failedStart != null) {
+         throw failedStart;
+      }
+      CompletableFuture<List<Project>> pending = pendingProjects;
+      if (pending == null) {
+         return;
+      }
+      // Cleared first: completing the session looks projects up, which would otherwise wait for it again
+      SessionSnapshot.StagedRead staged = stagedRead;
+      pendingProjects = null;
+      stagedRead = null;
+      List<Project> projects;
+      try {
+         projects = pending.join();
+      }
+      catch (CompletionException e) {
+         System.out.println("Error loading session snapshot: " + e.getCause().getMessage());
+         snapshot.setAside();
+         synchronized (logins) {
+            if (usersInUse) {
+               // Sessions already hold the users of the snapshot, which cannot be swapped for others under them
+               failedStart = new IllegalStateException("The session snapshot could not be read and was moved aside; "
+                       + "restart to load the session without it");
+               throw failedStart;
+            }
+            startWithoutSnapshot();
          }
+         projectRegistry.setLoader(null);
+         return;
+      }
+      staged.complete(projectRegistry, projects);
+      System.out.println("Session loaded from snapshot.");
+      try {
+         replayJournal();
+      }
+      catch (IllegalStateException e) {
+         failedStart = e;
+         throw e;
       }
+      attachJournal();
+      projectRegistry.setLoader(null);
+   }
 
-      // If we couldn't load from serialized file or were explicitly told to load from txt
-      if (!loadedFromSerialized) {
-         this.projectRegistry = new ProjectRegistry();
-         this.userRegistry = new UserRegistry();
+   // Loads the session as a start without a snapshot would, into the registries the services already hold
+   private void startWithoutSnapshot() {
+      ProjectRegistry heldProjects = projectRegistry;
+      UserRegistry heldUsers = userRegistry;
+      if (!migrateLegacySession()) {
+         startFromTxt();
+      }
+      heldUsers.clear();
+      heldUsers.addUsers(userRegistry.getUsers().values());
+      heldProjects.addProjects(projectRegistry.getProjects());
+      this.userRegistry = heldUsers;
+      this.projectRegistry = heldProjects;
+      attachJournal();
+   }
 
-         try {
-            loadFromTxt();
-            System.out.println("Session loaded from Txt file.");
+   private boolean loadSnapshot() {
+      if (!snapshot.exists()) {
+         return false;
+      }
+      try {
+         SessionSnapshot.Contents contents = snapshot.read();
+         this.projectRegistry = contents.projectRegistry();
+         this.userRegistry = contents.userRegistry();
+         System.out.println("Session loaded from snapshot.");
+         replayJournal();
+         return true;
+      }
+      catch (IOException e) {
+         System.out.println("Error loading session snapshot: " + e.getMessage());
+         snapshot.setAside();
+         return false;
+      }
+   }
 
-            // After loading from txt, save the session to update the serialized file
-            saveSession();
-         }
-         catch (Exception e) {
-            System.out.println("Error: @ Loading Files " + e.getMessage());
-            e.printStackTrace();
-         }
+   // Converts a session.ser written by older versions into the binary snapshot, keeping the old file aside
+   private boolean migrateLegacySession() {
+      SessionManager loadedSession = loadSession();
+      if (loadedSession == null) {
+         return false;
+      }
+      try {
+         this.projectRegistry = loadedSession.projectRegistry;
+         this.userRegistry = loadedSession.userRegistry;
+         System.out.println("Session loaded from serialized file.");
+      }
+      catch (Exception e) {
+         System.out.println("Error during deserialization processing: " + e.getMessage());
+         // If we get an exception while accessing the loaded data, it's likely a class incompatibility
+         return false;
+      }
+      replayJournal();
+      if (writeSnapshot()) {
+         journal.truncate();
+         setAside(LEGACY_SAVE_FILE + ".migrated");
+         System.out.println("Migrated serialized session to the binary snapshot format.");
+      }
+      return true;
+   }
+
+   // A sealed segment left by a compaction that did not finish holds the older records, so it goes first
+   private void replayJournal() {
+      journal.trackChangesIn(snapshot.changes());
+      int replayed = 0;
+      SessionJournal sealed = journal.sealedSegment();
+      if (sealed != null) {
+         sealed.trackChangesIn(snapshot.changes());
+         replayed += replay(sealed, false);
+      }
+      replayed += replay(journal, false);
+      advanceIdsPast(journal.getHighestReplayedIds());
+      if (sealed != null) {
+         advanceIdsPast(sealed.getHighestReplayedIds());
+      }
+      if (replayed > 0) {
+         System.out.println("Replayed " + replayed + " journal records.");
+      }
+   }
+
+   // Applies the user records of the journal to the users alone, before the projects are in; replayJournal follows
+   private void replayUserRecords() {
+      SessionJournal sealed = journal.sealedSegment();
+      if (sealed != null) {
+         replay(sealed, true);
+      }
+      replay(journal, true);
+   }
+
+   /**
+    * Replays one journal file, or only its user records. One that cannot be read is moved aside and the session is
+    * not started, since starting without the changes in it, and writing new ones after them, would lose them for good.
+    */
+   private int replay(SessionJournal segment, boolean usersOnly) {
+      try {
+         return usersOnly ? segment.replayUsers(userRegistry) : segment.replay(projectRegistry, userRegistry);
+      }
+      catch (IOException e) {
+         System.out.println("Error replaying session journal: " + e.getMessage());
+         segment.setAside();
+         throw new IllegalStateException("The session journal could not be replayed and was moved aside; "
+                 + "the session was not started so that no saved change is lost", e);
       }
    }
 
+   // Ids are reserved on disk before they are used, so this only matters if the id state file was restored or lost
+   private void advanceIdsPast(Map<IdType, Integer> highestIds) {
+      highestIds.forEach(uniqueIdService::advancePast);
+   }
+
    private SessionManager loadSession() {
-      try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(SAVE_FILE))) {
+      if (!new File(LEGACY_SAVE_FILE).exists()) {
+         return null;
+      }
+      try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(LEGACY_SAVE_FILE))) {
          return (SessionManager) in.readObject();
       }
       catch (InvalidClassException e) {
          System.out.println("Class structure has changed, cannot load serialized data: " + e.getMessage());
-         // Delete the incompatible serialized file
-         File serFile = new File(SAVE_FILE);
-         if (serFile.exists()) {
-            serFile.delete();
-            System.out.println("Deleted incompatible serialized file.");
-         }
+         // Keep the incompatible file around so it can still be recovered with an older build
+         setAside(LEGACY_SAVE_FILE + ".incompatible");
          return null;
       }
       catch (IOException | ClassNotFoundException e) {
@@ -84,28 +310,79 @@ public class SessionManager implements Serializable {
       }
    }
 
-   public void saveSession() {
-      try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(SAVE_FILE))) {
-         out.writeObject(this);
+   private void setAside(String target) {
+      File serFile = new File(LEGACY_SAVE_FILE);
+      if (serFile.exists() && serFile.renameTo(new File(target))) {
+         System.out.println("Moved " + LEGACY_SAVE_FILE + " to " + target + ".");
+      }
+   }
+
+   public synchronized void saveSession() {
+      awaitSession();
+      awaitCompaction();
+      // Holds the journal, so no session appends a change between the snapshot and the truncate, only to lose it
+      synchronized (journal) {
+         if (writeSnapshot()) {
+            journal.truncate();
+         }
+      }
+      // otherwise keep the journal, it still holds everything since the last good snapshot
+   }
+
+   private boolean writeSnapshot() {
+      try {
+         snapshot.write(projectRegistry, userRegistry);
          System.out.println("Session saved successfully.");
+         return true;
       }
       catch (IOException e) {
          System.out.println("Error saving session: " + e.getMessage());
          e.printStackTrace();
+         return false;
       }
    }
 
-   public void loadFromTxt() {
+   /**
+    * Once enough mutations have accumulated in the journal, seals it and folds it into the snapshot on a background
+    * thread, so only the projects and users it touched are encoded again; otherwise the journal alone already holds
+    * every change since the last snapshot. Falls back to a full snapshot if there is none on disk yet, or if an
+    * earlier compaction left its segment behind.
+    */
+   public synchronized void checkpoint() {
+      if (journal.getRecordCount() < SNAPSHOT_INTERVAL || (compaction != null && compaction.isAlive())) {
+         return;
+      }
+      awaitSession();
+      if (!snapshot.exists() || journal.hasSealedSegment()) {
+         saveSession();
+         return;
+      }
       try {
-         UserRegistryLoadingController userRegistryLoadingController = new UserRegistryLoadingController();
-         this.userRegistry = userRegistryLoadingController.initializeUserRegistry();
+         compaction = Thread.ofPlatform().name("snapshot-compactor").start(new SnapshotCompactor(journal.seal()));
+      }
+      catch (IOException e) {
+         System.out.println("Error sealing session journal: " + e.getMessage());
+      }
+   }
 
-         ProjectRegistryLoadingController projectRegistryLoadingController = new ProjectRegistryLoadingController(uniqueIdService);
-         this.projectRegistry = projectRegistryLoadingController.initializeProjectRegistry();
+   // The snapshot file must not be written by the session and a compaction at the same time
+   private void awaitCompaction() {
+      if (compaction == null) {
+         return;
+      }
+      try {
+         compaction.join();
+      }
+      catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      }
+   }
 
-         ProjectStaffLinker projectStaffLinker = new ProjectStaffLinker(this.projectRegistry, this.userRegistry);
-         projectStaffLinker.linkProjectToOfficer();
-         projectStaffLinker.linkProjectToManager();
+   public void loadFromTxt() {
+      try {
+         TxtSessionLoader.Result loaded = new TxtSessionLoader(uniqueIdService).load();
+         this.userRegistry = loaded.userRegistry();
+         this.projectRegistry = loaded.projectRegistry();
       }
       catch (Exception e) {
          System.out.println("Error: @ Loading Files " + e.getMessage());
@@ -113,31 +390,48 @@ public class SessionManager implements Serializable {
       }
    }
 
+   /**
+    * Checks the credentials against the users alone, which after a fast start already hold the passwords in the
+    * journal, so a login does not wait for the projects. Staff work on their current project from the start, so
+    * their login completes the session; an applicant's waits until a project is first looked up.
+    */
    public void login(String nric, String password) {
+      User u;
       try {
-         User u = userRegistry.getUserByNric(nric);
+         synchronized (logins) {
+            u = userRegistry.getUserByNric(nric);
 
-         if (u != null) {
-            passwordValidationService.isPasswordMatch(u, password);
-            this.currentUser = u;
+            if (u != null) {
+               passwordValidationService.isPasswordMatch(u, password);
+               SessionContext.current().setUser(u);
+               usersInUse = true;
+            }
          }
       }
       catch (IllegalArgumentException e) {
          throw new IllegalArgumentException(e);
       }
+      if (u instanceof Manager || u instanceof Officer) {
+         awaitSession();
+      }
    }
 
+   // The user logged in to the calling thread's session
    public User getCurrentUser() {
-      return currentUser;
+      return SessionContext.current().getUser();
    }
 
    public boolean isLoggedIn() {
-      return currentUser != null;
+      return getCurrentUser() != null;
    }
 
    public void logout() {
-      saveSession();
-      this.currentUser = null;
+      checkpoint();
+      SessionContext.current().setUser(null);
+   }
+
+   public SessionJournal getJournal() {
+      return journal;
    }
 
    public ProjectRegistry getProjectRegistry() {
@@ -149,7 +443,7 @@ public class SessionManager implements Serializable {
    }
 
    public User getUserByNric(String nric) {
-      return userRegistry.getUser(nric);
+      return userRegistry.getUserByNric(nric);
    }
 
    public User getUserByName(String name) {
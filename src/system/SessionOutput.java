@@ -0,0 +1,193 @@
+package system;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Locale;
+
+/**
+ * Stands in for System.out while sessions are served, so that the menus keep printing to System.out and each line
+ * still reaches the session that printed it. Every call is passed on whole to the stream of the calling thread's
+ * session, or to the original System.out outside a session; nothing is buffered or locked here, so a slow session
+ * never holds up the others.
+ */
+final class SessionOutput extends PrintStream {
+   private final PrintStream console;
+
+   SessionOutput(PrintStream console) {
+      super(OutputStream.nullOutputStream());
+      this.console = console;
+   }
+
+   private PrintStream target() {
+      SessionContext context = SessionContext.entered();
+      return context != null ? context.getOut() : console;
+   }
+
+   @Override
+   public void write(int b) {
+      target().write(b);
+   }
+
+   @Override
+   public void write(byte[] buf, int off, int len) {
+      target().write(buf, off, len);
+   }
+
+   @Override
+   public void write(byte[] buf) {
+      target().write(buf, 0, buf.length);
+   }
+
+   @Override
+   public void flush() {
+      target().flush();
+   }
+
+   @Override
+   public boolean checkError() {
+      return target().checkError();
+   }
+
+   // Closing System.out from a session must not close the console or the session's socket
+   @Override
+   public void close() {
+      flush();
+   }
+
+   @Override
+   public void print(boolean b) {
+      target().print(b);
+   }
+
+   @Override
+   public void print(char c) {
+      target().print(c);
+   }
+
+   @Override
+   public void print(int i) {
+      target().print(i);
+   }
+
+   @Override
+   public void print(long l) {
+      target().print(l);
+   }
+
+   @Override
+   public void print(float f) {
+      target().print(f);
+   }
+
+   @Override
+   public void print(double d) {
+      target().print(d);
+   }
+
+   @Override
+   public void print(char[] s) {
+      target().print(s);
+   }
+
+   @Override
+   public void print(String s) {
+      target().print(s);
+   }
+
+   @Override
+   public void print(Object obj) {
+      target().print(obj);
+   }
+
+   @Override
+   public void println() {
+      target().println();
+   }
+
+   @Override
+   public void println(boolean x) {
+      target().println(x);
+   }
+
+   @Override
+   public void println(char x) {
+      target().println(x);
+   }
+
+   @Override
+   public void println(int x) {
+      target().println(x);
+   }
+
+   @Override
+   public void println(long x) {
+      target().println(x);
+   }
+
+   @Override
+   public void println(float x) {
+      target().println(x);
+   }
+
+   @Override
+   public void println(double x) {
+      target().println(x);
+   }
+
+   @Override
+   public void println(char[] x) {
+      target().println(x);
+   }
+
+   @Override
+   public void println(String x) {
+      target().println(x);
+   }
+
+   @Override
+   public void println(Object x) {
+      target().println(x);
+   }
+
+   @Override
+   public PrintStream printf(String format, Object... args) {
+      target().printf(format, args);
+      return this;
+   }
+
+   @Override
+   public PrintStream printf(Locale l, String format, Object... args) {
+      target().printf(l, format, args);
+      return this;
+   }
+
+   @Override
+   public PrintStream format(String format, Object... args) {
+      target().format(format, args);
+      return this;
+   }
+
+   @Override
+   public PrintStream format(Locale l, String format, Object... args) {
+      target().format(l, format, args);
+      return this;
+   }
+
+   @Override
+   public PrintStream append(CharSequence csq) {
+      target().append(csq);
+      return this;
+   }
+
+   @Override
+   public PrintStream append(CharSequence csq, int start, int end) {
+      target().append(csq, start, end);
+      return this;
+   }
+
+   @Override
+   public PrintStream append(char c) {
+      target().append(c);
+      return this;
+   }
+}
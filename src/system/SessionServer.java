@@ -0,0 +1,121 @@
+package system;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Scanner;
+
+/**
+ * Serves the same menus as the console to many users at once, over plain-text connections on a local port, e.g.
+ * with {@code nc localhost <port>}. Every connection is a session of its own, run on a virtual thread of its own.
+ * <p>
+ * Sessions run side by side: the registries guard themselves, and projects and applicants are guarded by the locks
+ * of {@link EntityLocks}, so no lock is held for a whole session. A session's output is buffered and only sent once
+ * it waits for its next line of input, so a slow connection holds up nobody but itself.
+ */
+public final class SessionServer {
+   private static final int BACKLOG = 1024;
+   private final int port;
+   private final Runnable session;
+
+   /**
+    * @param port    The local port to listen on.
+    * @param session Runs the menus for the session of the calling thread until its user exits.
+    */
+   public SessionServer(int port, Runnable session) {
+      this.port = port;
+      this.session = session;
+   }
+
+   /**
+    * Accepts connections until the process is stopped. Output printed outside a session still goes to the console.
+    */
+   public void serve() throws IOException {
+      PrintStream console = System.out;
+      System.setOut(new SessionOutput(console));
+      try (ServerSocket server = new ServerSocket(port, BACKLOG, InetAddress.getLoopbackAddress())) {
+         console.println("Serving sessions on port " + server.getLocalPort() + ".");
+         while (true) {
+            Socket socket = server.accept();
+            Thread.ofVirtual().name("session-" + socket.getPort()).start(() -> serve(socket));
+         }
+      }
+   }
+
+   private void serve(Socket socket) {
+      SessionManager sessionManager = ServiceRegistry.get(SessionManager.class);
+      try (socket) {
+         PrintStream out = new PrintStream(new BufferedOutputStream(socket.getOutputStream()), false,
+                 StandardCharsets.UTF_8);
+         Scanner scanner = new Scanner(new LineInput(socket.getInputStream(), out), StandardCharsets.UTF_8);
+         SessionContext context = new SessionContext(scanner, out);
+         context.enter();
+         try {
+            session.run();
+         }
+         catch (SessionClosed e) {
+            // Logging out checkpoints the journal, as it would have if the user had logged out
+            if (sessionManager.isLoggedIn()) {
+               sessionManager.logout();
+            }
+         }
+         finally {
+            context.leave();
+            out.flush();
+         }
+      }
+      catch (IOException e) {
+         // the connection is gone, so is the session
+      }
+   }
+
+   /**
+    * The input of a session. Sends the buffered output before it waits for input.
+    * Once the connection is closed, ends the session instead of reporting the end of input, which the menus would
+    * otherwise keep asking again.
+    */
+   private static final class LineInput extends FilterInputStream {
+      private final PrintStream out;
+
+      LineInput(InputStream in, PrintStream out) {
+         super(in);
+         this.out = out;
+      }
+
+      @Override
+      public int read() throws IOException {
+         byte[] one = new byte[1];
+         return read(one, 0, 1) == -1 ? -1 : one[0] & 0xFF;
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+         int read;
+         try {
+            out.flush();
+            read = in.read(b, off, len);
+         }
+         catch (IOException e) {
+            read = -1;
+         }
+         if (read == -1) {
+            throw new SessionClosed();
+         }
+         return read;
+      }
+   }
+
+   /**
+    * Ends a session whose connection has closed. An Error rather than an exception, since the menus catch every
+    * exception and go on asking for input.
+    */
+   private static final class SessionClosed extends Error {
+      private static final long serialVersionUID = 1L;
+
+      SessionClosed() {
+         super("Session closed", null, false, false);
+      }
+   }
+}
@@ -0,0 +1,666 @@
+package system;
+
+import applicant.Applicant;
+import applicant.Application;
+import enquiry.Enquiry;
+import helper.storage.AtomicFile;
+import manager.Manager;
+import officer.Officer;
+import officer.RegistrationForm;
+import project.Project;
+import project.ProjectRegistry;
+import user.User;
+import user.UserRegistry;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Compact binary snapshot of both registries, written with {@link SessionCodec}.
+ * <p>
+ * File layout:
+ * <pre>
+ * header   : int magic, short codec version
+ * projects : int count, then per project the project record, an int block length and the block
+ *            (registration forms, applications, enquiries, each as int count + record bodies; the
+ *            project id comes from the enclosing project)
+ * users    : int count, then per user the user record and, for applicants and officers, an int links
+ *            length followed by the links
+ * footer   : int CRC32C of the users section, int offset of the users section, int CRC32C of everything
+ *            before it
+ * </pre>
+ * Applications, enquiries and registration forms are stored once, inside the block of the project they
+ * belong to. A user only stores links to them as (project id, id) pairs, in list order. Children whose
+ * project has been deleted are not in any block and are stored inline with the user instead.
+ * <p>
+ * The file is memory-mapped when read. Project records and users are decoded up front, but a project's
+ * block is only decoded the first time one of its child lists is used, and a user's links are only
+ * resolved (paging in the projects they point to) the first time one of the user's lists is used.
+ * Startup time and heap therefore follow the projects and users actually touched, not the whole history.
+ * For a fast start the footer lets {@link #readUsersFirst} check and decode the users alone, leaving the whole file
+ * to be checked and the project records decoded afterwards.
+ * <p>
+ * The file is replaced whole through {@link AtomicFile}, and its checksums are verified before what they cover is
+ * decoded, so a damaged file is rejected as a whole instead of being half read.
+ */
+public class SessionSnapshot {
+   private static final String SNAPSHOT_FILE = "./data/session.snapshot";
+   private static final int MAGIC = 0x42544F55; // "BTOU"
+   // Users checksum and users offset; the checksum of the whole file is left out of the buffer returned by map
+   private static final int FOOTER_LENGTH = 8;
+
+   // Link tags inside a user record
+   private static final byte LINK = 0;
+   private static final byte INLINE = 1;
+
+   // Kinds of unresolved links while reading
+   private static final int APPLICATION_REF = 0;
+   private static final int ENQUIRY_REF = 1;
+   private static final int REGISTRATION_REF = 2;
+
+   private final File file;
+   // Backs the registries returned by the last read; null if they did not come from a snapshot
+   private MappedStore store;
+   // What has changed in those registries since, as marked by the journal
+   private DirtySet changes = new DirtySet();
+
+   public SessionSnapshot() {
+      this.file = new File(SNAPSHOT_FILE);
+   }
+
+   public record Contents(ProjectRegistry projectRegistry, UserRegistry userRegistry) {
+   }
+
+   public boolean exists() {
+      return file.exists() && file.length() > 0;
+   }
+
+   public long length() {
+      return file.length();
+   }
+
+   /**
+    * The projects and users changed since the last read, for the journal to mark.
+    */
+   DirtySet changes() {
+      return changes;
+   }
+
+   // =================== Writing ===================
+
+   /**
+    * Writes a new snapshot next to the current one, syncs it and then moves it over it, so that a mapping of the
+    * current file stays valid. The blocks and links of projects and users that have not changed since the last
+    * read, paged in or not, are copied over as raw bytes; only dirty ones are encoded again.
+    */
+   public void write(ProjectRegistry projectRegistry, UserRegistry userRegistry) throws IOException {
+      AtomicFile.write(file.toPath(), target -> {
+         CRC32C crc = new CRC32C();
+         DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(target, crc), 1 << 16));
+         writeContents(out, projectRegistry, userRegistry);
+         out.flush();
+         new DataOutputStream(target).writeInt((int) crc.getValue());
+      });
+   }
+
+   private void writeContents(DataOutputStream out, ProjectRegistry projectRegistry, UserRegistry userRegistry)
+           throws IOException {
+      List<Project> projects = projectRegistry.getProjects();
+      Map<Integer, Project> registered = new HashMap<>(projects.size() * 2);
+      for (Project project : projects) {
+         registered.put(project.getId(), project);
+      }
+
+      out.writeInt(MAGIC);
+      out.writeShort(SessionCodec.VERSION);
+
+      out.writeInt(projects.size());
+      ByteArrayOutputStream block = new ByteArrayOutputStream(4096);
+      byte[] chunk = new byte[8192];
+      for (Project project : projects) {
+         SessionCodec.writeProject(out, project);
+         ByteBuffer raw = store != null ? store.rawBlock(project, changes) : null;
+         if (raw != null) {
+            out.writeInt(raw.remaining());
+            copy(raw, out, chunk);
+         }
+         else {
+            block.reset();
+            writeChildren(new DataOutputStream(block), project);
+            out.writeInt(block.size());
+            block.writeTo(out);
+         }
+      }
+
+      int usersOffset = out.size();
+      CRC32C usersCrc = new CRC32C();
+      DataOutputStream usersOut = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(out, usersCrc), 1 << 16));
+      writeUsers(usersOut, userRegistry, registered, chunk);
+      usersOut.flush();
+      out.writeInt((int) usersCrc.getValue());
+      out.writeInt(usersOffset);
+   }
+
+   private void writeUsers(DataOutputStream out, UserRegistry userRegistry, Map<Integer, Project> registered,
+                           byte[] chunk) throws IOException {
+      Collection<User> users = userRegistry.getUsers().values();
+      out.writeInt(users.size());
+      Map<Project, Set<Object>> stored = new IdentityHashMap<>();
+      boolean projectsDeleted = store != null && store.hasDeletedProjects(registered.keySet());
+      ByteArrayOutputStream links = new ByteArrayOutputStream(256);
+      for (User user : users) {
+         SessionCodec.writeUser(out, user);
+         if (user instanceof Applicant applicant) {
+            ByteBuffer raw = store != null ? store.rawLinks(applicant, changes) : null;
+            if (raw != null && projectsDeleted && !store.linksPointInto(raw, applicant, registered.keySet())) {
+               applicant.getMyApplications(); // a linked project was deleted, resolve so its children go inline
+               raw = null;
+            }
+            if (raw != null) {
+               out.writeInt(raw.remaining());
+               copy(raw, out, chunk);
+            }
+            else {
+               links.reset();
+               writeLinks(new DataOutputStream(links), applicant, registered, stored);
+               out.writeInt(links.size());
+               links.writeTo(out);
+            }
+         }
+      }
+   }
+
+   private void writeLinks(DataOutputStream out, Applicant applicant, Map<Integer, Project> registered,
+                           Map<Project, Set<Object>> stored) throws IOException {
+      out.writeInt(applicant.getMyApplications().size());
+      for (Application application : applicant.getMyApplications()) {
+         writeLink(out, application, application.getProjectId(), application.getId(), registered, stored);
+      }
+      out.writeInt(applicant.getEnquiries().size());
+      for (Enquiry enquiry : applicant.getEnquiries()) {
+         writeLink(out, enquiry, enquiry.getProjectId(), enquiry.getId(), registered, stored);
+      }
+      if (applicant instanceof Officer officer) {
+         out.writeInt(officer.getMyRegistrationForms().size());
+         for (RegistrationForm form : officer.getMyRegistrationForms()) {
+            writeLink(out, form, form.getProjectId(), form.getId(), registered, stored);
+         }
+      }
+   }
+
+   private void writeLink(DataOutputStream out, Object child, int projectId, int id, Map<Integer, Project> registered,
+                          Map<Project, Set<Object>> stored) throws IOException {
+      Project project = registered.get(projectId);
+      boolean inBlock = project != null && (store == null || !store.isUnpaged(project))
+              && stored.computeIfAbsent(project, this::childrenOf).contains(child);
+      if (inBlock) {
+         out.writeByte(LINK);
+         out.writeInt(projectId);
+         out.writeInt(id);
+      }
+      else {
+         writeInline(out, child);
+      }
+   }
+
+   private Set<Object> childrenOf(Project project) {
+      Set<Object> children = Collections.newSetFromMap(new IdentityHashMap<>());
+      children.addAll(project.getRegistrationForms());
+      children.addAll(project.getApplications());
+      children.addAll(project.getEnquiries());
+      return children;
+   }
+
+   private static void copy(ByteBuffer raw, OutputStream out, byte[] chunk) throws IOException {
+      while (raw.hasRemaining()) {
+         int n = Math.min(chunk.length, raw.remaining());
+         raw.get(chunk, 0, n);
+         out.write(chunk, 0, n);
+      }
+   }
+
+   private void writeInline(DataOutputStream out, Object child) throws IOException {
+      out.writeByte(INLINE);
+      if (child instanceof Application application) {
+         SessionCodec.writeApplication(out, application);
+      }
+      else if (child instanceof Enquiry enquiry) {
+         SessionCodec.writeEnquiry(out, enquiry);
+      }
+      else {
+         SessionCodec.writeRegistration(out, (RegistrationForm) child);
+      }
+   }
+
+   private void writeChildren(DataOutputStream out, Project project) throws IOException {
+      out.writeInt(project.getRegistrationForms().size());
+      for (RegistrationForm form : project.getRegistrationForms()) {
+         SessionCodec.writeRegistrationBody(out, form, project);
+      }
+      out.writeInt(project.getApplications().size());
+      for (Application application : project.getApplications()) {
+         SessionCodec.writeApplicationBody(out, application, project);
+      }
+      out.writeInt(project.getEnquiries().size());
+      for (Enquiry enquiry : project.getEnquiries()) {
+         SessionCodec.writeEnquiryBody(out, enquiry, project);
+      }
+   }
+
+   // =================== Reading ===================
+
+   public Contents read() throws IOException {
+      ByteBuffer buffer = map();
+      ByteBufferInput in = new ByteBufferInput(buffer);
+      readHeader(in);
+      verifyWhole(buffer);
+      MappedStore mapped = new MappedStore(buffer);
+      List<Project> projects = readProjects(in, mapped);
+      Map<User, Integer> currentProjects = new IdentityHashMap<>();
+      UserRegistry userRegistry = readUsers(in, mapped, currentProjects);
+      in.skipBytes(FOOTER_LENGTH);
+      linkCurrentProjects(mapped, currentProjects);
+
+      this.store = mapped;
+      this.changes = new DirtySet();
+      return new Contents(new ProjectRegistry(projects), userRegistry);
+   }
+
+   /**
+    * Decodes only the users, for a fast start where logging in must not wait for the projects. Only the users section
+    * is checked here, so the time to log in does not grow with the projects; the whole file is checked by
+    * {@link StagedRead#readProjects} before anything else is decoded.
+    *
+    * @param awaitProjects Run before a user's applications, enquiries or forms are first resolved, until
+    *                      {@link StagedRead#complete} is called; it must see the read completed, or throw.
+    */
+   public StagedRead readUsersFirst(Runnable awaitProjects) throws IOException {
+      ByteBuffer buffer = map();
+      readHeader(new ByteBufferInput(buffer.duplicate()));
+      int usersOffset = buffer.getInt(buffer.limit() - 4);
+      int usersEnd = buffer.limit() - FOOTER_LENGTH;
+      if (usersOffset < 6 || usersOffset > usersEnd) {
+         throw new IOException("Corrupt session snapshot footer");
+      }
+      verify(buffer.slice(usersOffset, usersEnd - usersOffset), buffer.getInt(usersEnd),
+              "Session snapshot failed the checksum of its users");
+
+      MappedStore mapped = new MappedStore(buffer);
+      mapped.projectsPending = awaitProjects; // before the users are read, see addLinks
+      Map<User, Integer> currentProjects = new IdentityHashMap<>();
+      ByteBufferInput users = new ByteBufferInput(buffer.duplicate().position(usersOffset).limit(usersEnd));
+      UserRegistry userRegistry;
+      try {
+         userRegistry = readUsers(users, mapped, currentProjects);
+      }
+      catch (RuntimeException e) {
+         throw new IOException("Corrupt session snapshot users: " + e.getMessage(), e);
+      }
+      return new StagedRead(buffer, mapped, userRegistry, currentProjects);
+   }
+
+   // The returned buffer ends before the checksum of the whole file, so it ends in the users offset
+   private ByteBuffer map() throws IOException {
+      AtomicFile.discardTemp(file.toPath()); // left by a write that was cut short
+      MappedByteBuffer buffer;
+      try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+         buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()); // stays valid after close
+      }
+      if (buffer.limit() < 6 + FOOTER_LENGTH + 4) {
+         throw new IOException("Truncated session snapshot");
+      }
+      return buffer.limit(buffer.limit() - 4);
+   }
+
+   // Checks a buffer returned by map against the checksum that follows it
+   private static void verifyWhole(ByteBuffer buffer) throws IOException {
+      verify(buffer.slice(0, buffer.limit()), buffer.duplicate().clear().getInt(buffer.limit()),
+              "Session snapshot failed its checksum");
+   }
+
+   private static void verify(ByteBuffer covered, int expected, String failure) throws IOException {
+      CRC32C crc = new CRC32C();
+      crc.update(covered);
+      if ((int) crc.getValue() != expected) {
+         throw new IOException(failure);
+      }
+   }
+
+   /**
+    * Moves a snapshot that cannot be read out of the way, keeping it for inspection.
+    */
+   public void setAside() {
+      File target = new File(file.getPath() + ".damaged");
+      if (file.renameTo(target)) {
+         System.out.println("Moved the session snapshot to " + target.getName() + ".");
+      }
+   }
+
+   private static void readHeader(ByteBufferInput in) throws IOException {
+      if (in.readInt() != MAGIC) {
+         throw new IOException("Not a session snapshot");
+      }
+      short version = in.readShort();
+      if (version != SessionCodec.VERSION) {
+         throw new IOException("Unsupported session snapshot version " + version);
+      }
+   }
+
+   private static List<Project> readProjects(ByteBufferInput in, MappedStore mapped) throws IOException {
+      int projectCount = in.readInt();
+      List<Project> projects = new ArrayList<>(projectCount);
+      for (int i = 0; i < projectCount; i++) {
+         Project project = SessionCodec.readProject(in);
+         int length = in.readInt();
+         mapped.addBlock(project, in.position(), length);
+         in.skipBytes(length);
+         projects.add(project);
+      }
+      return projects;
+   }
+
+   // Current projects are collected by id, since the projects may not have been read yet
+   private static UserRegistry readUsers(ByteBufferInput in, MappedStore mapped, Map<User, Integer> currentProjects)
+           throws IOException {
+      int userCount = in.readInt();
+      List<User> users = new ArrayList<>(userCount);
+      for (int i = 0; i < userCount; i++) {
+         SessionCodec.DecodedUser decoded = SessionCodec.readUser(in);
+         User user = decoded.user();
+         if (decoded.currentProjectId() != null) {
+            currentProjects.put(user, decoded.currentProjectId());
+         }
+         if (user instanceof Applicant applicant) {
+            int length = in.readInt();
+            mapped.addLinks(applicant, new PendingLinks(in.position(), length, decoded.currentFormId()));
+            in.skipBytes(length);
+         }
+         users.add(user);
+      }
+      UserRegistry userRegistry = new UserRegistry();
+      userRegistry.addUsers(users);
+      return userRegistry;
+   }
+
+   private static void linkCurrentProjects(MappedStore mapped, Map<User, Integer> currentProjects) {
+      currentProjects.forEach((user, projectId) -> {
+         Project currentProject = mapped.project(projectId);
+         if (user instanceof Officer officer) {
+            officer.setCurrentProject(currentProject);
+         }
+         else if (user instanceof Manager manager) {
+            manager.setCurrentProject(currentProject);
+         }
+      });
+   }
+
+   /**
+    * The rest of a snapshot whose users were read by {@link #readUsersFirst}. {@link #readProjects} checks the whole
+    * file and only touches the projects it decodes, so it may run on a background thread while the users are in use;
+    * {@link #complete} then hands the projects to the registry and links the users to them, on the thread that owns
+    * both registries.
+    */
+   public final class StagedRead {
+      private final ByteBuffer buffer;
+      private final MappedStore mapped;
+      private final UserRegistry userRegistry;
+      private final Map<User, Integer> currentProjects;
+
+      private StagedRead(ByteBuffer buffer, MappedStore mapped, UserRegistry userRegistry,
+                         Map<User, Integer> currentProjects) {
+         this.buffer = buffer;
+         this.mapped = mapped;
+         this.userRegistry = userRegistry;
+         this.currentProjects = currentProjects;
+      }
+
+      public UserRegistry userRegistry() {
+         return userRegistry;
+      }
+
+      public List<Project> readProjects() throws IOException {
+         verifyWhole(buffer);
+         ByteBufferInput in = new ByteBufferInput(buffer.duplicate().position(0));
+         readHeader(in);
+         return SessionSnapshot.readProjects(in, mapped);
+      }
+
+      public void complete(ProjectRegistry projectRegistry, List<Project> projects) {
+         projectRegistry.addProjects(projects);
+         linkCurrentProjects(mapped, currentProjects);
+         mapped.projectsPending = null;
+         store = mapped;
+         changes = new DirtySet();
+      }
+   }
+
+   // Each entry is either an inline child or a Ref still to be resolved against the project blocks
+   private static List<Object> readLinkList(DataInput in, int kind, EntityReader reader) throws IOException {
+      int size = in.readInt();
+      List<Object> links = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+         byte tag = in.readByte();
+         links.add(tag == INLINE ? reader.read(in) : new Ref(kind, in.readInt(), in.readInt()));
+      }
+      return links;
+   }
+
+   private static void readChildren(DataInput in, Project project, Children children) throws IOException {
+      int forms = in.readInt();
+      for (int i = 0; i < forms; i++) {
+         RegistrationForm form = SessionCodec.readRegistration(in, project);
+         project.addRegistrationForm(form);
+         children.registrations.put(key(project.getId(), form.getId()), form);
+      }
+      int applications = in.readInt();
+      for (int i = 0; i < applications; i++) {
+         Application application = SessionCodec.readApplication(in, project);
+         project.addApplication(application);
+         children.applications.put(key(project.getId(), application.getId()), application);
+      }
+      int enquiries = in.readInt();
+      for (int i = 0; i < enquiries; i++) {
+         Enquiry enquiry = SessionCodec.readEnquiry(in, project);
+         project.addEnquiry(enquiry);
+         children.enquiries.put(key(project.getId(), enquiry.getId()), enquiry);
+      }
+   }
+
+   private static long key(int projectId, int id) {
+      return ((long) projectId << 32) | (id & 0xFFFFFFFFL);
+   }
+
+   /**
+    * The mapped file behind a loaded session: where each project's block and each user's links are, and which of
+    * them have not been paged in or resolved yet.
+    */
+   private static class MappedStore {
+      private final ByteBuffer buffer;
+      private final Map<Integer, Project> projectsById = new HashMap<>();
+      private final Map<Project, Block> blocks = new IdentityHashMap<>();
+      private final Map<Applicant, PendingLinks> links = new IdentityHashMap<>();
+      private final Map<Project, Block> unpaged = new IdentityHashMap<>();
+      private final Map<Applicant, PendingLinks> unresolved = new IdentityHashMap<>();
+      private final Children children = new Children();
+      // Set by a staged read until its projects are in, as links cannot be resolved against projects not read yet
+      private volatile Runnable projectsPending;
+
+      MappedStore(ByteBuffer buffer) {
+         this.buffer = buffer;
+      }
+
+      void addBlock(Project project, int offset, int length) {
+         projectsById.put(project.getId(), project);
+         Block block = new Block(offset, length);
+         blocks.put(project, block);
+         unpaged.put(project, block);
+         project.setChildLoader(this::pageIn);
+      }
+
+      // While a staged read's projects are pending, every applicant waits for them, as the journal may add to any
+      void addLinks(Applicant applicant, PendingLinks links) {
+         int emptyLength = applicant instanceof Officer ? 12 : 8; // nothing but zero list counts
+         if (links.length() > emptyLength || links.currentFormId() != null) {
+            this.links.put(applicant, links);
+            unresolved.put(applicant, links);
+            applicant.setLinkLoader(this::resolveOnceRead);
+         }
+         else if (projectsPending != null) {
+            applicant.setLinkLoader(this::resolveOnceRead);
+         }
+      }
+
+      Project project(Integer id) {
+         return id == null ? null : projectsById.get(id);
+      }
+
+      synchronized boolean isUnpaged(Project project) {
+         return unpaged.containsKey(project);
+      }
+
+      // The block as it was read, unless the project has been paged in and changed since
+      synchronized ByteBuffer rawBlock(Project project, DirtySet changes) {
+         Block block = blocks.get(project);
+         if (block == null || (!unpaged.containsKey(project) && changes.isDirty(project))) {
+            return null;
+         }
+         return buffer.slice(block.offset(), block.length());
+      }
+
+      // Links of a user that was never resolved, or has not changed since, are written back exactly as they were read
+      synchronized ByteBuffer rawLinks(Applicant applicant, DirtySet changes) {
+         PendingLinks pending = links.get(applicant);
+         if (pending == null || (!unresolved.containsKey(applicant) && changes.isDirty(applicant))) {
+            return null;
+         }
+         return buffer.slice(pending.offset(), pending.length());
+      }
+
+      boolean hasDeletedProjects(Set<Integer> registered) {
+         return !registered.containsAll(projectsById.keySet());
+      }
+
+      boolean linksPointInto(ByteBuffer raw, Applicant applicant, Set<Integer> projectIds) throws IOException {
+         for (Object link : decodeLinks(raw.duplicate(), applicant)) {
+            if (link instanceof Ref ref && !projectIds.contains(ref.projectId())) {
+               return false;
+            }
+         }
+         return true;
+      }
+
+      // Applications, then enquiries, then (officers only) registration forms, in list order
+      private static List<Object> decodeLinks(ByteBuffer raw, Applicant applicant) throws IOException {
+         ByteBufferInput in = new ByteBufferInput(raw);
+         List<Object> links = new ArrayList<>(readLinkList(in, APPLICATION_REF, SessionCodec::readApplication));
+         links.addAll(readLinkList(in, ENQUIRY_REF, SessionCodec::readEnquiry));
+         if (applicant instanceof Officer) {
+            links.addAll(readLinkList(in, REGISTRATION_REF, SessionCodec::readRegistration));
+         }
+         return links;
+      }
+
+      private synchronized void pageIn(Project project) {
+         Block block = unpaged.remove(project);
+         if (block == null) {
+            return;
+         }
+         try {
+            readChildren(new ByteBufferInput(buffer.slice(block.offset(), block.length())), project, children);
+         }
+         catch (IOException e) {
+            throw new UncheckedIOException("Error paging in project " + project.getId(), e);
+         }
+      }
+
+      // Waits for the projects outside this store's monitor, since completing them takes the session manager first
+      private void resolveOnceRead(Applicant applicant) {
+         Runnable pending = projectsPending;
+         if (pending != null) {
+            pending.run();
+         }
+         resolve(applicant);
+      }
+
+      private synchronized void resolve(Applicant applicant) {
+         PendingLinks links = unresolved.remove(applicant);
+         if (links == null) {
+            return;
+         }
+         List<Object> decoded;
+         try {
+            decoded = decodeLinks(buffer.slice(links.offset(), links.length()), applicant);
+         }
+         catch (IOException e) {
+            throw new UncheckedIOException("Error resolving links of " + applicant.getNric(), e);
+         }
+         for (Object link : decoded) {
+            Object child = child(link);
+            if (child instanceof Application application) {
+               applicant.getMyApplications().add(application);
+            }
+            else if (child instanceof Enquiry enquiry) {
+               applicant.getEnquiries().add(enquiry);
+            }
+            else if (child instanceof RegistrationForm form && applicant instanceof Officer officer) {
+               officer.addRegistrationForm(form);
+            }
+         }
+         if (applicant instanceof Officer officer) {
+            officer.setCurrentRegistrationForm(officer.getMyRegistrationForms().stream()
+                    .filter(f -> f.getId().equals(links.currentFormId()))
+                    .findFirst()
+                    .orElse(null));
+         }
+      }
+
+      private Object child(Object link) {
+         if (!(link instanceof Ref ref)) {
+            return link;
+         }
+         Project project = projectsById.get(ref.projectId());
+         if (project == null) {
+            return null;
+         }
+         project.getApplications(); // pages the project in through its own loader
+         return children.get(ref);
+      }
+   }
+
+   private record Block(int offset, int length) {
+   }
+
+   private record Ref(int kind, int projectId, int id) {
+   }
+
+   // Where a user's links sit in the mapped file
+   private record PendingLinks(int offset, int length, Integer currentFormId) {
+   }
+
+   // Ids are only unique per id type, so each kind of child gets its own lookup
+   private static class Children {
+      final Map<Long, RegistrationForm> registrations = new HashMap<>();
+      final Map<Long, Application> applications = new HashMap<>();
+      final Map<Long, Enquiry> enquiries = new HashMap<>();
+
+      Object get(Ref ref) {
+         long key = key(ref.projectId(), ref.id());
+         return switch (ref.kind()) {
+            case APPLICATION_REF -> applications.get(key);
+            case ENQUIRY_REF -> enquiries.get(key);
+            default -> registrations.get(key);
+         };
+      }
+   }
+
+   @FunctionalInterface
+   private interface EntityReader {
+      Object read(DataInput in) throws IOException;
+   }
+}
@@ -0,0 +1,33 @@
+package system;
+
+import java.io.IOException;
+
+/**
+ * Folds a sealed journal segment into the snapshot on disk without touching the live session: the snapshot is read
+ * into registries of its own, the segment is replayed onto them, and the new snapshot only encodes the projects and
+ * users the segment touched, copying everything else as it was stored. The segment is deleted once the new snapshot
+ * is in place; if the process dies first, it is still there and is replayed at the next start.
+ */
+final class SnapshotCompactor implements Runnable {
+   private final SessionJournal segment;
+
+   SnapshotCompactor(SessionJournal segment) {
+      this.segment = segment;
+   }
+
+   @Override
+   public void run() {
+      try {
+         SessionSnapshot snapshot = new SessionSnapshot();
+         SessionSnapshot.Contents contents = snapshot.read();
+         segment.trackChangesIn(snapshot.changes());
+         segment.replay(contents.projectRegistry(), contents.userRegistry());
+         snapshot.write(contents.projectRegistry(), contents.userRegistry());
+         segment.delete();
+      }
+      catch (IOException | RuntimeException e) {
+         // The segment stays on disk and is replayed at the next start, or covered by the next full snapshot
+         System.err.println("Error compacting session journal: " + e.getMessage());
+      }
+   }
+}
@@ -0,0 +1,139 @@
+package system;
+
+import UniqueID.IUniqueIdService;
+import helper.ProjectRegistryLoader.ProjectRegistryLoaderService;
+import helper.ProjectRegistryLoader.ProjectRegistryLoadingController;
+import helper.ProjectRegistryLoader.ProjectStaffLinker;
+import helper.UserRegistryLoader.ActorRowMappers;
+import helper.UserRegistryLoader.UserRegistryLoaderService;
+import helper.UserRegistryLoader.UserRegistryLoadingController;
+import project.ProjectRegistry;
+import user.UserRegistry;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Builds a fresh session from the given txt files as a small task graph: the three user files and the project
+ * file are read concurrently, each registry is filled as soon as its own files are in, and staff linking starts
+ * once both registries are ready. Every phase is timed, and the timings are printed in the order the phases
+ * finished once everything is done, so the tail of the report is the critical path.
+ */
+final class TxtSessionLoader {
+   private final IUniqueIdService uniqueIdService;
+   private final long start = System.nanoTime();
+   // Completed phases, in the order they finished
+   private final List<Phase> phases = new ArrayList<>();
+
+   TxtSessionLoader(IUniqueIdService uniqueIdService) {
+      this.uniqueIdService = uniqueIdService;
+   }
+
+   record Result(UserRegistry userRegistry, ProjectRegistry projectRegistry) {
+   }
+
+   // Times are in nanoseconds since the loader was created; rows is -1 for phases that do not read a file
+   private record Phase(String name, long from, long to, int rows) {
+   }
+
+   /**
+    * Loads both registries and links the staff to their projects.
+    *
+    * @throws IOException If one of the files cannot be read.
+    */
+   Result load() throws IOException {
+      UserRegistry userRegistry = new UserRegistry();
+      ProjectRegistry projectRegistry = new ProjectRegistry();
+      UserRegistryLoaderService userLoader = new UserRegistryLoaderService(userRegistry);
+      ProjectRegistryLoaderService projectLoader = new ProjectRegistryLoaderService(projectRegistry, uniqueIdService);
+
+      try (ExecutorService executor = Executors.newFixedThreadPool(4)) {
+         var managers = read("read managers", executor, () -> userLoader.readActors(
+                 UserRegistryLoadingController.MANAGER_FILE_PATH, ActorRowMappers.MANAGER_MAPPER));
+         var applicants = read("read applicants", executor, () -> userLoader.readActors(
+                 UserRegistryLoadingController.APPLICANT_FILE_PATH, ActorRowMappers.APPLICANT_MAPPER));
+         var officers = read("read officers", executor, () -> userLoader.readActors(
+                 UserRegistryLoadingController.OFFICER_FILE_PATH, ActorRowMappers.OFFICER_MAPPER));
+         var projects = read("read projects", executor, () -> projectLoader.readProjects(
+                 ProjectRegistryLoadingController.PROJECT_FILE_PATH));
+
+         // Added in the same order as a sequential load so that duplicate names resolve the same way
+         CompletableFuture<Void> usersReady = CompletableFuture.allOf(managers, applicants, officers)
+                 .thenRun(() -> timed("fill user registry", () -> {
+                    userRegistry.addUsers(managers.join());
+                    userRegistry.addUsers(applicants.join());
+                    userRegistry.addUsers(officers.join());
+                    return null;
+                 }));
+         CompletableFuture<Void> projectsReady = projects
+                 .thenAccept(list -> timed("fill project registry", () -> {
+                    projectRegistry.addProjects(list);
+                    return null;
+                 }));
+         CompletableFuture<Void> linked = usersReady
+                 .runAfterBoth(projectsReady, () -> timed("link staff", () -> {
+                    ProjectStaffLinker projectStaffLinker = new ProjectStaffLinker(projectRegistry, userRegistry);
+                    projectStaffLinker.linkProjectToOfficer();
+                    projectStaffLinker.linkProjectToManager();
+                    return null;
+                 }));
+         linked.join();
+      }
+      catch (CompletionException e) {
+         if (e.getCause() instanceof UncheckedIOException io) {
+            throw io.getCause();
+         }
+         throw e.getCause() instanceof RuntimeException cause ? cause : e;
+      }
+
+      printPhases();
+      return new Result(userRegistry, projectRegistry);
+   }
+
+   private <T> CompletableFuture<List<T>> read(String name, ExecutorService executor, FileRead<T> read) {
+      return CompletableFuture.supplyAsync(() -> timed(name, () -> {
+         try {
+            return read.read();
+         }
+         catch (IOException e) {
+            throw new UncheckedIOException(e);
+         }
+      }), executor);
+   }
+
+   private <T> T timed(String name, Supplier<T> task) {
+      long from = System.nanoTime() - start;
+      T result = task.get();
+      int rows = result instanceof List<?> list ? list.size() : -1;
+      synchronized (phases) {
+         phases.add(new Phase(name, from, System.nanoTime() - start, rows));
+      }
+      return result;
+   }
+
+   private void printPhases() {
+      System.out.println("Startup phases (ms since start):");
+      for (Phase phase : phases) {
+         String line = String.format(Locale.ROOT, "  %-22s %8.1f -> %8.1f", phase.name(), phase.from() / 1e6, phase.to() / 1e6);
+         if (phase.rows() >= 0) {
+            double rowsPerSecond = phase.rows() * 1e9 / Math.max(phase.to() - phase.from(), 1);
+            line += String.format(Locale.ROOT, "  %d rows, %,.0f rows/s", phase.rows(), rowsPerSecond);
+         }
+         System.out.println(line);
+      }
+      System.out.printf(Locale.ROOT, "Session loaded from txt files in %.1f ms.%n", (System.nanoTime() - start) / 1e6);
+   }
+
+   @FunctionalInterface
+   private interface FileRead<T> {
+      List<T> read() throws IOException;
+   }
+}
@@ -1,5 +1,8 @@
 package user;
 
+import system.ServiceRegistry;
+import system.SessionJournal;
+
 //Purpose: This interface defines the methods that a user service should implement. (default methods are implemented here to avoid duplication: DRY principle)
 public interface IUserService {
 
@@ -14,5 +17,6 @@ public interface IUserService {
    default void changePassword(String oldPassword, String newPassword1, String newPassword2) {
       getPasswordValidationService().validateChangePassword(getUser(), oldPassword, newPassword1, newPassword2);
       getUser().setPassword(newPassword1);
+      ServiceRegistry.get(SessionJournal.class).recordUser(getUser());
    }
 }
\ No newline at end of file
@@ -1,8 +1,11 @@
 package user;
 
+import java.io.Serial;
 import java.io.Serializable;
 
 public class User implements Serializable {
+   @Serial
+   private static final long serialVersionUID = 1630987259449428193L;
    private final String name;
    private final String nric;
    private final int age;
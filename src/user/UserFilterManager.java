@@ -1,20 +1,25 @@
 package project;
 
 import helper.Color;
+import system.ServiceRegistry;
+import system.SessionContext;
+import system.SessionJournal;
+import system.SessionManager;
 import user.User;
 import user.UserFilterSettings;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
-import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 public class UserFilterManager {
-   private final Scanner scanner;
+   private final SessionJournal journal;
+   private final ProjectRegistry projectRegistry;
 
-   public UserFilterManager(Scanner scanner) {
-      this.scanner = scanner;
+   public UserFilterManager() {
+      this.journal = ServiceRegistry.get(SessionJournal.class);
+      this.projectRegistry = ServiceRegistry.get(SessionManager.class).getProjectRegistry();
    }
 
    public void manageFilters(User currentUser) {
@@ -28,7 +33,7 @@ public class UserFilterManager {
       while (true) {
          try {
             Color.println("\nWould you like to update/reset the filters? (yes/no/reset)", Color.CYAN);
-            filterChoice = scanner.nextLine().trim().toLowerCase();
+            filterChoice = scanner().nextLine().trim().toLowerCase();
 
             if (filterChoice.equals("yes") || filterChoice.equals("no") || filterChoice.equals("reset")) {
                break;
@@ -44,17 +49,21 @@ public class UserFilterManager {
 
       if (filterChoice.equals("reset")) {
          filters.reset();
+         journal.recordUser(currentUser);
       }
       else if (filterChoice.equals("yes")) {
          updateFilters(filters);
+         journal.recordUser(currentUser);
       }
    }
 
+   // Passing the registry's own project list lets the registry answer from its secondary indexes
    public List<Project> applyFilters(List<Project> projects, User currentUser) {
-      Predicate<Project> combinedFilter = getProjectPredicate(currentUser.getFilterSettings());
-      return projects.stream()
-              .filter(combinedFilter)
-              .collect(Collectors.toList());
+      UserFilterSettings filters = currentUser.getFilterSettings();
+      if (!hasActiveFilters(filters)) {
+         return new ArrayList<>(projects);
+      }
+      return projectRegistry.findProjects(filters, projects);
    }
 
    private boolean hasActiveFilters(UserFilterSettings filters) {
@@ -73,23 +82,23 @@ public class UserFilterManager {
             Color.println("5. Done", Color.YELLOW);
             Color.print("Enter your choice (1-5): ", Color.CYAN);
 
-            String input = scanner.nextLine().trim();
+            String input = scanner().nextLine().trim();
             int choice = Integer.parseInt(input);
 
             switch (choice) {
                case 1 -> {
                   Color.print("Enter project name: ", Color.CYAN);
-                  String name = scanner.nextLine().trim().toLowerCase();
+                  String name = scanner().nextLine().trim().toLowerCase();
                   filters.setProjectName(name.isEmpty() ? null : name);
                }
                case 2 -> {
                   Color.print("Enter neighbourhood: ", Color.CYAN);
-                  String hood = scanner.nextLine().trim().toLowerCase();
+                  String hood = scanner().nextLine().trim().toLowerCase();
                   filters.setNeighbourhood(hood.isEmpty() ? null : hood);
                }
                case 3 -> {
                   Color.print("Enter flat type (TWO_ROOM / THREE_ROOM): ", Color.CYAN);
-                  String flatTypeInput = scanner.nextLine().trim().toUpperCase();
+                  String flatTypeInput = scanner().nextLine().trim().toUpperCase();
                   try {
                      filters.setFlatType(FlatType.valueOf(flatTypeInput));
                   }
@@ -99,7 +108,7 @@ public class UserFilterManager {
                }
                case 4 -> {
                   Color.print("Enter date (yyyy-mm-dd): ", Color.CYAN);
-                  String dateInput = scanner.nextLine().trim();
+                  String dateInput = scanner().nextLine().trim();
                   try {
                      filters.setDate(LocalDate.parse(dateInput));
                   }
@@ -122,26 +131,8 @@ public class UserFilterManager {
       }
    }
 
-   private Predicate<Project> getProjectPredicate(UserFilterSettings filters) {
-      Predicate<Project> combinedFilter = p -> true;
-
-      if (filters.getProjectName() != null) {
-         combinedFilter = combinedFilter.and(p -> p.getProjectName().toLowerCase().contains(filters.getProjectName()));
-      }
-
-      if (filters.getNeighbourhood() != null) {
-         combinedFilter = combinedFilter.and(p -> p.getNeighborhood().toLowerCase().contains(filters.getNeighbourhood()));
-      }
-
-      if (filters.getFlatType() != null) {
-         combinedFilter = combinedFilter.and(p -> p.getAvailableFlats().getOrDefault(filters.getFlatType(), 0) > 0);
-      }
-
-      if (filters.getDate() != null) {
-         combinedFilter = combinedFilter.and(p ->
-                 !filters.getDate().isBefore(p.getApplicationOpeningDate()) &&
-                         !filters.getDate().isAfter(p.getApplicationClosingDate()));
-      }
-      return combinedFilter;
+   // Filters are asked for in the session of the calling thread
+   private Scanner scanner() {
+      return SessionContext.current().getScanner();
    }
 }
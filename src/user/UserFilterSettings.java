@@ -2,10 +2,13 @@ package user;
 
 import project.FlatType;
 
+import java.io.Serial;
 import java.io.Serializable;
 import java.time.LocalDate;
 
 public class UserFilterSettings implements Serializable {
+   @Serial
+   private static final long serialVersionUID = 6677104298052978814L;
    private String projectName;
    private String neighbourhood;
    private FlatType flatType;
@@ -1,13 +1,22 @@
 package user;
 
+import helper.storage.AtomicFile;
+import system.SessionJournal;
+
 import java.io.*;
-import java.util.HashMap;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Manages a collection of User objects.
  * This class is designed to be instantiated multiple times (not a singleton).
  * It supports serialization for saving and loading the registry state.
+ * Safe for concurrent sessions: adds and removes are synchronized, lookups read concurrent maps without locking.
  */
 public class UserRegistry implements Serializable {
    @Serial
@@ -20,8 +29,12 @@ public class UserRegistry implements Serializable {
    // the original structure, but making save/load instance methods where appropriate.
    private static final String filePath = "./data/userRegistry.dat";
 
-   private final Map<String, User> users = new HashMap<>();
-   private final Map<String, User> usersByNric = new HashMap<>();
+   // Primary store, keyed by NRIC since that is what identifies a user; names need not be unique
+   private volatile Map<String, User> usersByNric = new ConcurrentHashMap<>();
+   // Secondary index by name, rebuilt after deserialization. With duplicate names the earliest user keeps it.
+   private transient volatile Map<String, User> usersByName = new ConcurrentHashMap<>();
+   // Mutations are appended here instead of re-serializing the whole registry; null while loading.
+   private transient SessionJournal journal;
 
    /**
     * Constructs an empty UserRegistry.
@@ -30,6 +43,25 @@ public class UserRegistry implements Serializable {
       // The controller or application logic will decide when and how to load data.
    }
 
+   @Serial
+   private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+      in.defaultReadObject();
+      // Registries saved before this held a HashMap
+      usersByNric = new ConcurrentHashMap<>(usersByNric);
+      usersByName = new ConcurrentHashMap<>(usersByNric.size() * 2);
+      usersByNric.values().forEach(this::indexName);
+   }
+
+   /**
+    * Attaches the journal that records every subsequent add/remove.
+    * Leave it detached while bulk loading or replaying so nothing is written per user.
+    *
+    * @param journal The session journal, or null to stop recording.
+    */
+   public void setJournal(SessionJournal journal) {
+      this.journal = journal;
+   }
+
    /**
     * Loads a UserRegistry instance from the predefined file path.
     * This is a static method that returns a new UserRegistry object loaded from the file.
@@ -57,8 +89,8 @@ public class UserRegistry implements Serializable {
     * Note: This is an instance method, saving the state of 'this' object.
     */
    public void save() {
-      try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(filePath))) {
-         oos.writeObject(this);
+      try {
+         writeTo(filePath, this);
          System.out.println("UserRegistry saved successfully to " + filePath);
       }
       catch (IOException e) {
@@ -67,10 +99,19 @@ public class UserRegistry implements Serializable {
       }
    }
 
+   // Replaced whole through a temp file and checksummed, so a crash mid-write leaves the previous file
+   private static void writeTo(String path, Object registry) throws IOException {
+      AtomicFile.writeChecksummed(Path.of(path), out -> {
+         ObjectOutputStream oos = new ObjectOutputStream(out);
+         oos.writeObject(registry);
+         oos.flush();
+      });
+   }
+
    public void clearFromFile() {
 
-      try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(filePath))) {
-         oos.writeObject(new UserRegistry());
+      try {
+         writeTo(filePath, new UserRegistry());
          System.out.println("UserRegistry Cleared successfully to " + filePath);
       }
       catch (IOException e) {
@@ -81,16 +122,96 @@ public class UserRegistry implements Serializable {
 
 
    /**
-    * Adds a user to the registry.
+    * Adds a user to the registry, replacing any user with the same NRIC.
     *
     * @param user The User object to add.
     */
    public void addUser(User user) {
-      if (user != null && user.getName() != null) {
-         users.put(user.getName(), user);
-         usersByNric.put(user.getNric(), user);
+      boolean added;
+      synchronized (this) {
+         added = put(user);
+      }
+      if (added && journal != null) {
+         journal.recordUser(user);
+      }
+   }
+
+   /**
+    * Adds many users at once as a single batch, e.g. when loading from the data files; same rules per user as
+    * {@link #addUser}. The maps are grown once for the whole batch, names are indexed in one pass after every user
+    * is in place, and an attached journal receives all the records with a single flush.
+    *
+    * @param users The users to add.
+    * @return The number of users added.
+    */
+   public int addUsers(Collection<? extends User> users) {
+      List<User> added = new ArrayList<>(users.size());
+      synchronized (this) {
+         usersByNric = presized(usersByNric, users.size());
+         usersByName = presized(usersByName, users.size());
+
+         for (User user : users) {
+            if (user == null || user.getNric() == null) {
+               continue;
+            }
+            User previous = usersByNric.put(user.getNric(), user);
+            if (previous != null) {
+               unindexName(previous);
+            }
+            added.add(user);
+         }
+         for (User user : added) {
+            // Skips users replaced by a later one with the same NRIC in this batch
+            if (usersByNric.get(user.getNric()) == user) {
+               indexName(user);
+            }
+         }
+      }
+
+      if (journal != null && !added.isEmpty()) {
+         journal.recordUsers(added);
+      }
+      return added.size();
+   }
+
+   // Rebuilds the map with room for the batch when it would otherwise have to resize several times while it grows
+   private static Map<String, User> presized(Map<String, User> map, int incoming) {
+      if (incoming <= map.size()) {
+         return map;
+      }
+      Map<String, User> grown = new ConcurrentHashMap<>(map.size() + incoming);
+      grown.putAll(map);
+      return grown;
+   }
+
+   private boolean put(User user) {
+      if (user == null || user.getNric() == null) {
+         return false;
+      }
+      User previous = usersByNric.put(user.getNric(), user);
+      if (previous != null) {
+         unindexName(previous);
+      }
+      indexName(user);
+      return true;
+   }
+
+   private void indexName(User user) {
+      if (user.getName() != null) {
+         usersByName.putIfAbsent(user.getName(), user);
+      }
+   }
+
+   // Drops the name entry of a user and hands the name to another user that has it, if any
+   private void unindexName(User user) {
+      String name = user.getName();
+      if (name != null && usersByName.get(name) == user) {
+         usersByName.remove(name);
+         usersByNric.values().stream()
+                 .filter(u -> name.equals(u.getName()))
+                 .findFirst()
+                 .ifPresent(u -> usersByName.put(name, u));
       }
-      save();
    }
 
    /**
@@ -100,43 +221,54 @@ public class UserRegistry implements Serializable {
     */
    public void removeUser(User user) {
       if (user != null && user.getNric() != null) {
-         users.remove(user.getNric());
-         usersByNric.remove(user.getNric());
+         synchronized (this) {
+            User removed = usersByNric.remove(user.getNric());
+            if (removed != null) {
+               unindexName(removed);
+            }
+         }
+         if (journal != null) {
+            journal.recordUserRemoved(user);
+         }
       }
-      save();
    }
 
    /**
-    * Retrieves a user from the registry based on their NRIC.
+    * Removes every user, e.g. before the registry is filled again from another source. Nothing is recorded in the
+    * journal.
+    */
+   public synchronized void clear() {
+      usersByNric.clear();
+      usersByName.clear();
+   }
+
+   /**
+    * Retrieves a user from the registry based on their name.
     *
     * @param name The Name of the user to retrieve.
-    * @return The User object associated with the NRIC, or null if not found.
+    * @return The User object with that name, or null if not found.
     */
    public User getUser(String name) {
-      return users.get(name);
+      return name == null ? null : usersByName.get(name);
    }
 
    /**
     * Retrieves a user from the registry based on their NRIC.
     *
-    * @param nric The Name of the user to retrieve.
+    * @param nric The NRIC of the user to retrieve.
     * @return The User object associated with the NRIC, or null if not found.
     */
    public User getUserByNric(String nric) {
-      return usersByNric.get(nric);
+      return nric == null ? null : usersByNric.get(nric);
    }
 
    /**
-    * Returns an unmodifiable view of the users map.
+    * Returns an unmodifiable view of the users map, keyed by NRIC.
     *
     * @return An unmodifiable map of users.
     */
    public Map<String, User> getUsers() {
-      // Returning a copy or an unmodifiable map is good practice
-      // to prevent external modification of the internal map.
-      return Map.copyOf(users); // Requires Java 10+
-      // For older Java versions, use:
-      // return Collections.unmodifiableMap(users);
+      return Collections.unmodifiableMap(usersByNric);
    }
 
    /**
@@ -145,6 +277,6 @@ public class UserRegistry implements Serializable {
     * @return The size of the registry.
     */
    public int size() {
-      return users.size();
+      return usersByNric.size();
    }
 }
\ No newline at end of file
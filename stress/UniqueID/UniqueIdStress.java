@@ -0,0 +1,120 @@
+package UniqueID;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.Properties;
+
+/**
+ * Takes millions of ids from many threads at once, then restarts from the saved state and does it again, and
+ * checks that no id is ever handed out twice, that every id stays below the mark on disk, and that after each
+ * restart every id is above all the ids handed out before it.
+ * <p>
+ * Writes ./data/uniqueIdState.properties, so run it from an empty directory, e.g.
+ * <pre>
+ * javac -d out $(find src stress -name '*.java')
+ * mkdir run &amp;&amp; cd run &amp;&amp; java -cp ../out UniqueID.UniqueIdStress [threads] [idsPerThread] [restarts] [stripeSize]
+ * </pre>
+ * Exits with status 1 if any check fails.
+ */
+public final class UniqueIdStress {
+   private static final Path STATE = Path.of("./data/uniqueIdState.properties");
+   private static final IdType TYPE = IdType.APPLICATION_ID;
+
+   private UniqueIdStress() {
+      throw new IllegalStateException("Utility class");
+   }
+
+   public static void main(String[] args) throws Exception {
+      int threads = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+      int idsPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 250_000;
+      int restarts = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+      int stripeSize = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+
+      if (Files.exists(STATE)) {
+         System.err.println(STATE + " already exists; run from an empty directory so real id state is not touched");
+         System.exit(2);
+      }
+      Files.createDirectories(STATE.getParent());
+      // Start every id type at 0, as a fresh install does
+      new UniqueId().saveToPropertiesFile();
+
+      BitSet seen = new BitSet();
+      int highestBefore = 0;
+      boolean ok = true;
+      for (int round = 0; round <= restarts; round++) {
+         // A new instance reads only what the last one saved, as after a restart
+         UniqueId uniqueId = new UniqueId(stripeSize);
+         uniqueId.loadFromPropertiesFile();
+
+         int[][] ids = new int[threads][idsPerThread];
+         Thread[] workers = new Thread[threads];
+         long start = System.nanoTime();
+         for (int t = 0; t < threads; t++) {
+            int[] own = ids[t];
+            workers[t] = new Thread(() -> {
+               for (int i = 0; i < own.length; i++) {
+                  own[i] = uniqueId.next(TYPE);
+               }
+            });
+            workers[t].start();
+         }
+         for (Thread worker : workers) {
+            worker.join();
+         }
+         long elapsed = System.nanoTime() - start;
+
+         int mark = savedMark();
+         int lowest = Integer.MAX_VALUE;
+         int highest = 0;
+         long duplicates = 0;
+         long aboveMark = 0;
+         long notAfterRestart = 0;
+         boolean increasingPerThread = true;
+         for (int[] own : ids) {
+            for (int i = 0; i < own.length; i++) {
+               int id = own[i];
+               if (seen.get(id)) {
+                  duplicates++;
+               }
+               seen.set(id);
+               if (id > mark) {
+                  aboveMark++;
+               }
+               if (id <= highestBefore) {
+                  notAfterRestart++;
+               }
+               if (i > 0 && id <= own[i - 1]) {
+                  increasingPerThread = false;
+               }
+               lowest = Math.min(lowest, id);
+               highest = Math.max(highest, id);
+            }
+         }
+
+         long count = (long) threads * idsPerThread;
+         System.out.printf("round %d: %,d ids from %d threads, %d..%d, mark %d, %.1f ns/id%n",
+                 round, count, threads, lowest, highest, mark, elapsed / (double) count);
+         if (duplicates > 0 || aboveMark > 0 || notAfterRestart > 0 || !increasingPerThread) {
+            System.out.printf("  FAILED: %d duplicates, %d above the saved mark, %d not above the previous run, "
+                    + "increasing per thread: %b%n", duplicates, aboveMark, notAfterRestart, increasingPerThread);
+            ok = false;
+         }
+         highestBefore = highest;
+      }
+
+      System.out.println(ok ? "OK: every id unique, below the saved mark and above every id from before the restart"
+              : "FAILED");
+      System.exit(ok ? 0 : 1);
+   }
+
+   private static int savedMark() throws IOException {
+      Properties props = new Properties();
+      try (Reader reader = Files.newBufferedReader(STATE)) {
+         props.load(reader);
+      }
+      return Integer.parseInt(props.getProperty("nextNewApplicationId"));
+   }
+}
@@ -0,0 +1,170 @@
+package officer;
+
+import applicant.Application;
+import applicant.ApplicationStatus;
+import applicant.BookingStatus;
+import project.FlatInventory;
+import project.FlatType;
+import project.Project;
+import system.SessionJournal;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Launch day: thousands of successful applicants book a flat of one project at the same moment, each from a
+ * session of its own that waits for its booking, through the project's {@link BookingQueue}. Fewer flats are held
+ * than there are applicants, as in data approved before flats were held, so the last ones in the booking order are
+ * refused. Every round prints the queue's {@link BookingQueue.Stats}: throughput and how long bookings waited in the
+ * queue, at the 50th, 90th, 99th and 99.9th percentile. Afterwards it checks that:
+ * <ul>
+ * <li>every applicant got an answer, and exactly as many were booked as there were flats held</li>
+ * <li>an application is booked if and only if its booking completed, and the inventory agrees</li>
+ * <li>the queue refused nothing for a reason other than running out of held flats</li>
+ * </ul>
+ * The bookings are journaled, to ./data/session.journal, so run it from an empty directory, e.g.
+ * <pre>
+ * javac -d out $(find src stress -name '*.java')
+ * mkdir run &amp;&amp; cd run &amp;&amp; java -cp ../out officer.BookingQueueStress [applicants] [flats] [rounds] [order]
+ * </pre>
+ * where order is FIRST_COME_FIRST_SERVED or BALLOT. Exits with status 1 if any check fails.
+ */
+public final class BookingQueueStress {
+   private static final Path JOURNAL = Path.of("./data/session.journal");
+   private static final FlatType TYPE = FlatType.THREE_ROOM;
+
+   private BookingQueueStress() {
+      throw new IllegalStateException("Utility class");
+   }
+
+   public static void main(String[] args) throws Exception {
+      int applicantCount = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+      int flats = args.length > 1 ? Integer.parseInt(args[1]) : 15_000;
+      int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+      BookingQueue.Order order = args.length > 3 ? BookingQueue.Order.valueOf(args[3])
+              : BookingQueue.Order.FIRST_COME_FIRST_SERVED;
+
+      if (Files.exists(JOURNAL)) {
+         System.err.println(JOURNAL + " already exists; run from an empty directory so a real journal is not touched");
+         System.exit(2);
+      }
+      Files.createDirectories(JOURNAL.getParent());
+
+      boolean ok = true;
+      for (int round = 0; round < rounds; round++) {
+         List<String> problems = new ArrayList<>();
+         SessionJournal journal = new SessionJournal();
+         BookingQueue.Stats stats = run(journal, applicantCount, flats, order, round, problems);
+         journal.close();
+         Files.delete(JOURNAL);
+
+         System.out.printf("round %d: %,d applicants for %,d flats, %s: %s%n", round, applicantCount, flats,
+                 order, stats);
+         System.out.printf("  queued p90 %.2f ms, p99.9 %.2f ms%n", stats.latencyPercentile(90) / 1e6,
+                 stats.latencyPercentile(99.9) / 1e6);
+         for (String problem : problems) {
+            System.out.println("  FAILED: " + problem);
+            ok = false;
+         }
+      }
+
+      System.out.println(ok ? "OK: every held flat booked once, every other applicant refused" : "FAILED");
+      System.exit(ok ? 0 : 1);
+   }
+
+   private static BookingQueue.Stats run(SessionJournal journal, int applicantCount, int flats,
+                                         BookingQueue.Order order, int round, List<String> problems)
+           throws InterruptedException {
+      Project project = new Project(round + 1, "Launch " + round, "Tengah", 0, 0.0, flats, 1.0, LocalDate.now(),
+              LocalDate.now().plusDays(30), "Manager", 10, new ArrayList<>());
+      project.setBookingOrder(order);
+      FlatInventory inventory = project.getInventory();
+      for (int i = 0; i < flats; i++) {
+         inventory.reserve(TYPE);
+      }
+      Application[] applications = new Application[applicantCount];
+      for (int i = 0; i < applicantCount; i++) {
+         applications[i] = new Application(i + 1, "Applicant " + i, "S" + (1_000_000 + i) + "A", project.getId(),
+                 project.getProjectName(), TYPE);
+         applications[i].setStatus(ApplicationStatus.SUCCESSFUL);
+      }
+
+      BookingQueue queue = new BookingQueue(project, journal, project.getId());
+      boolean[] completed = new boolean[applicantCount];
+      AtomicInteger answered = new AtomicInteger();
+      Map<String, Integer> failures = new ConcurrentHashMap<>();
+
+      CountDownLatch ready = new CountDownLatch(applicantCount);
+      CountDownLatch go = new CountDownLatch(1);
+      List<Thread> sessions = new ArrayList<>(applicantCount);
+      for (int i = 0; i < applicantCount; i++) {
+         int own = i;
+         sessions.add(Thread.ofVirtual().start(() -> {
+            ready.countDown();
+            try {
+               go.await();
+               // As OfficerService.bookFlat does: queue the booking and wait for it
+               CompletableFuture<Application> result = queue.submit(applications[own]);
+               result.join();
+               completed[own] = true;
+            }
+            catch (CompletionException e) {
+               // Refused once the held flats run out; anything else is a failure
+               String message = e.getCause().getMessage();
+               if (!message.startsWith("No " + TYPE + " flat is held")) {
+                  failures.merge(message, 1, Integer::sum);
+               }
+            }
+            catch (InterruptedException | RuntimeException e) {
+               failures.merge(e.toString(), 1, Integer::sum);
+            }
+            answered.incrementAndGet();
+         }));
+      }
+
+      ready.await();
+      go.countDown();
+      for (Thread session : sessions) {
+         session.join();
+      }
+      queue.close();
+
+      BookingQueue.Stats stats = queue.getStats();
+      int booked = 0;
+      int mismatched = 0;
+      for (int i = 0; i < applicantCount; i++) {
+         boolean isBooked = applications[i].getBookingStatus() == BookingStatus.BOOKED;
+         if (isBooked) {
+            booked++;
+         }
+         if (isBooked != completed[i]) {
+            mismatched++;
+         }
+      }
+      int expected = Math.min(applicantCount, flats);
+      if (answered.get() != applicantCount || stats.getBooked() + stats.getRefused() != applicantCount) {
+         problems.add(answered.get() + " of " + applicantCount + " applicants answered, queue counted "
+                 + stats.getBooked() + " booked and " + stats.getRefused() + " refused");
+      }
+      if (booked != expected || stats.getBooked() != expected || inventory.booked(TYPE) != expected
+              || inventory.held(TYPE) != flats - expected) {
+         problems.add(booked + " applications booked, queue booked " + stats.getBooked() + ", inventory has "
+                 + inventory.booked(TYPE) + " booked and " + inventory.held(TYPE) + " held, expected " + expected
+                 + " booked");
+      }
+      if (mismatched > 0) {
+         problems.add(mismatched + " applications booked without being told, or told without being booked");
+      }
+      failures.forEach((failure, count) -> problems.add(count + " x " + failure));
+      return stats;
+   }
+}
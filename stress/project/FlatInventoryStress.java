@@ -0,0 +1,184 @@
+package project;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thousands of applicants book flats of one hot project at the same moment, straight against its
+ * {@link FlatInventory}: each one is approved (a flat is held for it), and then books the flat or withdraws,
+ * and some withdraw again after booking. There are far fewer flats than attempts, so they sell out and most late
+ * approvals are refused, and every thread hammers the same few counters. A reader keeps checking the counts
+ * while they change.
+ * <p>
+ * Each round starts every applicant at once and reports how long a change of the inventory took on average;
+ * afterwards it checks that:
+ * <ul>
+ * <li>free, held and booked flats add up to the flats the project was built with, and none went below zero, also
+ * while the applicants were booking</li>
+ * <li>the held and booked counts match what the applicants were told, so no flat was handed out twice</li>
+ * <li>no change failed, e.g. confirming a flat that was never held</li>
+ * </ul>
+ * Run it with the classes of src and stress on the class path, e.g.
+ * <pre>
+ * javac -d out $(find src stress -name '*.java')
+ * java -cp out project.FlatInventoryStress [applicants] [attemptsPerApplicant] [units] [rounds]
+ * </pre>
+ * Exits with status 1 if any check fails.
+ */
+public final class FlatInventoryStress {
+   private static final FlatType[] TYPES = {FlatType.TWO_ROOM, FlatType.THREE_ROOM};
+
+   private FlatInventoryStress() {
+      throw new IllegalStateException("Utility class");
+   }
+
+   public static void main(String[] args) throws InterruptedException {
+      int applicantCount = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+      int attempts = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+      int units = args.length > 2 ? Integer.parseInt(args[2]) : 100_000;
+      int rounds = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+
+      boolean ok = true;
+      for (int round = 0; round < rounds; round++) {
+         List<String> problems = new ArrayList<>();
+         Round result = run(applicantCount, attempts, units, round, problems);
+         System.out.printf("round %d: %d applicants x %d attempts on %d flats of each type: %.0f ms, "
+                         + "%.1f ns per change, %,d held, %,d refused, %,d booked, %,d reads%n",
+                 round, applicantCount, attempts, units, result.nanos() / 1e6,
+                 result.nanos() / (double) Math.max(1, result.changes()), result.held(), result.refused(),
+                 result.booked(), result.reads());
+         for (String problem : problems) {
+            System.out.println("  FAILED: " + problem);
+            ok = false;
+         }
+      }
+
+      System.out.println(ok ? "OK: flats add up, never below zero, and none handed out twice" : "FAILED");
+      System.exit(ok ? 0 : 1);
+   }
+
+   private static Round run(int applicantCount, int attempts, int units, int round, List<String> problems)
+           throws InterruptedException {
+      FlatInventory inventory = new FlatInventory(Map.of(FlatType.TWO_ROOM, units, FlatType.THREE_ROOM, units),
+              List.of());
+      // Per flat type: flats held, refused, booked and given back, as the applicants saw it
+      AtomicLong[] held = counters();
+      AtomicLong[] refused = counters();
+      AtomicLong[] booked = counters();
+      AtomicLong[] released = counters();
+      AtomicLong[] unbooked = counters();
+      AtomicLong reads = new AtomicLong();
+      AtomicBoolean booking = new AtomicBoolean(true);
+      Map<String, Integer> failures = new ConcurrentHashMap<>();
+
+      CountDownLatch ready = new CountDownLatch(applicantCount);
+      CountDownLatch go = new CountDownLatch(1);
+      List<Thread> applicants = new ArrayList<>(applicantCount);
+      for (int a = 0; a < applicantCount; a++) {
+         SplittableRandom random = new SplittableRandom(round * (long) applicantCount + a);
+         applicants.add(Thread.ofVirtual().start(() -> {
+            ready.countDown();
+            try {
+               go.await();
+            }
+            catch (InterruptedException e) {
+               return;
+            }
+            for (int i = 0; i < attempts; i++) {
+               int t = random.nextInt(TYPES.length);
+               FlatType type = TYPES[t];
+               try {
+                  if (!inventory.reserve(type)) {
+                     refused[t].incrementAndGet();
+                     continue;
+                  }
+                  held[t].incrementAndGet();
+                  // A quarter withdraw before booking, a quarter of the rest withdraw after booking
+                  if (random.nextInt(4) == 0) {
+                     inventory.release(type);
+                     released[t].incrementAndGet();
+                     continue;
+                  }
+                  inventory.confirm(type);
+                  booked[t].incrementAndGet();
+                  if (random.nextInt(4) == 0) {
+                     inventory.unbook(type);
+                     unbooked[t].incrementAndGet();
+                  }
+               }
+               catch (RuntimeException e) {
+                  failures.merge(e.toString(), 1, Integer::sum);
+               }
+            }
+         }));
+      }
+
+      // What a menu showing the project does meanwhile, without any lock
+      Thread reader = Thread.ofPlatform().start(() -> {
+         while (booking.get()) {
+            for (FlatType type : TYPES) {
+               int free = inventory.remaining(type);
+               int onHold = inventory.held(type);
+               int taken = inventory.booked(type);
+               if (free < 0 || onHold < 0 || taken < 0 || free > units || onHold > units || taken > units) {
+                  failures.merge("read " + type + " out of range: " + free + " free, " + onHold + " held, "
+                          + taken + " booked", 1, Integer::sum);
+               }
+            }
+            reads.incrementAndGet();
+         }
+      });
+
+      ready.await();
+      long start = System.nanoTime();
+      go.countDown();
+      for (Thread applicant : applicants) {
+         applicant.join();
+      }
+      long elapsed = System.nanoTime() - start;
+      booking.set(false);
+      reader.join();
+
+      long changes = 0;
+      long totalHeld = 0;
+      long totalRefused = 0;
+      long totalBooked = 0;
+      for (int t = 0; t < TYPES.length; t++) {
+         FlatType type = TYPES[t];
+         long stillHeld = held[t].get() - released[t].get() - booked[t].get();
+         long stillBooked = booked[t].get() - unbooked[t].get();
+         int free = inventory.remaining(type);
+         if (free < 0 || free + inventory.held(type) + inventory.booked(type) != units) {
+            problems.add(type + ": " + free + " free, " + inventory.held(type) + " held, " + inventory.booked(type)
+                    + " booked of " + units);
+         }
+         if (inventory.held(type) != stillHeld || inventory.booked(type) != stillBooked) {
+            problems.add(type + ": inventory has " + inventory.held(type) + " held and " + inventory.booked(type)
+                    + " booked, applicants hold " + stillHeld + " and booked " + stillBooked);
+         }
+         changes += held[t].get() + refused[t].get() + released[t].get() + booked[t].get() + unbooked[t].get();
+         totalHeld += held[t].get();
+         totalRefused += refused[t].get();
+         totalBooked += booked[t].get();
+      }
+      failures.forEach((failure, count) -> problems.add(count + " x " + failure));
+      return new Round(elapsed, changes, totalHeld, totalRefused, totalBooked, reads.get());
+   }
+
+   private static AtomicLong[] counters() {
+      AtomicLong[] counters = new AtomicLong[TYPES.length];
+      for (int t = 0; t < counters.length; t++) {
+         counters[t] = new AtomicLong();
+      }
+      return counters;
+   }
+
+   private record Round(long nanos, long changes, long held, long refused, long booked, long reads) {
+   }
+}
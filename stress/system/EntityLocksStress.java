@@ -0,0 +1,270 @@
+package system;
+
+import applicant.Applicant;
+import applicant.Application;
+import applicant.ApplicationStatus;
+import enquiry.Enquiry;
+import project.FlatInventory;
+import project.FlatType;
+import project.Project;
+import user.MaritalStatus;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Many threads add applications and enquiries to projects and applicants, and approve applications, under the locks
+ * of {@link EntityLocks}, while other threads browse the same lists the way the menus do. Afterwards it checks that:
+ * <ul>
+ * <li>every application and enquiry is in its project and in its applicant, once</li>
+ * <li>no project approved more applications than it has flats, and its free and held flats add up</li>
+ * <li>no thread failed, e.g. with a ConcurrentModificationException</li>
+ * </ul>
+ * Run it with the classes of src and stress on the class path, e.g.
+ * <pre>
+ * javac -d out $(find src stress -name '*.java')
+ * java -cp out system.EntityLocksStress [projects] [applicants] [writers] [readers] [opsPerWriter]
+ * </pre>
+ * Exits with status 1 if any check fails.
+ */
+public final class EntityLocksStress {
+   private static final FlatType TYPE = FlatType.TWO_ROOM;
+   private static final int UNITS = 500;
+
+   private EntityLocksStress() {
+      throw new IllegalStateException("Utility class");
+   }
+
+   public static void main(String[] args) throws InterruptedException {
+      int projectCount = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+      int applicantCount = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+      int writerCount = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+      int readerCount = args.length > 3 ? Integer.parseInt(args[3]) : 4;
+      int ops = args.length > 4 ? Integer.parseInt(args[4]) : 50_000;
+
+      Project[] projects = new Project[projectCount];
+      for (int i = 0; i < projectCount; i++) {
+         projects[i] = new Project(i + 1, "Project " + i, "Yishun", UNITS, 1.0, 0, 1.0, LocalDate.now(),
+                 LocalDate.now().plusDays(30), "Manager", 10, new ArrayList<>());
+      }
+      Applicant[] applicants = new Applicant[applicantCount];
+      for (int i = 0; i < applicantCount; i++) {
+         applicants[i] = new Applicant("Applicant " + i, "S" + (1_000_000 + i) + "A", "password", 40, MaritalStatus.MARRIED);
+      }
+
+      AtomicInteger ids = new AtomicInteger();
+      AtomicInteger applicationsAdded = new AtomicInteger();
+      AtomicInteger enquiriesKept = new AtomicInteger();
+      AtomicLong reads = new AtomicLong();
+      AtomicBoolean writing = new AtomicBoolean(true);
+      Map<String, Integer> failures = new ConcurrentHashMap<>();
+
+      List<Thread> writers = new ArrayList<>();
+      long start = System.nanoTime();
+      for (int t = 0; t < writerCount; t++) {
+         SplittableRandom random = new SplittableRandom(t);
+         writers.add(Thread.ofPlatform().start(() -> {
+            for (int i = 0; i < ops; i++) {
+               Project project = projects[random.nextInt(projectCount)];
+               Applicant applicant = applicants[random.nextInt(applicantCount)];
+               try {
+                  switch (i % 3) {
+                     case 0 -> {
+                        addApplication(project, applicant, ids.incrementAndGet());
+                        applicationsAdded.incrementAndGet();
+                     }
+                     case 1 -> {
+                        if (addEnquiry(project, applicant, ids.incrementAndGet(), random.nextBoolean())) {
+                           enquiriesKept.incrementAndGet();
+                        }
+                     }
+                     default -> approveOne(project);
+                  }
+               }
+               catch (RuntimeException e) {
+                  failures.merge("write: " + e, 1, Integer::sum);
+               }
+            }
+         }));
+      }
+
+      List<Thread> readers = new ArrayList<>();
+      for (int t = 0; t < readerCount; t++) {
+         SplittableRandom random = new SplittableRandom(1000 + t);
+         readers.add(Thread.ofPlatform().start(() -> {
+            while (writing.get()) {
+               try {
+                  browse(projects[random.nextInt(projectCount)], applicants[random.nextInt(applicantCount)]);
+                  reads.incrementAndGet();
+               }
+               catch (RuntimeException e) {
+                  failures.merge("read: " + e, 1, Integer::sum);
+               }
+            }
+         }));
+      }
+
+      for (Thread writer : writers) {
+         writer.join();
+      }
+      long elapsed = System.nanoTime() - start;
+      writing.set(false);
+      for (Thread reader : readers) {
+         reader.join();
+      }
+
+      List<String> problems = check(projects, applicants, applicationsAdded.get(), enquiriesKept.get());
+      failures.forEach((failure, count) -> problems.add(count + " x " + failure));
+      System.out.printf("%d writers x %,d ops and %d readers over %d projects and %d applicants: %.0f ms, %,d reads%n",
+              writerCount, ops, readerCount, projectCount, applicantCount, elapsed / 1e6, reads.get());
+      if (problems.isEmpty()) {
+         System.out.println("OK: every application and enquiry in its project and applicant once, flats add up");
+         System.exit(0);
+      }
+      problems.forEach(problem -> System.out.println("FAILED: " + problem));
+      System.exit(1);
+   }
+
+   // As ProjectService adds an application: to the project, then the applicant, both under their locks
+   private static void addApplication(Project project, Applicant applicant, int id) {
+      Application application = new Application(id, applicant.getName(), applicant.getNric(), project.getId(),
+              project.getProjectName(), TYPE);
+      EntityLocks.lock(project, applicant);
+      try {
+         project.addApplication(application);
+         applicant.getMyApplications().add(application);
+      }
+      finally {
+         EntityLocks.unlock(project, applicant);
+      }
+   }
+
+   // Adds an enquiry to both sides, and half the time deletes it again; returns whether it was kept
+   private static boolean addEnquiry(Project project, Applicant applicant, int id, boolean delete) {
+      Enquiry enquiry = new Enquiry(id, project.getProjectName(), project.getId(), applicant.getName(),
+              applicant.getNric(), LocalDate.now(), "Is there parking?", null, null, null);
+      EntityLocks.lock(project, applicant);
+      try {
+         project.addEnquiry(enquiry);
+         applicant.getEnquiries().add(enquiry);
+      }
+      finally {
+         EntityLocks.unlock(project, applicant);
+      }
+      if (!delete) {
+         return true;
+      }
+      EntityLocks.lock(project, applicant);
+      try {
+         applicant.getEnquiries().remove(enquiry);
+         project.removeEnquiry(enquiry);
+      }
+      finally {
+         EntityLocks.unlock(project, applicant);
+      }
+      return false;
+   }
+
+   // As a manager approves: the first pending application gets a flat if one is free, under the project's lock
+   private static void approveOne(Project project) {
+      EntityLocks.lock(project);
+      try {
+         for (Application application : project.getApplications()) {
+            if (application.getApplicationStatus() == ApplicationStatus.PENDING) {
+               boolean held = project.getInventory().reserve(application.getFlatType());
+               application.setStatus(held ? ApplicationStatus.SUCCESSFUL : ApplicationStatus.UNSUCCESSFUL);
+               return;
+            }
+         }
+      }
+      finally {
+         EntityLocks.unlock(project);
+      }
+   }
+
+   // What the menus do to show a project and an applicant, without any lock of their own
+   private static void browse(Project project, Applicant applicant) {
+      long pending = project.getApplications().stream()
+              .filter(application -> application.getApplicationStatus() == ApplicationStatus.PENDING)
+              .count();
+      for (Enquiry enquiry : project.getEnquiries()) {
+         if (enquiry.getId() == null) {
+            throw new IllegalStateException("Enquiry without an id");
+         }
+      }
+      int size = applicant.getMyApplications().size();
+      if (size > 0) {
+         applicant.getMyApplications().get(size - 1);
+      }
+      if (pending < 0 || project.getInventory().remaining(TYPE) < 0) {
+         throw new IllegalStateException("Negative count");
+      }
+   }
+
+   private static List<String> check(Project[] projects, Applicant[] applicants, int applicationsAdded, int enquiriesKept) {
+      List<String> problems = new ArrayList<>();
+      Set<Application> inProjects = Collections.newSetFromMap(new IdentityHashMap<>());
+      Set<Enquiry> enquiriesInProjects = Collections.newSetFromMap(new IdentityHashMap<>());
+      int projectApplications = 0;
+      int projectEnquiries = 0;
+      for (Project project : projects) {
+         List<Application> applications = project.getApplications();
+         projectApplications += applications.size();
+         inProjects.addAll(applications);
+         projectEnquiries += project.getEnquiries().size();
+         enquiriesInProjects.addAll(project.getEnquiries());
+
+         long successful = applications.stream()
+                 .filter(application -> application.getApplicationStatus() == ApplicationStatus.SUCCESSFUL)
+                 .count();
+         FlatInventory inventory = project.getInventory();
+         if (successful > UNITS || inventory.held(TYPE) != successful
+                 || inventory.remaining(TYPE) + inventory.held(TYPE) + inventory.booked(TYPE) != UNITS) {
+            problems.add(project.getProjectName() + ": " + successful + " approved, " + inventory.remaining(TYPE)
+                    + " free, " + inventory.held(TYPE) + " held of " + UNITS);
+         }
+      }
+
+      int applicantApplications = 0;
+      int applicantEnquiries = 0;
+      int notInProject = 0;
+      for (Applicant applicant : applicants) {
+         applicantApplications += applicant.getMyApplications().size();
+         applicantEnquiries += applicant.getEnquiries().size();
+         for (Application application : applicant.getMyApplications()) {
+            if (!inProjects.contains(application)) {
+               notInProject++;
+            }
+         }
+         for (Enquiry enquiry : applicant.getEnquiries()) {
+            if (!enquiriesInProjects.contains(enquiry)) {
+               notInProject++;
+            }
+         }
+      }
+
+      if (projectApplications != applicationsAdded || applicantApplications != applicationsAdded
+              || inProjects.size() != applicationsAdded) {
+         problems.add(applicationsAdded + " applications added, " + projectApplications + " in projects ("
+                 + inProjects.size() + " distinct), " + applicantApplications + " in applicants");
+      }
+      if (projectEnquiries != enquiriesKept || applicantEnquiries != enquiriesKept) {
+         problems.add(enquiriesKept + " enquiries kept, " + projectEnquiries + " in projects, " + applicantEnquiries
+                 + " in applicants");
+      }
+      if (notInProject > 0) {
+         problems.add(notInProject + " applications or enquiries of applicants are in no project");
+      }
+      return problems;
+   }
+}